@@ -0,0 +1,213 @@
+package pfko.vopalensky.filesandcollections;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits lines of csv file into columns directly from encoded bytes, so the
+ * line itself is never decoded into a string.
+ * <p>
+ * Works the same way as {@link CsvTokenizer}, only values which are
+ * requested are copied out of the memory segment and decoded. Values made
+ * of ASCII bytes only (which is the usual case) skip the charset decoder
+ * and are stored straight as Latin-1 strings. Instance is reusable for any
+ * number of lines but is not thread safe.
+ */
+final class ByteCsvTokenizer implements CsvRecord {
+    private static final byte QUOTE = '"';
+    private static final byte SEPARATOR = ',';
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    /**
+     * Start (even index) and end (odd index) of every column in current line
+     */
+    private final long[] bounds;
+    private final Charset charset;
+    /**
+     * Reusable buffer for bytes of a single value
+     */
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private MemorySegment content;
+    private int columns;
+
+    /**
+     * Creates tokenizer for lines with fixed number of columns.
+     *
+     * @param expectedColumns number of columns every line should have
+     * @param charset         charset the lines are encoded in, it has to be
+     *                        compatible with ASCII
+     */
+    ByteCsvTokenizer(int expectedColumns, Charset charset) {
+        bounds = new long[expectedColumns * 2];
+        this.charset = charset;
+    }
+
+    /**
+     * Walks the line once and remembers boundaries of its columns. Comma
+     * separates columns only when it is not enclosed in quotes, doubled
+     * (escaped) quotes simply toggle the state twice.
+     *
+     * @param segment memory where the line is stored
+     * @param from    index of first byte of line
+     * @param to      index after last byte of line
+     * @return true if line has exactly the expected number of columns
+     */
+    boolean tokenize(MemorySegment segment, long from, long to) {
+        content = segment;
+        columns = 0;
+        boolean inQuotes = false;
+        long start = from;
+        for (long i = from; i < to; i++) {
+            byte b = segment.get(ValueLayout.JAVA_BYTE, i);
+            if (b == QUOTE) {
+                inQuotes = !inQuotes;
+            } else if (b == SEPARATOR && !inQuotes) {
+                if (!addColumn(start, i)) {
+                    return false;
+                }
+                start = i + 1;
+            }
+        }
+        return addColumn(start, to) && columns * 2 == bounds.length;
+    }
+
+    /**
+     * Stores boundaries of next column.
+     *
+     * @return false if line has more columns than expected
+     */
+    private boolean addColumn(long start, long end) {
+        if (columns * 2 == bounds.length) {
+            return false;
+        }
+        bounds[columns * 2] = start;
+        bounds[columns * 2 + 1] = end;
+        columns++;
+        return true;
+    }
+
+    /**
+     * Returns number of columns found in the last tokenized line. Counting
+     * stops at the expected number of columns, so line with more columns
+     * reports exactly the expected number even though it was rejected.
+     *
+     * @return number of found columns
+     */
+    int columns() {
+        return columns;
+    }
+
+    @Override
+    public String column(int column) {
+        long start = bounds[column * 2];
+        int length = (int) (bounds[column * 2 + 1] - start);
+        byte[] bytes = buffer(length);
+        MemorySegment.copy(content, ValueLayout.JAVA_BYTE, start,
+                bytes, 0, length);
+        return decode(bytes, length);
+    }
+
+    @Override
+    public List<String> values(int column) {
+        long start = bounds[column * 2];
+        long end = bounds[column * 2 + 1];
+        if (start == end) {
+            return List.of();
+        } else if (content.get(ValueLayout.JAVA_BYTE, start) != QUOTE) {
+            return List.of(column(column));
+        }
+
+        List<String> values = new ArrayList<>();
+        int nonEmptyValues = 0;
+        long valueStart = start;
+        for (long i = start; i <= end; i++) {
+            if (i == end
+                    || content.get(ValueLayout.JAVA_BYTE, i) == SEPARATOR) {
+                int length = copyWithoutQuotes(valueStart, i);
+                values.add(strip(length));
+                // Same as String.split, trailing empty values are dropped
+                if (length > 0) {
+                    nonEmptyValues = values.size();
+                }
+                valueStart = i + 1;
+            }
+        }
+        if (values.size() == 1) {
+            return List.of(values.get(0));
+        }
+        return List.copyOf(values.subList(0, nonEmptyValues));
+    }
+
+    /**
+     * Copies part of line without quotes into the buffer.
+     *
+     * @return number of copied bytes
+     */
+    private int copyWithoutQuotes(long start, long end) {
+        byte[] bytes = buffer((int) (end - start));
+        int length = 0;
+        for (long i = start; i < end; i++) {
+            byte b = content.get(ValueLayout.JAVA_BYTE, i);
+            if (b != QUOTE) {
+                bytes[length++] = b;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Creates stripped value from the beginning of buffer.
+     */
+    private String strip(int length) {
+        int start = 0;
+        int end = length;
+        while (start < end && isAsciiWhitespace(buffer[start])) {
+            start++;
+        }
+        while (end > start && isAsciiWhitespace(buffer[end - 1])) {
+            end--;
+        }
+        if (isAscii(buffer, start, end)) {
+            return new String(buffer, start, end - start,
+                    StandardCharsets.ISO_8859_1);
+        }
+        // Non-ASCII whitespace can only be recognized after decoding
+        return new String(buffer, start, end - start, charset).strip();
+    }
+
+    /**
+     * Decodes beginning of buffer into string.
+     */
+    private String decode(byte[] bytes, int length) {
+        return new String(bytes, 0, length, isAscii(bytes, 0, length)
+                ? StandardCharsets.ISO_8859_1
+                : charset);
+    }
+
+    /**
+     * Returns buffer which is at least of given size.
+     */
+    private byte[] buffer(int size) {
+        if (buffer.length < size) {
+            buffer = new byte[Math.max(size, buffer.length * 2)];
+        }
+        return buffer;
+    }
+
+    private static boolean isAscii(byte[] bytes, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (bytes[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAsciiWhitespace(byte b) {
+        return b >= 0 && Character.isWhitespace(b);
+    }
+}
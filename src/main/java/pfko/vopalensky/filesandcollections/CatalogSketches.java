@@ -0,0 +1,90 @@
+package pfko.vopalensky.filesandcollections;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Creates {@link HyperLogLog} sketches of values of games stored in
+ * catalog. Values are dictionary encoded, so every distinct value is
+ * hashed only once and games only look up hashes of their value ids.
+ */
+final class CatalogSketches {
+
+    private CatalogSketches() {
+    }
+
+    /**
+     * Creates sketch of all values of field.
+     *
+     * @param catalog version of catalog
+     * @param field   field whose values are counted
+     * @return sketch with default precision
+     */
+    static HyperLogLog sketch(GameCatalog catalog, GameQuery.Field field) {
+        HyperLogLog sketch = new HyperLogLog();
+        if (field == GameQuery.Field.YEAR) {
+            for (int game = 0; game < catalog.size(); game++) {
+                sketch.add(catalog.released(game));
+            }
+            return sketch;
+        }
+        ValueColumn column = catalog.column(field);
+        for (int id = 0; id < column.distinct(); id++) {
+            if (column.count(id) > 0) {
+                sketch.add(column.name(id));
+            }
+        }
+        return sketch;
+    }
+
+    /**
+     * Creates sketch of values of field for games of every genre.
+     *
+     * @param catalog version of catalog
+     * @param field   field whose values are counted
+     * @return map of genre and sketch of values of its games
+     */
+    static SortedMap<String, HyperLogLog> sketchesByGenre(
+            GameCatalog catalog, GameQuery.Field field) {
+        ValueColumn column = field == GameQuery.Field.YEAR
+                ? null
+                : catalog.column(field);
+        long[] hashes = column == null ? null : hashes(column);
+        ValueColumn genres = catalog.genres();
+        int[] releaseOrder = catalog.yearIndex().order();
+        SortedMap<String, HyperLogLog> sketches = new TreeMap<>();
+        for (int genre = 0; genre < genres.distinct(); genre++) {
+            if (genres.count(genre) == 0) {
+                continue;
+            }
+            HyperLogLog sketch = new HyperLogLog();
+            for (int position : catalog.genreIndex().postings(genre)) {
+                int game = releaseOrder[position];
+                if (column == null) {
+                    sketch.add(catalog.released(game));
+                } else {
+                    for (int i = column.start(game); i < column.end(game); i++) {
+                        sketch.addHash(hashes[column.value(i)]);
+                    }
+                }
+            }
+            sketches.put(genres.name(genre), sketch);
+        }
+        return sketches;
+    }
+
+    /**
+     * Hashes every value of column once.
+     *
+     * @return hash of every dictionary id used in column
+     */
+    private static long[] hashes(ValueColumn column) {
+        long[] hashes = new long[column.distinct()];
+        for (int id = 0; id < column.distinct(); id++) {
+            if (column.count(id) > 0) {
+                hashes[id] = HyperLogLog.hash(column.name(id));
+            }
+        }
+        return hashes;
+    }
+}
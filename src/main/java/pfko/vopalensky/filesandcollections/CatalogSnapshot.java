@@ -0,0 +1,121 @@
+package pfko.vopalensky.filesandcollections;
+
+import pfko.vopalensky.filesandcollections.exceptions.EmptyFileException;
+import pfko.vopalensky.filesandcollections.exceptions.InvalidFileFormatException;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of {@link GameCatalog}, which can be loaded without
+ * parsing any csv. Snapshot starts with a header - magic number, version of
+ * format, length of payload and its CRC32 checksum. Payload holds
+ * dictionaries, columns and already built indexes of catalog, so loading
+ * consists only of bulk copies of arrays and decoding of distinct strings.
+ */
+final class CatalogSnapshot {
+    /**
+     * "GSNP" in ASCII
+     */
+    private static final int MAGIC = 0x47534E50;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE =
+            2 * Integer.BYTES + Long.BYTES + Integer.BYTES;
+    /**
+     * Largest part of payload handed to checksum at once
+     */
+    private static final long CHECKSUM_CHUNK = 1 << 30;
+
+    private CatalogSnapshot() {
+    }
+
+    /**
+     * Writes snapshot of catalog into file. Snapshot is written into
+     * a temporary file first which then replaces the target, so readers
+     * never see a half written snapshot. Snapshot keeps permissions of
+     * the replaced file, see {@link ChannelWriter#replace(Path, Path)}.
+     *
+     * @param catalog catalog to be saved
+     * @param file    path to file where snapshot should be written
+     * @throws IOException When there is a problem with creating or writing
+     *                     into file.
+     */
+    static void save(GameCatalog catalog, Path file) throws IOException {
+        Path temporary = ChannelWriter.createTemporary(file);
+        try {
+            try (SnapshotWriter writer = new SnapshotWriter(temporary,
+                    HEADER_SIZE)) {
+                catalog.write(writer);
+                int checksum = writer.finish();
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                        .order(ByteOrder.LITTLE_ENDIAN)
+                        .putInt(MAGIC)
+                        .putInt(VERSION)
+                        .putLong(writer.length())
+                        .putInt(checksum)
+                        .flip();
+                writer.writeHeader(header);
+            }
+            ChannelWriter.replace(temporary, file);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+    }
+
+    /**
+     * Memory maps snapshot file, verifies its header and checksum and reads
+     * catalog from it.
+     *
+     * @param file path to snapshot file
+     * @return catalog stored in snapshot, with all its indexes
+     * @throws IOException When file does not exist or cannot be read,
+     *                     {@link EmptyFileException} for empty file and
+     *                     {@link InvalidFileFormatException} when file is not
+     *                     a snapshot of supported version or is damaged.
+     */
+    static GameCatalog load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ);
+             Arena arena = Arena.ofConfined()) {
+            long size = channel.size();
+            if (size == 0) {
+                throw new EmptyFileException();
+            }
+            MemorySegment content = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, size, arena);
+            SnapshotReader header = new SnapshotReader(content, 0);
+            if (size < HEADER_SIZE || header.readInt() != MAGIC
+                    || header.readInt() != VERSION
+                    || header.readLong() != size - HEADER_SIZE) {
+                throw new InvalidFileFormatException();
+            }
+            int checksum = header.readInt();
+            if (checksum != checksum(content.asSlice(HEADER_SIZE))) {
+                throw new InvalidFileFormatException();
+            }
+            return GameCatalog.read(new SnapshotReader(content, HEADER_SIZE));
+        }
+    }
+
+    /**
+     * Computes CRC32 checksum of memory segment.
+     */
+    private static int checksum(MemorySegment payload) {
+        CRC32 crc = new CRC32();
+        for (long offset = 0; offset < payload.byteSize();
+             offset += CHECKSUM_CHUNK) {
+            crc.update(payload.asSlice(offset, Math.min(CHECKSUM_CHUNK,
+                    payload.byteSize() - offset)).asByteBuffer());
+        }
+        return (int) crc.getValue();
+    }
+}
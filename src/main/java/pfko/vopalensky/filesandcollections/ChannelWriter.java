@@ -0,0 +1,280 @@
+package pfko.vopalensky.filesandcollections;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes text into file as UTF-8 through a large direct buffer straight
+ * into file channel, optionally compressed by gzip on the fly.
+ * <p>
+ * ASCII characters are copied into the buffer directly, only other text
+ * goes through charset encoder. Text is written into a temporary file next
+ * to the target and {@link #commit()} moves it over the target at once,
+ * so readers never see a half written file and a failed write keeps the
+ * previous content. Written file gets the permissions of the replaced
+ * target, new target gets the default permissions of new files, the same
+ * as when written directly. Writer closed without commit deletes the
+ * temporary file.
+ */
+final class ChannelWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final String GZIP_EXTENSION = ".gz";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final byte[] GZIP_HEADER = {
+            0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    private final Path target;
+    private final Path temporary;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    /**
+     * Compressor and buffer of compressed bytes, null when not compressing
+     */
+    private final Deflater deflater;
+    private final ByteBuffer compressed;
+    private final CRC32 checksum = new CRC32();
+    private long uncompressedSize;
+    private boolean committed;
+
+    /**
+     * Creates temporary file for target.
+     *
+     * @param target file which is replaced on commit, temporary file
+     *               with unique name is created next to it
+     * @param gzip   true if content should be compressed by gzip
+     * @throws IOException When temporary file cannot be created,
+     *                     {@link FileNotFoundException} when its directory
+     *                     does not exist or cannot be written.
+     */
+    ChannelWriter(Path target, boolean gzip) throws IOException {
+        this.target = target;
+        try {
+            this.temporary = createTemporary(target);
+        } catch (NoSuchFileException | AccessDeniedException e) {
+            // Reported the same way as by FileWriter
+            throw new FileNotFoundException(target.toString());
+        }
+        try {
+            this.channel = FileChannel.open(temporary,
+                    StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        if (gzip) {
+            deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            compressed = ByteBuffer.allocateDirect(BUFFER_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            compressed.put(GZIP_HEADER);
+        } else {
+            deflater = null;
+            compressed = null;
+        }
+    }
+
+    /**
+     * Creates empty temporary file next to target. Name is unique, so
+     * existing files and concurrent writers of the same target are never
+     * overwritten. Unlike {@link Files#createTempFile}, file gets default
+     * permissions of new files, not permissions of its owner only.
+     *
+     * @param target file which is going to be replaced
+     * @return path to new temporary file
+     * @throws IOException When file cannot be created.
+     */
+    static Path createTemporary(Path target) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        String prefix = target.getFileName().toString() + ".";
+        while (true) {
+            Path temporary = directory.resolve(prefix
+                    + Long.toUnsignedString(ThreadLocalRandom.current().nextLong())
+                    + TEMPORARY_SUFFIX);
+            try {
+                return Files.createFile(temporary);
+            } catch (FileAlreadyExistsException e) {
+                // Another file has the same name, next name is tried
+            }
+        }
+    }
+
+    /**
+     * Replaces target by temporary file at once. Existing target passes
+     * its permissions to the temporary file first, so replacing does not
+     * change who can read it.
+     *
+     * @param temporary written temporary file
+     * @param target    file to be replaced
+     * @throws IOException When file cannot be moved.
+     */
+    static void replace(Path temporary, Path target) throws IOException {
+        PosixFileAttributeView attributes = Files.getFileAttributeView(
+                target, PosixFileAttributeView.class);
+        if (attributes != null && Files.exists(target)) {
+            Files.setPosixFilePermissions(temporary,
+                    attributes.readAttributes().permissions());
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Creates writer of file, file whose name ends with {@code .gz}
+     * is compressed by gzip.
+     *
+     * @param target path to file
+     * @return new writer
+     * @throws IOException When temporary file cannot be created.
+     */
+    static ChannelWriter open(String target) throws IOException {
+        return new ChannelWriter(Path.of(target),
+                target.endsWith(GZIP_EXTENSION));
+    }
+
+    /**
+     * Writes text.
+     *
+     * @param text text to be written
+     * @throws IOException When writing into file fails.
+     */
+    void write(String text) throws IOException {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                encode(CharBuffer.wrap(text, i, length));
+                return;
+            }
+            if (!buffer.hasRemaining()) {
+                flush(false);
+            }
+            buffer.put((byte) c);
+        }
+    }
+
+    /**
+     * Writes line separator of platform.
+     *
+     * @throws IOException When writing into file fails.
+     */
+    void newLine() throws IOException {
+        write(LINE_SEPARATOR);
+    }
+
+    /**
+     * Encodes characters which are not ASCII. Every written text is encoded
+     * as complete input, so a lone surrogate at its end is replaced rather
+     * than kept in encoder and dropped.
+     */
+    private void encode(CharBuffer chars) throws IOException {
+        CoderResult result = encoder.encode(chars, buffer, true);
+        while (result.isOverflow()) {
+            flush(false);
+            result = encoder.encode(chars, buffer, true);
+        }
+        if (result.isError()) {
+            result.throwException();
+        }
+        while (encoder.flush(buffer).isOverflow()) {
+            flush(false);
+        }
+        encoder.reset();
+    }
+
+    /**
+     * Writes content of buffer into file, compressed when gzip is used.
+     *
+     * @param finish true if no more content follows
+     */
+    private void flush(boolean finish) throws IOException {
+        buffer.flip();
+        if (deflater == null) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } else {
+            uncompressedSize += buffer.remaining();
+            checksum.update(buffer.duplicate());
+            deflater.setInput(buffer);
+            if (finish) {
+                deflater.finish();
+            }
+            while (finish ? !deflater.finished() : !deflater.needsInput()) {
+                deflater.deflate(compressed);
+                drain();
+            }
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes compressed bytes into file.
+     */
+    private void drain() throws IOException {
+        compressed.flip();
+        while (compressed.hasRemaining()) {
+            channel.write(compressed);
+        }
+        compressed.clear();
+    }
+
+    /**
+     * Writes rest of content and replaces target by the written file.
+     *
+     * @throws IOException When writing or moving of file fails.
+     */
+    void commit() throws IOException {
+        flush(true);
+        if (deflater != null) {
+            compressed.putInt((int) checksum.getValue());
+            compressed.putInt((int) uncompressedSize);
+            drain();
+        }
+        channel.close();
+        replace(temporary, target);
+        committed = true;
+    }
+
+    /**
+     * Closes file, temporary file of not committed writer is deleted.
+     *
+     * @throws IOException When file cannot be closed or deleted.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (deflater != null) {
+                deflater.end();
+            }
+            channel.close();
+        } finally {
+            if (!committed) {
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+}
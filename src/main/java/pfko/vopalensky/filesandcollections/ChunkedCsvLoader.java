@@ -0,0 +1,209 @@
+package pfko.vopalensky.filesandcollections;
+
+import pfko.vopalensky.filesandcollections.exceptions.EmptyFileException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses content of csv file straight from its bytes, optionally in parallel.
+ * Input is split into byte ranges which always end right after a new line,
+ * every range is parsed on its own in a fork-join pool and results are merged
+ * in the original order.
+ * <p>
+ * Records of games file never span multiple lines (sequential loading reads
+ * the file line by line as well), so a quote can never be opened across
+ * a new line and aligning ranges to new lines keeps all quoted columns whole.
+ */
+final class ChunkedCsvLoader {
+    private static final byte NEW_LINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    /**
+     * Number of chunks per thread, so faster threads can steal the rest
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final long MIN_CHUNK_SIZE = 64 * 1024L;
+
+    private final int parallelism;
+    private final Charset charset;
+
+    /**
+     * Creates loader with given number of parsing threads.
+     *
+     * @param parallelism number of threads parsing chunks
+     * @param charset     charset the file is encoded in
+     */
+    ChunkedCsvLoader(int parallelism, Charset charset) {
+        this.parallelism = parallelism;
+        this.charset = charset;
+    }
+
+    /**
+     * Skips headers line and parses all other lines into games.
+     *
+     * @param input whole content of csv file, it has to be accessible
+     *              from any thread when parallelism is larger than one
+     * @return games in the same order as they are written in file
+     * @throws IOException when file is empty or any of lines is invalid
+     */
+    List<Game> parse(MemorySegment input) throws IOException {
+        long headersEnd = lineEnd(input, 0);
+        if (headersEnd == 0) {
+            throw new EmptyFileException();
+        }
+        long bodyStart = nextLine(input, headersEnd);
+
+        List<long[]> chunks = split(input, bodyStart);
+        if (chunks.size() == 1) {
+            return parseChunk(input, bodyStart, input.byteSize());
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ForkJoinTask<List<Game>>> tasks = new ArrayList<>();
+            for (long[] chunk : chunks) {
+                tasks.add(pool.submit(
+                        () -> parseChunk(input, chunk[0], chunk[1])));
+            }
+            return merge(tasks);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Splits body of file into byte ranges aligned to line boundaries.
+     *
+     * @return list of ranges, each as {@code [from, to)}
+     */
+    private List<long[]> split(MemorySegment input, long bodyStart) {
+        long size = input.byteSize();
+        long bodyLength = size - bodyStart;
+        int chunkCount = Math.clamp(bodyLength / MIN_CHUNK_SIZE,
+                1, parallelism * CHUNKS_PER_THREAD);
+        long chunkSize = bodyLength / chunkCount;
+
+        List<long[]> chunks = new ArrayList<>(chunkCount);
+        long from = bodyStart;
+        while (from < size) {
+            long to = from + chunkSize >= size
+                    ? size
+                    : nextLine(input, lineEnd(input, from + chunkSize));
+            chunks.add(new long[]{from, to});
+            from = to;
+        }
+        if (chunks.isEmpty()) {
+            chunks.add(new long[]{bodyStart, size});
+        }
+        return chunks;
+    }
+
+    /**
+     * Collects results of all tasks in order in which the chunks were
+     * created. When parsing fails, error from the earliest chunk is thrown.
+     */
+    private static List<Game> merge(List<ForkJoinTask<List<Game>>> tasks)
+            throws IOException {
+        List<Game> games = new ArrayList<>();
+        for (List<Game> chunk : join(tasks)) {
+            games.addAll(chunk);
+        }
+        return games;
+    }
+
+    /**
+     * Waits for all tasks and collects their results in order of tasks.
+     * When any task fails, error of the earliest one is thrown.
+     *
+     * @param tasks tasks submitted to a fork-join pool
+     * @param <T>   type of result of tasks
+     * @return results of tasks
+     * @throws IOException exception thrown by the earliest failed task
+     */
+    static <T> List<T> join(List<ForkJoinTask<T>> tasks) throws IOException {
+        List<T> results = new ArrayList<>(tasks.size());
+        for (ForkJoinTask<T> task : tasks) {
+            try {
+                results.add(task.get());
+            } catch (ExecutionException e) {
+                // Checked exceptions of tasks may be wrapped more times
+                for (Throwable cause = e; cause != null;
+                     cause = cause.getCause()) {
+                    if (cause instanceof IOException ioException) {
+                        throw ioException;
+                    }
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Parses all non-empty lines in given range.
+     */
+    private List<Game> parseChunk(MemorySegment input, long from, long to)
+            throws IOException {
+        ByteCsvTokenizer tokenizer = new ByteCsvTokenizer(
+                FileApp.csvProperties.values().length, charset);
+        List<Game> games = new ArrayList<>();
+        long lineStart = from;
+        while (lineStart < to) {
+            long lineEnd = lineEnd(input, lineStart);
+            if (lineEnd > lineStart) {
+                games.add(FileApp.parseLineToGame(
+                        tokenizer, input, lineStart, lineEnd));
+            }
+            lineStart = nextLine(input, lineEnd);
+        }
+        return games;
+    }
+
+    /**
+     * Finds end of line which contains given position. Line is terminated
+     * the same way as in {@link java.io.BufferedReader#readLine()}.
+     *
+     * @return index of line terminator or size of input
+     */
+    static long lineEnd(MemorySegment input, long position) {
+        long size = input.byteSize();
+        long i = position;
+        while (i < size) {
+            byte b = input.get(ValueLayout.JAVA_BYTE, i);
+            if (b == NEW_LINE || b == CARRIAGE_RETURN) {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Skips line terminator at given position.
+     *
+     * @return index where next line starts
+     */
+    static long nextLine(MemorySegment input, long lineEnd) {
+        long size = input.byteSize();
+        if (lineEnd < size
+                && input.get(ValueLayout.JAVA_BYTE, lineEnd) == CARRIAGE_RETURN) {
+            lineEnd++;
+        }
+        if (lineEnd < size
+                && input.get(ValueLayout.JAVA_BYTE, lineEnd) == NEW_LINE) {
+            lineEnd++;
+        }
+        return lineEnd;
+    }
+}
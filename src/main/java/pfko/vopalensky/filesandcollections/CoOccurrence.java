@@ -0,0 +1,261 @@
+package pfko.vopalensky.filesandcollections;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Sparse matrix counting how many games have each pair of values of two
+ * columns, such as how many games every developer made for every
+ * publisher. Only pairs which occur in some game are stored.
+ * <p>
+ * Matrix is computed by parallel hash aggregation. Games are split into
+ * ranges, every range counts its pairs in its own primitive hash map keyed
+ * by dictionary ids of both values packed into one long, and partial maps
+ * are merged at the end. Cells are then stored row by row in flat arrays,
+ * cells of every row ordered by count in descending order, cells with equal
+ * counts keep order of first appearance of their column value.
+ * Instances are immutable.
+ */
+public final class CoOccurrence {
+    private static final int MIN_GAMES_PER_TASK = 4096;
+    private static final int TASKS_PER_THREAD = 4;
+
+    private final ValueColumn rows;
+    private final ValueColumn columns;
+    /**
+     * Dictionary ids of values of rows having at least one cell, ascending
+     */
+    private final int[] rowIds;
+    /**
+     * Position where cells of each row start, with one extra item
+     */
+    private final int[] starts;
+    private final int[] columnIds;
+    private final int[] counts;
+
+    private CoOccurrence(ValueColumn rows, ValueColumn columns, int[] rowIds,
+                         int[] starts, int[] columnIds, int[] counts) {
+        this.rows = rows;
+        this.columns = columns;
+        this.rowIds = rowIds;
+        this.starts = starts;
+        this.columnIds = columnIds;
+        this.counts = counts;
+    }
+
+    /**
+     * Counts pairs of values of two columns in all games.
+     *
+     * @param rows    column whose values are rows of matrix
+     * @param columns column whose values are columns of matrix
+     * @param size    number of games
+     * @return new matrix
+     */
+    static CoOccurrence compute(ValueColumn rows, ValueColumn columns,
+                                int size) {
+        int tasks = Math.clamp(size / MIN_GAMES_PER_TASK, 1,
+                Runtime.getRuntime().availableProcessors() * TASKS_PER_THREAD);
+        LongIntHashMap pairs = IntStream.range(0, tasks).parallel()
+                .mapToObj(task -> countPairs(rows, columns,
+                        (int) ((long) size * task / tasks),
+                        (int) ((long) size * (task + 1) / tasks)))
+                .reduce((first, second) -> {
+                    // Smaller map is merged into the larger one
+                    LongIntHashMap larger = first.size() >= second.size()
+                            ? first
+                            : second;
+                    larger.addAll(larger == first ? second : first);
+                    return larger;
+                })
+                .orElseGet(LongIntHashMap::new);
+        return fromPairs(rows, columns, pairs);
+    }
+
+    /**
+     * Counts pairs of values of games in given range.
+     */
+    private static LongIntHashMap countPairs(ValueColumn rows,
+                                             ValueColumn columns,
+                                             int from, int to) {
+        LongIntHashMap pairs = new LongIntHashMap();
+        for (int game = from; game < to; game++) {
+            for (int i = rows.start(game); i < rows.end(game); i++) {
+                long row = (long) rows.value(i) << Integer.SIZE;
+                for (int j = columns.start(game); j < columns.end(game); j++) {
+                    pairs.add(row | columns.value(j), 1);
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Stores counted pairs row by row.
+     */
+    private static CoOccurrence fromPairs(ValueColumn rows,
+                                          ValueColumn columns,
+                                          LongIntHashMap pairs) {
+        // Plain sort of packed keys groups cells by row, ordered by
+        // column id, which is order of first appearance
+        long[] keys = new long[pairs.size()];
+        int[] index = {0};
+        pairs.forEach((key, count) -> keys[index[0]++] = key);
+        Arrays.sort(keys);
+
+        int[] rowIds = new int[keys.length];
+        int[] starts = new int[keys.length + 1];
+        int[] columnIds = new int[keys.length];
+        int[] counts = new int[keys.length];
+        int rowCount = 0;
+        for (int i = 0; i < keys.length; i++) {
+            int row = (int) (keys[i] >>> Integer.SIZE);
+            if (rowCount == 0 || rowIds[rowCount - 1] != row) {
+                rowIds[rowCount] = row;
+                starts[rowCount] = i;
+                rowCount++;
+            }
+        }
+        starts[rowCount] = keys.length;
+
+        // Count in upper half (inverted, so larger comes first) and column
+        // id in lower half, so plain sort orders cells of a row
+        long[] cells = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            long count = pairs.get(keys[i]);
+            cells[i] = ((Integer.MAX_VALUE - count) << Integer.SIZE)
+                    | (int) keys[i];
+        }
+        for (int row = 0; row < rowCount; row++) {
+            Arrays.sort(cells, starts[row], starts[row + 1]);
+        }
+        for (int i = 0; i < cells.length; i++) {
+            columnIds[i] = (int) cells[i];
+            counts[i] = Integer.MAX_VALUE - (int) (cells[i] >>> Integer.SIZE);
+        }
+        return new CoOccurrence(rows, columns,
+                Arrays.copyOf(rowIds, rowCount),
+                Arrays.copyOf(starts, rowCount + 1), columnIds, counts);
+    }
+
+    /**
+     * Finds position of row in arrays of rows.
+     *
+     * @return index of row or negative number when row has no cells
+     */
+    private int rowIndex(String row) {
+        int id = rows.find(row);
+        return id == StringDictionary.MISSING
+                ? -1
+                : Arrays.binarySearch(rowIds, id);
+    }
+
+    /**
+     * Returns number of games having both values.
+     *
+     * @param row    value of row
+     * @param column value of column
+     * @return number of games, 0 when there is no such game
+     */
+    public int count(String row, String column) {
+        int index = rowIndex(row);
+        int columnId = columns.find(column);
+        if (index < 0 || columnId == StringDictionary.MISSING) {
+            return 0;
+        }
+        for (int i = starts[index]; i < starts[index + 1]; i++) {
+            if (columnIds[i] == columnId) {
+                return counts[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns all values of rows having at least one cell.
+     *
+     * @return values of rows in order of their first appearance
+     */
+    public List<String> rows() {
+        List<String> names = new ArrayList<>(rowIds.length);
+        for (int id : rowIds) {
+            names.add(rows.name(id));
+        }
+        return names;
+    }
+
+    /**
+     * Returns number of stored cells, which is the number of distinct
+     * pairs of values occurring in games.
+     *
+     * @return number of non-zero cells
+     */
+    public int cells() {
+        return columnIds.length;
+    }
+
+    /**
+     * Returns non-zero cells of a row.
+     *
+     * @param row value of row
+     * @return entries of value of column and number of games in descending
+     * order, empty list when row has no cells
+     */
+    public List<Map.Entry<String, Integer>> row(String row) {
+        return top(row, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns cells of row with the highest counts.
+     *
+     * @param row value of row
+     * @param n   maximal number of cells
+     * @return at most n entries of value of column and number of games
+     * in descending order
+     */
+    public List<Map.Entry<String, Integer>> top(String row, int n) {
+        checkSize(n);
+        int index = rowIndex(row);
+        return index < 0 ? List.of() : cells(index, n);
+    }
+
+    /**
+     * Returns cells with the highest counts of every row.
+     *
+     * @param n maximal number of cells of each row
+     * @return map of value of row and its at most n entries in descending
+     * order, rows are in order of their first appearance
+     */
+    public Map<String, List<Map.Entry<String, Integer>>> topPerRow(int n) {
+        checkSize(n);
+        Map<String, List<Map.Entry<String, Integer>>> top =
+                new LinkedHashMap<>();
+        for (int index = 0; index < rowIds.length; index++) {
+            top.put(rows.name(rowIds[index]), cells(index, n));
+        }
+        return top;
+    }
+
+    /**
+     * Creates entries of the first cells of row.
+     */
+    private List<Map.Entry<String, Integer>> cells(int index, int n) {
+        int end = (int) Math.min(starts[index + 1], (long) starts[index] + n);
+        List<Map.Entry<String, Integer>> cells =
+                new ArrayList<>(end - starts[index]);
+        for (int i = starts[index]; i < end; i++) {
+            cells.add(Map.entry(columns.name(columnIds[i]), counts[i]));
+        }
+        return cells;
+    }
+
+    private static void checkSize(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException(
+                    "Number of items can not be negative");
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package pfko.vopalensky.filesandcollections;
+
+import java.util.List;
+
+/**
+ * Columns of a single tokenized line of csv file.
+ */
+interface CsvRecord {
+
+    /**
+     * Returns column exactly as it is written in the line.
+     *
+     * @param column index of column
+     * @return raw content of column
+     */
+    String column(int column);
+
+    /**
+     * Check whether single column contains multiple information. Quoted
+     * column is a comma separated list whose values are stripped and
+     * freed of quotes, otherwise the whole column is the only value.
+     *
+     * @param column index of column
+     * @return List of all data inputs from this column.
+     */
+    List<String> values(int column);
+}
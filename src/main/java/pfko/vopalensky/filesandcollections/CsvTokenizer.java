@@ -0,0 +1,158 @@
+package pfko.vopalensky.filesandcollections;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits lines of csv file into columns in a single pass without
+ * regular expressions.
+ * <p>
+ * Tokenizer only remembers where each column starts and ends, so no
+ * intermediate arrays or strings are created until the column is actually
+ * requested. Instance is reusable for any number of lines but is not
+ * thread safe.
+ */
+final class CsvTokenizer implements CsvRecord {
+    private static final char QUOTE = '"';
+    private static final char SEPARATOR = ',';
+
+    /**
+     * Start (even index) and end (odd index) of every column in current line
+     */
+    private final int[] bounds;
+    /**
+     * Reusable buffer for values containing escaped quotes
+     */
+    private final StringBuilder buffer = new StringBuilder();
+    private String line;
+    private int columns;
+
+    /**
+     * Creates tokenizer for lines with fixed number of columns.
+     *
+     * @param expectedColumns number of columns every line should have
+     */
+    CsvTokenizer(int expectedColumns) {
+        bounds = new int[expectedColumns * 2];
+    }
+
+    /**
+     * Walks the line once and remembers boundaries of its columns. Comma
+     * separates columns only when it is not enclosed in quotes, doubled
+     * (escaped) quotes simply toggle the state twice.
+     *
+     * @param csvLine line from csv file
+     * @return true if line has exactly the expected number of columns
+     */
+    boolean tokenize(String csvLine) {
+        line = csvLine;
+        columns = 0;
+        boolean inQuotes = false;
+        int start = 0;
+        int length = csvLine.length();
+        for (int i = 0; i < length; i++) {
+            char c = csvLine.charAt(i);
+            if (c == QUOTE) {
+                inQuotes = !inQuotes;
+            } else if (c == SEPARATOR && !inQuotes) {
+                if (!addColumn(start, i)) {
+                    return false;
+                }
+                start = i + 1;
+            }
+        }
+        return addColumn(start, length) && columns * 2 == bounds.length;
+    }
+
+    /**
+     * Stores boundaries of next column.
+     *
+     * @return false if line has more columns than expected
+     */
+    private boolean addColumn(int start, int end) {
+        if (columns * 2 == bounds.length) {
+            return false;
+        }
+        bounds[columns * 2] = start;
+        bounds[columns * 2 + 1] = end;
+        columns++;
+        return true;
+    }
+
+    @Override
+    public String column(int column) {
+        return line.substring(bounds[column * 2], bounds[column * 2 + 1]);
+    }
+
+    @Override
+    public List<String> values(int column) {
+        int start = bounds[column * 2];
+        int end = bounds[column * 2 + 1];
+        if (start == end) {
+            return List.of();
+        } else if (line.charAt(start) != QUOTE) {
+            return List.of(line.substring(start, end));
+        }
+
+        List<String> values = new ArrayList<>();
+        int nonEmptyValues = 0;
+        int valueStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || line.charAt(i) == SEPARATOR) {
+                String value = value(valueStart, i);
+                values.add(value);
+                // Same as String.split, trailing empty values are dropped
+                if (hasContent(valueStart, i)) {
+                    nonEmptyValues = values.size();
+                }
+                valueStart = i + 1;
+            }
+        }
+        if (values.size() == 1) {
+            return List.of(values.get(0));
+        }
+        return List.copyOf(values.subList(0, nonEmptyValues));
+    }
+
+    /**
+     * Check whether part of line contains anything except quotes.
+     */
+    private boolean hasContent(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (line.charAt(i) != QUOTE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates stripped value from part of line without any quotes.
+     */
+    private String value(int start, int end) {
+        int quotes = 0;
+        for (int i = start; i < end; i++) {
+            if (line.charAt(i) == QUOTE) {
+                quotes++;
+            }
+        }
+        if (quotes == 0) {
+            while (start < end && Character.isWhitespace(line.charAt(start))) {
+                start++;
+            }
+            while (end > start && Character.isWhitespace(line.charAt(end - 1))) {
+                end--;
+            }
+            return line.substring(start, end);
+        }
+
+        buffer.setLength(0);
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+            if (c != QUOTE) {
+                buffer.append(c);
+            }
+        }
+        return buffer.toString().strip();
+    }
+}
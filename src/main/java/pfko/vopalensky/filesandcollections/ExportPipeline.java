@@ -0,0 +1,262 @@
+package pfko.vopalensky.filesandcollections;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * Creates any number of output files from games in a single pass. Every
+ * registered export consists of an aggregate computed from games (a
+ * {@link Collector}) and a writer of its result. All aggregates are
+ * computed together while games are read once, afterwards results are
+ * finished and written into files concurrently.
+ */
+public final class ExportPipeline {
+    private static final String CSV_EXTENSION = ".csv";
+
+    private final List<Export<?>> exports = new ArrayList<>();
+
+    /**
+     * Writes result of an aggregate into output file.
+     *
+     * @param <R> type of result
+     */
+    @FunctionalInterface
+    public interface ResultWriter<R> {
+        /**
+         * Writes result into output file.
+         *
+         * @param result result of aggregate
+         * @throws IOException When there is a problem with creating or
+         *                     writing into file.
+         */
+        void write(R result) throws IOException;
+    }
+
+    /**
+     * Single registered export.
+     *
+     * @param aggregate collector computing result from games
+     * @param writer    writer of the result
+     * @param <R>       type of result
+     */
+    private record Export<R>(Collector<Game, Object, R> aggregate,
+                             ResultWriter<R> writer) {
+        void write(Object accumulated) throws IOException {
+            writer.write(aggregate.finisher().apply(accumulated));
+        }
+    }
+
+    /**
+     * Registers a custom export.
+     *
+     * @param aggregate collector computing result from games
+     * @param writer    writer of the result
+     * @param <R>       type of result
+     * @return reference to this pipeline
+     */
+    @SuppressWarnings("unchecked")
+    public <R> ExportPipeline add(Collector<Game, ?, R> aggregate,
+                                  ResultWriter<R> writer) {
+        exports.add(new Export<>((Collector<Game, Object, R>) aggregate,
+                writer));
+        return this;
+    }
+
+    /**
+     * Registers file with comma separated list of all genres.
+     *
+     * @param outputFilePath path to a file where genres should be written
+     * @return reference to this pipeline
+     */
+    public ExportPipeline genres(String outputFilePath) {
+        return add(GameCollectors.genres(),
+                genres -> GameExports.writeGenres(genres, outputFilePath));
+    }
+
+    /**
+     * Registers csv file of games of a genre with two columns - release,
+     * title.
+     *
+     * @param genre          Genre the games should be in
+     * @param outputFilePath path to a file where games should be written
+     * @return reference to this pipeline
+     */
+    public ExportPipeline gamesOfGenre(String genre, String outputFilePath) {
+        return add(GameCollectors.gamesByGenre(genre),
+                games -> GameExports.writeReleases(games, outputFilePath));
+    }
+
+    /**
+     * Registers csv file of simulator games with two columns - release,
+     * title.
+     *
+     * @param outputFilePath path to a file where simulators should be written
+     * @return reference to this pipeline
+     */
+    public ExportPipeline simulatorGames(String outputFilePath) {
+        return add(GameCollectors.simulatorGames(),
+                games -> GameExports.writeReleases(games, outputFilePath));
+    }
+
+    /**
+     * Registers csv file of publishers with two columns - publisher name,
+     * number of published games.
+     *
+     * @param outputFilePath path to a file where publishers should be written
+     * @return reference to this pipeline
+     */
+    public ExportPipeline publisherCounts(String outputFilePath) {
+        return add(GameCollectors.publisherCounts(),
+                counts -> GameExports.writePublisherCounts(
+                        counts, outputFilePath));
+    }
+
+    /**
+     * Registers one csv file for every genre with two columns - release,
+     * title. Files are named after genres, characters which are not letters
+     * or digits are replaced by underscore. When two genres get the same name
+     * (ignoring case), the later one in alphabetical order gets a numeric
+     * suffix, e.g. {@code Action_Adventure_2.csv}.
+     *
+     * @param directory directory where files should be created
+     * @return reference to this pipeline
+     */
+    public ExportPipeline gamesOfEveryGenre(Path directory) {
+        return add(GameCollectors.gamesOfEveryGenre(), gamesByGenre -> {
+            Files.createDirectories(directory);
+            Set<String> usedNames = new HashSet<>();
+            for (Map.Entry<String, List<Game>> genre
+                    : gamesByGenre.entrySet()) {
+                GameExports.writeReleases(genre.getValue(), directory.resolve(
+                        fileName(genre.getKey(), usedNames)).toString());
+            }
+        });
+    }
+
+    /**
+     * Creates safe name of file from name of genre which differs from all
+     * already used names. Names are compared ignoring case, so files do not
+     * overwrite each other on case-insensitive file systems either.
+     */
+    private static String fileName(String genre, Set<String> usedNames) {
+        String base = genre.replaceAll("[^\\p{L}\\p{N}]+", "_");
+        String name = base;
+        for (int suffix = 2;
+             !usedNames.add(name.toLowerCase(Locale.ROOT)); suffix++) {
+            name = base + "_" + suffix;
+        }
+        return name + CSV_EXTENSION;
+    }
+
+    /**
+     * Reads all games once, computes all registered aggregates and writes
+     * their results concurrently.
+     *
+     * @param games games to be exported, stream may be parallel
+     * @throws IOException When there is a problem with creating or writing
+     *                     into any of files.
+     */
+    public void run(Stream<Game> games) throws IOException {
+        Object[] accumulated = games.collect(Collector.of(
+                this::newAccumulators, this::accumulate, this::combine));
+        write(accumulated);
+    }
+
+    /**
+     * Reads all games once, computes all registered aggregates and writes
+     * their results concurrently.
+     *
+     * @param games games to be exported
+     * @throws IOException When there is a problem with creating or writing
+     *                     into any of files.
+     */
+    public void run(Iterable<Game> games) throws IOException {
+        Object[] accumulated = newAccumulators();
+        for (Game game : games) {
+            accumulate(accumulated, game);
+        }
+        write(accumulated);
+    }
+
+    /**
+     * Creates empty accumulator of every export.
+     */
+    private Object[] newAccumulators() {
+        Object[] accumulators = new Object[exports.size()];
+        for (int i = 0; i < accumulators.length; i++) {
+            accumulators[i] = exports.get(i).aggregate().supplier().get();
+        }
+        return accumulators;
+    }
+
+    /**
+     * Adds game into accumulators of all exports.
+     */
+    private void accumulate(Object[] accumulators, Game game) {
+        for (int i = 0; i < accumulators.length; i++) {
+            exports.get(i).aggregate().accumulator().accept(
+                    accumulators[i], game);
+        }
+    }
+
+    /**
+     * Merges accumulators of two parts of parallel stream.
+     */
+    private Object[] combine(Object[] left, Object[] right) {
+        for (int i = 0; i < left.length; i++) {
+            left[i] = exports.get(i).aggregate().combiner().apply(
+                    left[i], right[i]);
+        }
+        return left;
+    }
+
+    /**
+     * Finishes and writes all results, each one in its own task.
+     */
+    private void write(Object[] accumulated) throws IOException {
+        if (exports.isEmpty()) {
+            return;
+        }
+        int threads = Math.min(exports.size(),
+                Runtime.getRuntime().availableProcessors());
+        List<Future<Void>> writes = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int i = 0; i < accumulated.length; i++) {
+                Export<?> export = exports.get(i);
+                Object result = accumulated[i];
+                writes.add(executor.submit(() -> {
+                    export.write(result);
+                    return null;
+                }));
+            }
+            for (Future<Void> write : writes) {
+                write.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            } else if (e.getCause() instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+}
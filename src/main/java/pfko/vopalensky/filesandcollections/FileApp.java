@@ -1,57 +1,65 @@
 package pfko.vopalensky.filesandcollections;
 
 import pfko.vopalensky.filesandcollections.exceptions.EmptyFileException;
+import pfko.vopalensky.filesandcollections.exceptions.ErrorBudgetExceededException;
 import pfko.vopalensky.filesandcollections.exceptions.InvalidFileFormatException;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.PrintStream;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
+import java.util.SortedMap;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Class for loading data about games from input file and exporting queries
  * into output files.
+ * <p>
+ * App can be queried from many threads while games are being loaded. Every
+ * load publishes a new immutable version of catalog through a single atomic
+ * reference and every query reads that reference once, so it always works
+ * with one consistent version without any locking. Loads themselves run one
+ * at a time and never block queries.
  */
 public class FileApp {
-    private final List<Game> games = new ArrayList<>();
+    private GameCatalog.Builder builder;
+    private final AtomicReference<GameCatalog> catalog;
+    /**
+     * Reader of followed file, null when no file is followed
+     */
+    private TailReader followed;
+    /**
+     * Number of games loaded before following of file started
+     */
+    private int followedFrom;
     private static final PrintStream out = System.out;
 
-    // Found inspiration on StackOverflow
-    // Refactored (changed * to {0,4}) myself
-    // so SonarLint would stop screaming at me
-    //
-    // Explanatory notes for me
-    // ,            ... comma
-    // (?=...)      ... positive lookahead
-    // [^"]*        ... matches anything that is not double quotes
-    // "            ... double quote
-    // [^"]*        ... anything that is not double quotes again
-    // "            ... double quote
-    // {0,5}        ... everything is repeated 0...5 times
-    // [^"]*        ... anything that is not double quotes again
-    // $            ... end of line
-    //,(?=([^"]*"[^"]*"){0,5}[^"]*$)
-    private static final int REGEX_THRESHOLD = 5;
-    private static final String REGEX_FOR_COLUMN_SEPARATION =
-            ",(?=([^\"]*\"[^\"]*\"){0," + REGEX_THRESHOLD + "}[^\"]*$)";
-    private static final String DELIMITER = ",";
-    private static final String TBA_TAG = "TBA";
+    private static final String SIMULATOR_GENRE = "Simulator";
+    private static final String PROBLEM_ON_OPENING_INPUT_MESSAGE =
+            "Problem with opening file occurred";
     private static final String PROBLEM_ON_CREATING_OUTPUT_MESSAGE =
             "Problem appeared during creating file...";
-    private static final String GAME_COUNT = "game_count";
 
     /**
      * Stores information about csv files, position of columns
@@ -81,6 +89,25 @@ public class FileApp {
         }
     }
 
+    /**
+     * Creates empty app keeping titles of games on heap.
+     */
+    public FileApp() {
+        this(false);
+    }
+
+    /**
+     * Creates empty app.
+     *
+     * @param offHeapTitles true if titles of games should be stored as UTF-8
+     *                      bytes outside of heap, which lowers heap size and
+     *                      garbage collection time of large catalogs
+     *                      at the cost of decoding title on every access
+     */
+    public FileApp(boolean offHeapTitles) {
+        builder = new GameCatalog.Builder(offHeapTitles);
+        catalog = new AtomicReference<>(builder.build());
+    }
 
     /**
      * Loads data about games from provided file into the FileApp object.
@@ -92,97 +119,567 @@ public class FileApp {
      *                     emptiness.
      */
     public void load(String pathToFile) throws IOException {
-        parseInputFile(pathToFile);
+        load(pathToFile, 1);
     }
 
     /**
-     * Getter for attribute games.
+     * Loads data about games from provided file into the FileApp object.
+     * When more than one thread is requested, file is split into chunks
+     * which are parsed in parallel. Loaded games are always the same as
+     * when loading sequentially.
      *
-     * @return list of games stored in app
+     * @param pathToFile  Relative path in resources to file where data
+     *                    about games are stored.
+     * @param parallelism Number of threads parsing the file.
+     * @throws IOException Exception is thrown when there is a problem
+     *                     with input file such as nonexistence, invalid format,
+     *                     emptiness.
      */
-    public List<Game> getGames() {
-        return games;
+    public synchronized void load(String pathToFile, int parallelism)
+            throws IOException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(
+                    "Parallelism has to be positive");
+        }
+        followed = null;
+        int loaded = builder.size();
+        try {
+            parseInputFile(pathToFile, parallelism);
+        } catch (IOException e) {
+            builder.truncate(loaded);
+            throw e;
+        }
+        catalog.set(builder.build());
+    }
+
+    /**
+     * Loads data about games from file on disk into the FileApp object.
+     * File is memory mapped and parsed straight from its UTF-8 bytes.
+     *
+     * @param pathToFile Path to file where data about games are stored.
+     * @throws IOException Exception is thrown when there is a problem
+     *                     with input file such as nonexistence, invalid format,
+     *                     emptiness.
+     */
+    public void load(Path pathToFile) throws IOException {
+        load(pathToFile, 1);
+    }
+
+    /**
+     * Loads data about games from file on disk into the FileApp object.
+     * File is memory mapped and parsed straight from its UTF-8 bytes, when
+     * more than one thread is requested, chunks of file are parsed
+     * in parallel.
+     *
+     * @param pathToFile  Path to file where data about games are stored.
+     * @param parallelism Number of threads parsing the file.
+     * @throws IOException Exception is thrown when there is a problem
+     *                     with input file such as nonexistence, invalid format,
+     *                     emptiness.
+     */
+    public synchronized void load(Path pathToFile, int parallelism)
+            throws IOException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(
+                    "Parallelism has to be positive");
+        }
+        followed = null;
+        int loaded = builder.size();
+        try {
+            parseMappedFile(pathToFile, parallelism);
+        } catch (IOException e) {
+            builder.truncate(loaded);
+            throw e;
+        }
+        catalog.set(builder.build());
     }
 
     /**
-     * Check whether single column contains multiple information
+     * Loads data about games from file on disk without stopping on invalid
+     * lines. Invalid lines are skipped and written into quarantine file with
+     * their line numbers and reasons of rejection, one per line in format
+     * {@code <line number>\t<reason>\t<original line>}. Quarantine file is
+     * always created anew, so it stays empty when all lines are valid.
      *
-     * @param column Single column from input file
-     * @return List of all data inputs from this column.
+     * @param pathToFile       Path to file where data about games are stored.
+     * @param pathToQuarantine Path to file where invalid lines are written.
+     * @param errorBudget      Maximal number of invalid lines, when there are
+     *                         more of them no game is loaded.
+     * @return Statistics of the load such as number of loaded and rejected
+     * lines and throughput.
+     * @throws IOException Exception is thrown when there is a problem
+     *                     with input file such as nonexistence or emptiness,
+     *                     when quarantine file cannot be written and
+     *                     {@link ErrorBudgetExceededException} when there
+     *                     are more invalid lines than the budget allows.
+     */
+    public synchronized IngestReport loadLenient(Path pathToFile,
+                                                 Path pathToQuarantine,
+                                                 int errorBudget)
+            throws IOException {
+        if (errorBudget < 0) {
+            throw new IllegalArgumentException(
+                    "Error budget can not be negative");
+        }
+        followed = null;
+        int loaded = builder.size();
+        IngestReport report;
+        try (Arena arena = Arena.ofConfined();
+             FileChannel channel = FileChannel.open(pathToFile);
+             BufferedWriter quarantine = openQuarantine(pathToQuarantine)
+        ) {
+            MemorySegment content = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            report = new LenientCsvLoader(quarantine, errorBudget)
+                    .load(content, builder::add);
+        } catch (NoSuchFileException e) {
+            builder.truncate(loaded);
+            out.println(PROBLEM_ON_OPENING_INPUT_MESSAGE);
+            throw new FileNotFoundException(pathToFile.toString());
+        } catch (FileNotFoundException e) {
+            // Quarantine file, already reported
+            builder.truncate(loaded);
+            throw e;
+        } catch (IOException e) {
+            builder.truncate(loaded);
+            throw reportLoadFailure(e);
+        }
+        catalog.set(builder.build());
+        return report;
+    }
+
+    /**
+     * Creates quarantine file of lenient load.
+     *
+     * @param pathToQuarantine Path to file where invalid lines are written.
+     * @return writer of quarantine file
+     * @throws IOException When file cannot be created,
+     *                     {@link FileNotFoundException} with path to
+     *                     quarantine file when its directory does not exist
+     *                     or cannot be written.
+     */
+    private static BufferedWriter openQuarantine(Path pathToQuarantine)
+            throws IOException {
+        try {
+            return Files.newBufferedWriter(pathToQuarantine,
+                    StandardCharsets.UTF_8);
+        } catch (NoSuchFileException | AccessDeniedException e) {
+            out.println(PROBLEM_ON_CREATING_OUTPUT_MESSAGE);
+            throw new FileNotFoundException(pathToQuarantine.toString());
+        }
+    }
+
+    /**
+     * Loads data about games from file on disk and keeps following it.
+     * Games appended to the file later are loaded by {@link #refresh()},
+     * which reads only the newly appended lines, or automatically by
+     * {@link #watch()}. Only lines ended by a line terminator are loaded,
+     * a line which is still being written waits for the next refresh.
+     * Following stops when any other file is loaded.
+     *
+     * @param pathToFile Path to file where data about games are stored.
+     * @throws IOException Exception is thrown when there is a problem
+     *                     with input file such as nonexistence, invalid format,
+     *                     emptiness.
+     */
+    public synchronized void follow(Path pathToFile) throws IOException {
+        followed = null;
+        TailReader reader = new TailReader(pathToFile);
+        int loaded = builder.size();
+        appendFollowed(reader);
+        followedFrom = loaded;
+        followed = reader;
+    }
+
+    /**
+     * Loads games appended to the followed file since the last refresh.
+     * Time of refresh depends only on size of appended data. When the file
+     * got shorter, it was replaced, so its games are loaded again from
+     * the start.
+     *
+     * @return Number of newly loaded games.
+     * @throws IOException Exception is thrown when there is a problem
+     *                     with input file such as nonexistence or invalid
+     *                     format of appended lines. Invalid lines are
+     *                     skipped and not read again, games of valid lines
+     *                     appended with them are loaded anyway.
+     * @throws IllegalStateException When no file is followed.
+     */
+    public synchronized int refresh() throws IOException {
+        if (followed == null) {
+            throw new IllegalStateException("No file is followed");
+        }
+        try {
+            if (followed.truncated()) {
+                followed.rewind();
+                builder.truncate(followedFrom);
+            }
+        } catch (NoSuchFileException e) {
+            out.println(PROBLEM_ON_OPENING_INPUT_MESSAGE);
+            throw new FileNotFoundException(followed.file().toString());
+        }
+        int loaded = builder.size();
+        appendFollowed(followed);
+        return builder.size() - loaded;
+    }
+
+    /**
+     * Starts watching the followed file, so every change of the file is
+     * loaded by {@link #refresh()} automatically in a background thread.
+     *
+     * @return Watcher which has to be closed to stop watching.
+     * @throws IOException When file cannot be watched.
+     * @throws IllegalStateException When no file is followed.
+     */
+    public synchronized FileWatcher watch() throws IOException {
+        if (followed == null) {
+            throw new IllegalStateException("No file is followed");
+        }
+        return new FileWatcher(this, followed.file());
+    }
+
+    /**
+     * Appends games read from followed file. Catalog is rebuilt even when
+     * reading fails, because games of replaced file may have been removed.
+     * Skipped invalid lines are reported after valid ones are appended.
      */
-    private List<String> parseColumn(String column) {
-        if (column.isEmpty()) {
-            return new ArrayList<>();
-        } else if (column.charAt(0) == '"') {
-            return Stream.of(column
-                    .replace("\"", "")
-                    .split(DELIMITER)).map(String::strip).toList();
+    private void appendFollowed(TailReader reader) throws IOException {
+        try {
+            addAll(reader.read());
+            if (reader.rejected() > 0) {
+                out.println("Skipped " + reader.rejected()
+                        + " invalid lines of " + reader.file());
+                throw new InvalidFileFormatException();
+            }
+        } catch (NoSuchFileException e) {
+            out.println(PROBLEM_ON_OPENING_INPUT_MESSAGE);
+            throw new FileNotFoundException(reader.file().toString());
+        } catch (IOException e) {
+            throw reportLoadFailure(e);
+        } finally {
+            catalog.set(builder.build());
+        }
+    }
+
+    /**
+     * Loads games from binary snapshot written by {@link #saveSnapshot(Path)}.
+     * Snapshot is memory mapped and its columns and indexes are used as they
+     * are, without any csv parsing. When app already holds some games or
+     * keeps titles outside of heap, games from snapshot are appended after
+     * them.
+     *
+     * @param pathToFile Path to snapshot file.
+     * @throws IOException Exception is thrown when there is a problem
+     *                     with snapshot file such as nonexistence, emptiness,
+     *                     unsupported version or damaged content.
+     */
+    public synchronized void loadSnapshot(Path pathToFile)
+            throws IOException {
+        GameCatalog loaded;
+        try {
+            loaded = CatalogSnapshot.load(pathToFile);
+        } catch (NoSuchFileException e) {
+            out.println(PROBLEM_ON_OPENING_INPUT_MESSAGE);
+            throw new FileNotFoundException(pathToFile.toString());
+        } catch (IOException e) {
+            throw reportLoadFailure(e);
+        }
+        followed = null;
+        if (builder.size() == 0 && !builder.offHeap()) {
+            builder = new GameCatalog.Builder(loaded);
+            catalog.set(loaded);
         } else {
-            List<String> columnData = new ArrayList<>();
-            columnData.add(column);
-            return columnData;
+            addAll(loaded.games());
+            catalog.set(builder.build());
+        }
+    }
+
+    /**
+     * Writes all games stored in app into binary snapshot, which can be
+     * loaded by {@link #loadSnapshot(Path)} much faster than csv file.
+     *
+     * @param pathToFile Path to file where snapshot should be written.
+     * @throws IOException When there is a problem with creating or writing
+     *                     into file.
+     */
+    public void saveSnapshot(Path pathToFile) throws IOException {
+        try {
+            CatalogSnapshot.save(catalog.get(), pathToFile);
+        } catch (IOException e) {
+            out.println(PROBLEM_ON_CREATING_OUTPUT_MESSAGE);
+            throw e;
         }
     }
 
+    /**
+     * Returns all games stored in app. Games are stored column by column,
+     * so the records are created only when they are accessed.
+     *
+     * @return unmodifiable list of games stored in app in order of loading
+     */
+    public List<Game> getGames() {
+        return catalog.get().games();
+    }
+
     /**
      * Parses line from input csv file into Game.
      *
-     * @param csvLine input line from csv file.
+     * @param tokenizer tokenizer used for splitting line into columns
+     * @param csvLine   input line from csv file.
      * @return new Game object
      */
-    private Game parseLineToGame(String csvLine)
+    static Game parseLineToGame(CsvTokenizer tokenizer, String csvLine)
             throws InvalidFileFormatException {
-        String[] lineFragments =
-                csvLine.split(REGEX_FOR_COLUMN_SEPARATION);
+        if (!tokenizer.tokenize(csvLine)) {
+            throw new InvalidFileFormatException();
+        }
+        return toGame(tokenizer);
+    }
 
-        if (lineFragments.length != csvProperties.values().length) {
+    /**
+     * Parses line stored as bytes in memory into Game.
+     *
+     * @param tokenizer tokenizer used for splitting line into columns
+     * @param content   memory where the line is stored
+     * @param from      index of first byte of line
+     * @param to        index after last byte of line
+     * @return new Game object
+     */
+    static Game parseLineToGame(ByteCsvTokenizer tokenizer,
+                                MemorySegment content, long from, long to)
+            throws InvalidFileFormatException {
+        if (!tokenizer.tokenize(content, from, to)) {
             throw new InvalidFileFormatException();
         }
+        return toGame(tokenizer);
+    }
 
-        String title = lineFragments[csvProperties.TITLE.getValue()];
-        String released = lineFragments[csvProperties.RELEASED.getValue()];
+    /**
+     * Creates Game from columns of tokenized line.
+     *
+     * @param record columns of line
+     * @return new Game object
+     */
+    static Game toGame(CsvRecord record) {
+        String title = record.column(csvProperties.TITLE.getValue());
+        String released = record.column(csvProperties.RELEASED.getValue());
         List<String> developers =
-                parseColumn(lineFragments[csvProperties.DEVELOPERS.getValue()]);
+                record.values(csvProperties.DEVELOPERS.getValue());
         List<String> publishers =
-                parseColumn(lineFragments[csvProperties.PUBLISHERS.getValue()]);
+                record.values(csvProperties.PUBLISHERS.getValue());
         List<String> genres =
-                parseColumn(lineFragments[csvProperties.GENRES.getValue()]);
+                record.values(csvProperties.GENRES.getValue());
         return new Game(title, released, developers, publishers, genres);
     }
 
     /**
      * Goes through a file and transforms all lines into Game objects.
      *
-     * @param inputFile Path to a file in Resources from where to read.
+     * @param inputFile   Path to a file in Resources from where to read.
+     * @param parallelism Number of threads parsing the file.
      */
-    private void parseInputFile(String inputFile) throws IOException {
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(Objects.requireNonNull(
-                        this.getClass().getResourceAsStream(inputFile))))
+    private void parseInputFile(String inputFile, int parallelism)
+            throws IOException {
+        try (InputStream is = Objects.requireNonNull(
+                this.getClass().getResourceAsStream(inputFile))
         ) {
-            String line;
+            if (parallelism == 1) {
+                parseLines(new BufferedReader(new InputStreamReader(is)));
+            } else {
+                addAll(new ChunkedCsvLoader(parallelism,
+                        Charset.defaultCharset()).parse(
+                        MemorySegment.ofArray(is.readAllBytes())));
+            }
+        } catch (IOException e) {
+            throw reportLoadFailure(e);
+        } catch (NullPointerException e) {
+            out.println(PROBLEM_ON_OPENING_INPUT_MESSAGE);
+            throw new FileNotFoundException();
+        }
+    }
+
+    /**
+     * Maps a file from disk into memory and transforms all its lines
+     * into Game objects.
+     *
+     * @param inputFile   Path to a file on disk from where to read.
+     * @param parallelism Number of threads parsing the file.
+     */
+    private void parseMappedFile(Path inputFile, int parallelism)
+            throws IOException {
+        addAll(readMappedFile(inputFile, parallelism));
+    }
+
+    /**
+     * Maps a file from disk into memory and parses all its lines.
+     *
+     * @param inputFile   Path to a file on disk from where to read.
+     * @param parallelism Number of threads parsing the file.
+     * @return games in the same order as they are written in file
+     * @throws IOException When file does not exist, is empty or invalid,
+     *                     the reason is reported to user.
+     */
+    static List<Game> readMappedFile(Path inputFile, int parallelism)
+            throws IOException {
+        try (Arena arena = Arena.ofShared();
+             FileChannel channel = FileChannel.open(inputFile)
+        ) {
+            MemorySegment content = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            return new ChunkedCsvLoader(parallelism,
+                    StandardCharsets.UTF_8).parse(content);
+        } catch (NoSuchFileException e) {
+            out.println(PROBLEM_ON_OPENING_INPUT_MESSAGE);
+            throw new FileNotFoundException(inputFile.toString());
+        } catch (IOException e) {
+            throw reportLoadFailure(e);
+        }
+    }
+
+    /**
+     * Appends parsed games to the catalog being built.
+     *
+     * @param games games in order of loading
+     */
+    private void addAll(List<Game> games) {
+        for (Game game : games) {
+            builder.add(game);
+        }
+    }
+
+    /**
+     * Informs user about the reason why loading of file failed.
+     *
+     * @param e exception thrown during loading
+     * @return the same exception, so it can be rethrown
+     */
+    private static IOException reportLoadFailure(IOException e) {
+        if (e instanceof EmptyFileException) {
+            out.println("File is empty!");
+        } else if (e instanceof ErrorBudgetExceededException) {
+            out.println("Too many invalid lines!");
+        } else if (e instanceof InvalidFileFormatException) {
+            out.println("Invalid file format!");
+        } else {
+            out.println("IO exception during file handling");
+        }
+        return e;
+    }
+
+    /**
+     * Reads file line by line and transforms all lines into Game objects.
+     *
+     * @param br Reader of the input file.
+     */
+    private void parseLines(BufferedReader br) throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(csvProperties.values().length);
+        String line;
 
+        // Skip headers line
+        if ((line = br.readLine()) == null || line.isEmpty()) {
+            throw new EmptyFileException();
+        }
+        while ((line = br.readLine()) != null) {
+            if (!line.isEmpty()) {
+                builder.add(parseLineToGame(tokenizer, line));
+            }
+        }
+    }
+
+    /**
+     * Lazily parses games from provided file. Games are parsed one by one
+     * as the stream is consumed, so the file can be larger than available
+     * memory when the stream is reduced by {@link GameCollectors}. Stream
+     * has to be closed after use.
+     *
+     * @param pathToFile Relative path in resources to file where data
+     *                   about games are stored.
+     * @return sequential stream of games, invalid line is reported by
+     * {@link UncheckedIOException} wrapping
+     * {@link InvalidFileFormatException}
+     * @throws IOException Exception is thrown when file does not exist,
+     *                     cannot be read or is empty.
+     */
+    public static Stream<Game> stream(String pathToFile) throws IOException {
+        InputStream is = FileApp.class.getResourceAsStream(pathToFile);
+        if (is == null) {
+            out.println(PROBLEM_ON_OPENING_INPUT_MESSAGE);
+            throw new FileNotFoundException();
+        }
+        BufferedReader br = new BufferedReader(new InputStreamReader(is));
+        try {
+            String line = br.readLine();
             // Skip headers line
-            if ((line = br.readLine()) == null || line.isEmpty()) {
+            if (line == null || line.isEmpty()) {
                 throw new EmptyFileException();
             }
-            while ((line = br.readLine()) != null) {
-                if (!line.isEmpty()) {
-                    games.add(parseLineToGame(line));
+        } catch (IOException e) {
+            br.close();
+            throw reportLoadFailure(e);
+        }
+
+        CsvTokenizer tokenizer = new CsvTokenizer(csvProperties.values().length);
+        Spliterator<Game> games = new Spliterators.AbstractSpliterator<>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Game> action) {
+                try {
+                    String line;
+                    while ((line = br.readLine()) != null) {
+                        if (!line.isEmpty()) {
+                            action.accept(parseLineToGame(tokenizer, line));
+                            return true;
+                        }
+                    }
+                    return false;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
             }
-        } catch (EmptyFileException e) {
-            out.println("File is empty!");
-            throw e;
-        } catch (InvalidFileFormatException e) {
-            out.println("Invalid file format!");
-            throw e;
+        };
+        return StreamSupport.stream(games, false).onClose(() -> {
+            try {
+                br.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Lazily parses games from memory mapped file on disk. Games are parsed
+     * one by one as the stream is consumed and the stream can be split into
+     * parallel parts at line boundaries. Stream has to be closed after use,
+     * which unmaps the file.
+     *
+     * @param pathToFile Path to file where data about games are stored.
+     * @return sequential stream of games, invalid line is reported by
+     * {@link UncheckedIOException} wrapping
+     * {@link InvalidFileFormatException}
+     * @throws IOException Exception is thrown when file does not exist,
+     *                     cannot be read or is empty.
+     */
+    public static Stream<Game> stream(Path pathToFile) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(pathToFile)) {
+            MemorySegment content = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            long headersEnd = ChunkedCsvLoader.lineEnd(content, 0);
+            if (headersEnd == 0) {
+                throw new EmptyFileException();
+            }
+            long bodyStart = ChunkedCsvLoader.nextLine(content, headersEnd);
+            return StreamSupport.stream(new GameSpliterator(content,
+                            bodyStart, content.byteSize(),
+                            StandardCharsets.UTF_8), false)
+                    .onClose(arena::close);
+        } catch (NoSuchFileException e) {
+            arena.close();
+            out.println(PROBLEM_ON_OPENING_INPUT_MESSAGE);
+            throw new FileNotFoundException(pathToFile.toString());
         } catch (IOException e) {
-            out.println("IO exception during file handling");
-            throw e;
-        } catch (NullPointerException e) {
-            out.println("Problem with opening file occurred");
-            throw new FileNotFoundException();
+            arena.close();
+            throw reportLoadFailure(e);
         }
     }
 
@@ -192,13 +689,7 @@ public class FileApp {
      * @return List of unique genres from all games alphabetically ordered.
      */
     public List<String> getAllGenres() {
-        Set<String> genres = new HashSet<>();
-        for (Game game : games) {
-            genres.addAll(game.genres());
-        }
-        List<String> orderedList = new ArrayList<>(genres);
-        Collections.sort(orderedList);
-        return orderedList;
+        return GameCatalog.names(catalog.get().genres());
     }
 
     /**
@@ -207,7 +698,7 @@ public class FileApp {
      * @return List of simulator games ordered by release.
      */
     public List<Game> getSimulatorGames() {
-        return getGameByGenre("Simulator");
+        return getGameByGenre(SIMULATOR_GENRE);
     }
 
     /**
@@ -217,13 +708,81 @@ public class FileApp {
      * @return List of games with deemed genre ordered by release date.
      */
     public List<Game> getGameByGenre(String genre) {
-        return Stream.of(games.toArray(new Game[0]))
-                .filter(game -> game.genres().contains(genre))
-                .sorted(Comparator.comparingInt(
-                        a -> (Objects.equals(a.released(), TBA_TAG)
-                                ? Integer.MAX_VALUE
-                                : Integer.parseInt(a.released()))))
-                .toList();
+        return getGamesWithAllGenres(genre);
+    }
+
+    /**
+     * Get all games that are in every one of given genres.
+     *
+     * @param genres Genres the games should be in
+     * @return List of games with all deemed genres ordered by release date.
+     */
+    public List<Game> getGamesWithAllGenres(String... genres) {
+        GameCatalog current = catalog.get();
+        return current.gamesInReleaseOrder(current.genreIndex().all(
+                GameCatalog.find(current.genres(), genres)));
+    }
+
+    /**
+     * Get all games that are in at least one of given genres.
+     *
+     * @param genres Genres the games may be in
+     * @return List of games with any of deemed genres ordered by release date.
+     */
+    public List<Game> getGamesWithAnyGenre(String... genres) {
+        GameCatalog current = catalog.get();
+        return current.gamesInReleaseOrder(current.genreIndex().any(
+                GameCatalog.find(current.genres(), genres)));
+    }
+
+    /**
+     * Get all games released in given range of years. Games to be
+     * announced are never included.
+     *
+     * @param from First year of range, inclusive
+     * @param to   Last year of range, inclusive
+     * @return List of games ordered by release date.
+     */
+    public List<Game> getGamesReleasedBetween(int from, int to) {
+        GameCatalog current = catalog.get();
+        return current.gamesInReleaseOrder(current.releasedBetween(from, to));
+    }
+
+    /**
+     * Counts number of released games in each year.
+     *
+     * @return Map of year and number of games released in that year,
+     * ordered by year. Games to be announced are not counted.
+     */
+    public SortedMap<Integer, Integer> getReleaseCounts() {
+        return catalog.get().yearIndex().counts();
+    }
+
+    /**
+     * Counts number of released games of a concrete genre in each year.
+     *
+     * @param genre Genre the games should be in
+     * @return Map of year and number of games released in that year,
+     * ordered by year. Games to be announced are not counted.
+     */
+    public SortedMap<Integer, Integer> getReleaseCountsByGenre(String genre) {
+        GameCatalog current = catalog.get();
+        return current.yearIndex().counts(current.genreIndex().postings(
+                current.genres().find(genre)));
+    }
+
+    /**
+     * Counts number of released games of a concrete publisher in each year.
+     *
+     * @param publisher Publisher of the games
+     * @return Map of year and number of games released in that year,
+     * ordered by year. Games to be announced are not counted.
+     */
+    public SortedMap<Integer, Integer> getReleaseCountsByPublisher(
+            String publisher) {
+        GameCatalog current = catalog.get();
+        return current.yearIndex().counts(current.publisherIndex().postings(
+                current.publishers().find(publisher)));
     }
 
     /**
@@ -231,20 +790,204 @@ public class FileApp {
      * for each publisher.
      *
      * @return List of entries where key is name of publisher and value
-     * is number of published games. List is in descending order.
+     * is number of published games. List is in descending order,
+     * publishers with equal counts keep order of their first appearance.
      */
     public List<Map.Entry<String, Integer>> getPublisherCounts() {
-        Map<String, Integer> publisherCounts = new HashMap<>();
-        for (Game game : games) {
-            for (String publisher : game.publishers()) {
-                publisherCounts.merge(publisher, 1, Integer::sum);
-            }
+        return GameCatalog.counts(catalog.get().publishers());
+    }
+
+    /**
+     * Finds publishers with the highest number of games.
+     *
+     * @param k Maximal number of publishers
+     * @return List of at most k entries where key is name of publisher
+     * and value is number of games. List is in descending order, publishers
+     * with equal counts keep order of their first appearance.
+     */
+    public List<Map.Entry<String, Integer>> getTopPublishers(int k) {
+        checkTopSize(k);
+        return GameCatalog.top(catalog.get().publishers(), k);
+    }
+
+    /**
+     * Finds developers with the highest number of games.
+     *
+     * @param k Maximal number of developers
+     * @return List of at most k entries where key is name of developer
+     * and value is number of games. List is in descending order, developers
+     * with equal counts keep order of their first appearance.
+     */
+    public List<Map.Entry<String, Integer>> getTopDevelopers(int k) {
+        checkTopSize(k);
+        return GameCatalog.top(catalog.get().developers(), k);
+    }
+
+    /**
+     * Finds genres with the highest number of games.
+     *
+     * @param k Maximal number of genres
+     * @return List of at most k entries where key is name of genre
+     * and value is number of games. List is in descending order, genres
+     * with equal counts keep order of their first appearance.
+     */
+    public List<Map.Entry<String, Integer>> getTopGenres(int k) {
+        checkTopSize(k);
+        return GameCatalog.top(catalog.get().genres(), k);
+    }
+
+    /**
+     * Validates number of items requested from top queries.
+     */
+    private static void checkTopSize(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException(
+                    "Number of items can not be negative");
         }
+    }
+
+    /**
+     * Finds games whose title starts with given text, case of letters
+     * does not matter. Suitable for autocomplete of titles.
+     *
+     * @param prefix Beginning of title.
+     * @param limit  Maximal number of games.
+     * @return List of at most limit games ordered by title.
+     */
+    public List<Game> getGamesByTitlePrefix(String prefix, int limit) {
+        checkTopSize(limit);
+        GameCatalog current = catalog.get();
+        return current.games(current.titleIndex().prefix(prefix, limit));
+    }
+
+    /**
+     * Finds games whose title contains given text, case of letters
+     * does not matter.
+     *
+     * @param text Text the title should contain.
+     * @return List of games in order of loading.
+     */
+    public List<Game> getGamesByTitleContaining(String text) {
+        GameCatalog current = catalog.get();
+        return current.games(current.titleIndex().containing(text));
+    }
+
+    /**
+     * Finds games whose title is similar to given text, so titles with
+     * typos or words in different order are found as well.
+     *
+     * @param text  Approximate title.
+     * @param limit Maximal number of games.
+     * @return List of at most limit games, the most similar first.
+     */
+    public List<Game> getGamesWithSimilarTitle(String text, int limit) {
+        checkTopSize(limit);
+        GameCatalog current = catalog.get();
+        return current.games(current.titleIndex().similar(text, limit));
+    }
+
+    /**
+     * Counts how many games have each pair of values of two fields, for
+     * example how many games every developer made with every publisher.
+     * Games are counted in parallel.
+     *
+     * @param rows    Field whose values are rows of matrix.
+     * @param columns Field whose values are columns of matrix.
+     * @return Sparse matrix holding only pairs which occur in some game.
+     * @throws IllegalArgumentException When year is used, it is a single
+     *                                  value and not a list of values.
+     */
+    public CoOccurrence getCoOccurrence(GameQuery.Field rows,
+                                        GameQuery.Field columns) {
+        GameCatalog current = catalog.get();
+        return CoOccurrence.compute(current.column(rows),
+                current.column(columns), current.size());
+    }
+
+    /**
+     * Estimates number of distinct values of field, see {@link HyperLogLog}
+     * for bounds of error.
+     *
+     * @param field Field whose values are counted.
+     * @return Estimated number of distinct values among all games.
+     */
+    public long getDistinctCount(GameQuery.Field field) {
+        return getDistinctSketch(field).estimate();
+    }
+
+    /**
+     * Creates sketch of distinct values of field, which can be merged with
+     * sketches of other apps or of streamed games, see
+     * {@link GameCollectors#distinct(GameQuery.Field, int)}.
+     *
+     * @param field Field whose values are counted.
+     * @return Sketch with {@link HyperLogLog#DEFAULT_PRECISION}.
+     */
+    public HyperLogLog getDistinctSketch(GameQuery.Field field) {
+        return CatalogSketches.sketch(catalog.get(), field);
+    }
+
+    /**
+     * Creates sketch of distinct values of field for games of every genre,
+     * for example of developers who made a game of the genre.
+     *
+     * @param field Field whose values are counted.
+     * @return Map of genre and sketch of values of its games, genres are
+     * ordered alphabetically.
+     */
+    public SortedMap<String, HyperLogLog> getDistinctSketchesByGenre(
+            GameQuery.Field field) {
+        return CatalogSketches.sketchesByGenre(catalog.get(), field);
+    }
 
-        List<Map.Entry<String, Integer>> list =
-                new ArrayList<>(publisherCounts.entrySet());
-        list.sort(Comparator.comparingInt(Map.Entry::getValue));
-        return list.reversed();
+    /**
+     * Finds games matching query. Query is compiled into a plan using
+     * indexes of catalog, so no new method is needed for a new question.
+     *
+     * @param query Predicates, order and limit of games.
+     * @return List of matching games in order requested by query.
+     */
+    public List<Game> query(GameQuery query) {
+        GameCatalog current = catalog.get();
+        return current.games(new QueryPlan(current, query).execute());
+    }
+
+    /**
+     * Counts games matching query without creating them.
+     *
+     * @param query Predicates and limit of games.
+     * @return Number of games {@link #query(GameQuery)} would return.
+     */
+    public int count(GameQuery query) {
+        return new QueryPlan(catalog.get(), query).count();
+    }
+
+    /**
+     * Counts games matching query for every value of a field, such as
+     * number of games of every publisher in a genre.
+     *
+     * @param query Predicates of games and limit of groups.
+     * @param field Field games are grouped by, games with more values
+     *              of field are counted for each of them.
+     * @return List of entries where key is value of field and value is
+     * number of games. List is in descending order, values with equal
+     * counts keep order of their first appearance.
+     */
+    public List<Map.Entry<String, Integer>> countBy(GameQuery query,
+                                                    GameQuery.Field field) {
+        return new QueryPlan(catalog.get(), query).countBy(field);
+    }
+
+    /**
+     * Describes how query would be executed, which index is used and
+     * which predicates are checked game by game.
+     *
+     * @param query Query to be described.
+     * @return Steps of plan, for example
+     * {@code genre index -> filter developer -> sort by title}.
+     */
+    public String explain(GameQuery query) {
+        return new QueryPlan(catalog.get(), query).toString();
     }
 
     /**
@@ -255,18 +998,7 @@ public class FileApp {
      *                     into new file.
      */
     public void createGenreFile(String outputFilePath) throws IOException {
-        try (BufferedWriter bw
-                     = new BufferedWriter(new FileWriter(outputFilePath))) {
-            String delimiter = "";
-            for (String genre : getAllGenres()) {
-                bw.write(delimiter);
-                bw.write(genre);
-                delimiter = DELIMITER;
-            }
-        } catch (IOException e) {
-            out.println(PROBLEM_ON_CREATING_OUTPUT_MESSAGE);
-            throw e;
-        }
+        GameExports.writeGenres(getAllGenres(), outputFilePath);
     }
 
     /**
@@ -277,24 +1009,7 @@ public class FileApp {
      *                     into new file.
      */
     public void createSimulatorFile(String outputFilePath) throws IOException {
-        try (BufferedWriter bw
-                     = new BufferedWriter(new FileWriter(outputFilePath))) {
-            bw.write(csvProperties.RELEASED.getHeader());
-            bw.write(DELIMITER);
-            bw.write(csvProperties.TITLE.getHeader());
-            bw.newLine();
-
-            for (Game game : getSimulatorGames()) {
-                bw.write(game.released());
-                bw.write(DELIMITER);
-                bw.write(game.title());
-                bw.newLine();
-            }
-
-        } catch (IOException e) {
-            out.println(PROBLEM_ON_CREATING_OUTPUT_MESSAGE);
-            throw e;
-        }
+        GameExports.writeReleases(getSimulatorGames(), outputFilePath);
     }
 
     /**
@@ -306,23 +1021,18 @@ public class FileApp {
      *                     into new file.
      */
     public void createPublishersFile(String outputFilePath) throws IOException {
-        try (BufferedWriter bw
-                     = new BufferedWriter(new FileWriter(outputFilePath))) {
-            bw.write(csvProperties.PUBLISHERS.getHeader());
-            bw.write(DELIMITER);
-            bw.write(GAME_COUNT);
-            bw.newLine();
-            for (Map.Entry<String, Integer> publisher : getPublisherCounts()) {
-                bw.write(publisher.getKey());
-                bw.write(DELIMITER);
-                bw.write(publisher.getValue().toString());
-                bw.newLine();
-            }
+        GameExports.writePublisherCounts(getPublisherCounts(), outputFilePath);
+    }
 
-        } catch (IOException e) {
-            out.println(PROBLEM_ON_CREATING_OUTPUT_MESSAGE);
-            throw e;
-        }
+    /**
+     * Creates all files registered in pipeline. Games of app are read only
+     * once for all of them and files are written concurrently.
+     *
+     * @param pipeline pipeline with registered output files
+     * @throws IOException When there is a problem with creating or writing
+     *                     into any of files.
+     */
+    public void export(ExportPipeline pipeline) throws IOException {
+        pipeline.run(catalog.get().games().parallelStream());
     }
 }
-
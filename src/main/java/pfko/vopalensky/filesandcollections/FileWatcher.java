@@ -0,0 +1,85 @@
+package pfko.vopalensky.filesandcollections;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * Watches file followed by {@link FileApp} and refreshes the app whenever
+ * the file changes, see {@link FileApp#follow(Path)}. Watching runs in its
+ * own daemon thread until the watcher is closed or the app stops following
+ * the file.
+ */
+public final class FileWatcher implements Closeable {
+    private final WatchService watchService;
+    private final Thread thread;
+
+    /**
+     * Starts watching directory of file.
+     *
+     * @param app  app to be refreshed
+     * @param file followed file
+     * @throws IOException When directory cannot be watched.
+     */
+    FileWatcher(FileApp app, Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        thread = new Thread(() -> watch(app, file.getFileName()),
+                "games-file-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Waits for changes of file and refreshes app after each of them.
+     * Failed refresh and skipped invalid lines are already reported by the
+     * app on its output, failed refresh is tried again after next change.
+     */
+    private void watch(FileApp app, Path fileName) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || fileName.equals(event.context());
+                }
+                if (changed) {
+                    try {
+                        app.refresh();
+                    } catch (IOException e) {
+                        // Reported by app, invalid lines were skipped and
+                        // other failures are tried again on next change
+                    }
+                }
+                if (!key.reset()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException | IllegalStateException e) {
+            // Watcher was closed (ClosedWatchServiceException) or app does
+            // not follow the file anymore
+        }
+    }
+
+    /**
+     * Stops watching and waits for the watching thread to finish.
+     *
+     * @throws IOException When watch service cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,772 @@
+package pfko.vopalensky.filesandcollections;
+
+import pfko.vopalensky.filesandcollections.exceptions.InvalidFileFormatException;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Column oriented storage of loaded games. Instead of a list of
+ * {@link Game} records, every attribute is stored in its own array indexed
+ * by id of game (order in which the games were loaded). Developers,
+ * publishers and genres are dictionary encoded, so each distinct name
+ * is stored only once, and release is stored as a plain number. Titles
+ * are kept on heap or outside of it, see {@link TitleColumn}.
+ * <p>
+ * {@link Game} records are created only when they are requested. Instances
+ * are immutable, they are created by {@link Builder}.
+ */
+final class GameCatalog {
+    /**
+     * Year used for games which are to be announced, so they are ordered
+     * after all released games
+     */
+    static final int TBA = Integer.MAX_VALUE;
+    /**
+     * Year used for games whose release is neither a year nor
+     * {@link #TBA_TAG}, original text is kept aside
+     */
+    static final int UNKNOWN = TBA - 1;
+    static final String TBA_TAG = "TBA";
+
+    private final int size;
+    private final TitleColumn titles;
+    private final int[] years;
+    private final UnknownReleases unknownReleases;
+    private final ValueColumn developers;
+    private final ValueColumn publishers;
+    private final ValueColumn genres;
+    /**
+     * Indexes are built on first use, so a catalog which is rebuilt after
+     * every small addition does not pay for indexing all games each time
+     */
+    private volatile Indexes indexes;
+    /**
+     * Index of titles is built on first search by title, separately from
+     * other indexes which do not need it
+     */
+    private volatile TitleIndex titleIndex;
+    /**
+     * Order of titles, built on first ordering by title
+     */
+    private volatile TitleOrder titleOrder;
+    /**
+     * Indexes of the first games built by a previous version of catalog,
+     * they are extended by added games instead of indexing all games
+     * again. Each is dropped once the index of this catalog is built.
+     */
+    private volatile Indexes baseIndexes;
+    private volatile TitleIndex baseTitleIndex;
+    private volatile TitleOrder baseTitleOrder;
+
+    /**
+     * All indexes of catalog. Postings are positions in order of release
+     * given by index of years.
+     *
+     * @param years      index of years of release
+     * @param genres     inverted index of genres
+     * @param publishers inverted index of publishers
+     */
+    private record Indexes(YearIndex years, PostingsIndex genres,
+                           PostingsIndex publishers) {
+    }
+
+    /**
+     * Original text of releases which are neither a year nor
+     * {@link #TBA_TAG}. Arrays are shared with builder, which only appends
+     * to them, so only the first {@code count} items belong to catalog.
+     *
+     * @param ids   ascending ids of games
+     * @param texts release of every game in ids
+     * @param count number of games with such release
+     */
+    private record UnknownReleases(int[] ids, String[] texts, int count) {
+        /**
+         * Finds release of game.
+         *
+         * @param id id of game
+         * @return release as written in csv file
+         */
+        String get(int id) {
+            return texts[Arrays.binarySearch(ids, 0, count, id)];
+        }
+    }
+
+    private GameCatalog(int size, TitleColumn titles, int[] years,
+                        UnknownReleases unknownReleases,
+                        ValueColumn developers, ValueColumn publishers,
+                        ValueColumn genres, Indexes indexes,
+                        GameCatalog previous) {
+        this.size = size;
+        this.titles = titles;
+        this.years = years;
+        this.unknownReleases = unknownReleases;
+        this.developers = developers;
+        this.publishers = publishers;
+        this.genres = genres;
+        this.indexes = indexes;
+        if (previous != null) {
+            Indexes previousIndexes = previous.indexes;
+            TitleIndex previousTitleIndex = previous.titleIndex;
+            TitleOrder previousTitleOrder = previous.titleOrder;
+            baseIndexes = previousIndexes != null
+                    ? previousIndexes : previous.baseIndexes;
+            baseTitleIndex = previousTitleIndex != null
+                    ? previousTitleIndex : previous.baseTitleIndex;
+            baseTitleOrder = previousTitleOrder != null
+                    ? previousTitleOrder : previous.baseTitleOrder;
+        }
+    }
+
+    /**
+     * Returns indexes of catalog, builds them when they are used for the
+     * first time. Indexes of a previous version are extended only by games
+     * added since then. Catalog is immutable, so when more threads build
+     * them at once they all get equal indexes and any of them may be kept.
+     */
+    private Indexes indexes() {
+        Indexes built = indexes;
+        if (built == null) {
+            Indexes base = baseIndexes;
+            if (base == null) {
+                YearIndex yearIndex = YearIndex.build(years, size);
+                built = new Indexes(yearIndex,
+                        PostingsIndex.build(genres, yearIndex.order()),
+                        PostingsIndex.build(publishers, yearIndex.order()));
+            } else {
+                int from = base.years().order().length;
+                YearIndex yearIndex = base.years().extend(years, size);
+                built = new Indexes(yearIndex,
+                        base.genres().extend(genres, yearIndex.order(), from),
+                        base.publishers().extend(publishers,
+                                yearIndex.order(), from));
+            }
+            indexes = built;
+            baseIndexes = null;
+        }
+        return built;
+    }
+
+    /**
+     * Writes columns and indexes of catalog into snapshot.
+     *
+     * @param writer writer of snapshot
+     * @throws IOException When writing into file fails.
+     */
+    void write(SnapshotWriter writer) throws IOException {
+        writer.writeStrings(titles.strings(size), size);
+        writer.writeInts(years, size);
+        writer.writeInt(unknownReleases.count());
+        for (int i = 0; i < unknownReleases.count(); i++) {
+            writer.writeInt(unknownReleases.ids()[i]);
+            writer.writeString(unknownReleases.texts()[i]);
+        }
+        developers.write(writer, size);
+        publishers.write(writer, size);
+        genres.write(writer, size);
+        Indexes built = indexes();
+        built.years().write(writer);
+        built.genres().write(writer);
+        built.publishers().write(writer);
+    }
+
+    /**
+     * Reads catalog from snapshot, indexes are read as they were written
+     * instead of being built again.
+     *
+     * @param reader reader of snapshot
+     * @return new catalog
+     * @throws InvalidFileFormatException When snapshot is damaged.
+     */
+    static GameCatalog read(SnapshotReader reader)
+            throws InvalidFileFormatException {
+        String[] titles = reader.readStrings();
+        int size = titles.length;
+        int[] years = reader.readInts();
+        if (years.length != size) {
+            throw new InvalidFileFormatException();
+        }
+        int unknownCount = reader.readInt();
+        if (unknownCount < 0 || unknownCount > size) {
+            throw new InvalidFileFormatException();
+        }
+        // Id (upper half) and index in snapshot (lower half), releases
+        // are not required to be written in order of ids
+        long[] unknownKeys = new long[unknownCount];
+        String[] written = new String[unknownCount];
+        for (int i = 0; i < unknownCount; i++) {
+            int id = reader.readInt();
+            if (id < 0 || id >= size) {
+                throw new InvalidFileFormatException();
+            }
+            unknownKeys[i] = ((long) id << Integer.SIZE) | i;
+            written[i] = reader.readString();
+        }
+        Arrays.sort(unknownKeys);
+        int[] unknownIds = new int[unknownCount];
+        String[] unknownTexts = new String[unknownCount];
+        for (int i = 0; i < unknownCount; i++) {
+            unknownIds[i] = (int) (unknownKeys[i] >>> Integer.SIZE);
+            unknownTexts[i] = written[(int) unknownKeys[i]];
+        }
+        ValueColumn developers = ValueColumn.read(reader, size);
+        ValueColumn publishers = ValueColumn.read(reader, size);
+        ValueColumn genres = ValueColumn.read(reader, size);
+        YearIndex yearIndex = YearIndex.read(reader, size);
+        return new GameCatalog(size, new TitleColumn.Heap(titles), years,
+                new UnknownReleases(unknownIds, unknownTexts, unknownCount),
+                developers, publishers, genres,
+                new Indexes(yearIndex, PostingsIndex.read(reader, genres),
+                        PostingsIndex.read(reader, publishers)), null);
+    }
+
+    /**
+     * Converts release of game into a number.
+     *
+     * @param released release as written in csv file
+     * @return year of release, {@link #TBA} for games to be announced
+     * or {@link #UNKNOWN} when release is neither a year nor {@link #TBA_TAG}
+     */
+    static int parseYear(String released) {
+        if (TBA_TAG.equals(released)) {
+            return TBA;
+        }
+        int length = released.length();
+        if (length == 0 || length > 9
+                || (released.charAt(0) == '0' && length > 1)) {
+            return UNKNOWN;
+        }
+        int year = 0;
+        for (int i = 0; i < length; i++) {
+            char c = released.charAt(i);
+            if (c < '0' || c > '9') {
+                return UNKNOWN;
+            }
+            year = year * 10 + (c - '0');
+        }
+        return year;
+    }
+
+    /**
+     * Converts stored year back into release as written in csv file.
+     *
+     * @param id id of game
+     * @return textual release
+     */
+    String released(int id) {
+        return switch (years[id]) {
+            case TBA -> TBA_TAG;
+            case UNKNOWN -> unknownReleases.get(id);
+            default -> Integer.toString(years[id]);
+        };
+    }
+
+    /**
+     * Returns number of games in catalog.
+     *
+     * @return count of games
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Creates record of a single game.
+     *
+     * @param id id of game
+     * @return new Game object
+     */
+    Game game(int id) {
+        return new Game(titles.title(id), released(id),
+                developers.names(id), publishers.names(id), genres.names(id));
+    }
+
+    /**
+     * Returns list view of all games. Games are created whenever they
+     * are accessed.
+     *
+     * @return unmodifiable list of games in order of loading
+     */
+    List<Game> games() {
+        return new GameList(this);
+    }
+
+    /**
+     * Creates games of given ids.
+     *
+     * @param ids ids of games
+     * @return unmodifiable list of games in order of ids
+     */
+    List<Game> games(int[] ids) {
+        Game[] games = new Game[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            games[i] = game(ids[i]);
+        }
+        return List.of(games);
+    }
+
+    /**
+     * Creates games at given positions of release order, which are
+     * the positions stored in postings of indexes.
+     *
+     * @param positions positions of games in release order
+     * @return unmodifiable list of games
+     */
+    List<Game> gamesInReleaseOrder(int[] positions) {
+        int[] releaseOrder = indexes().years().order();
+        Game[] games = new Game[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            games[i] = game(releaseOrder[positions[i]]);
+        }
+        return List.of(games);
+    }
+
+    /**
+     * Returns year of release of game.
+     *
+     * @param id id of game
+     * @return year, {@link #TBA} or {@link #UNKNOWN}
+     */
+    int year(int id) {
+        return years[id];
+    }
+
+    /**
+     * Returns title of game.
+     *
+     * @param id id of game
+     * @return title as written in csv file
+     */
+    String title(int id) {
+        return titles.title(id);
+    }
+
+    /**
+     * Getter for titles of all games.
+     *
+     * @return column of titles
+     */
+    TitleColumn titles() {
+        return titles;
+    }
+
+    /**
+     * Getter for column of developers.
+     *
+     * @return developers of all games
+     */
+    ValueColumn developers() {
+        return developers;
+    }
+
+    /**
+     * Getter for column of publishers.
+     *
+     * @return publishers of all games
+     */
+    ValueColumn publishers() {
+        return publishers;
+    }
+
+    /**
+     * Getter for column of genres.
+     *
+     * @return genres of all games
+     */
+    ValueColumn genres() {
+        return genres;
+    }
+
+    /**
+     * Returns column holding values of field.
+     *
+     * @param field field of games
+     * @return column of values
+     * @throws IllegalArgumentException When year is requested, it is a single
+     *                                  number and not a column of values.
+     */
+    ValueColumn column(GameQuery.Field field) {
+        return switch (field) {
+            case GENRE -> genres;
+            case DEVELOPER -> developers;
+            case PUBLISHER -> publishers;
+            case YEAR -> throw new IllegalArgumentException(
+                    "Year is not a column of values");
+        };
+    }
+
+    /**
+     * Returns positions of games released in given range of years.
+     *
+     * @param from first year of range
+     * @param to   last year of range
+     * @return ascending positions in release order
+     */
+    int[] releasedBetween(int from, int to) {
+        YearIndex yearIndex = yearIndex();
+        int start = yearIndex.from(from);
+        int end = Math.max(start, yearIndex.to(to));
+        int[] positions = new int[end - start];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = start + i;
+        }
+        return positions;
+    }
+
+    /**
+     * Getter for index of years of release.
+     *
+     * @return index of years
+     */
+    YearIndex yearIndex() {
+        return indexes().years();
+    }
+
+    /**
+     * Getter for inverted index of genres.
+     *
+     * @return index whose postings are positions in release order
+     */
+    PostingsIndex genreIndex() {
+        return indexes().genres();
+    }
+
+    /**
+     * Returns index of titles, builds it when it is used for the first
+     * time the same way as other indexes.
+     *
+     * @return index for searching by title
+     */
+    TitleIndex titleIndex() {
+        TitleIndex built = titleIndex;
+        if (built == null) {
+            TitleIndex base = baseTitleIndex;
+            built = base == null
+                    ? TitleIndex.build(titles, size)
+                    : base.extend(titles, size);
+            titleIndex = built;
+            baseTitleIndex = null;
+        }
+        return built;
+    }
+
+    /**
+     * Returns position of every game in order of titles, see
+     * {@link TitleOrder}, builds the order when it is used for the first
+     * time the same way as other indexes.
+     *
+     * @return positions indexed by id of game
+     */
+    int[] titleRanks() {
+        TitleOrder built = titleOrder;
+        if (built == null) {
+            TitleOrder base = baseTitleOrder;
+            built = base == null
+                    ? TitleOrder.build(titles, size)
+                    : base.extend(titles, size);
+            titleOrder = built;
+            baseTitleOrder = null;
+        }
+        return built.ranks();
+    }
+
+    /**
+     * Getter for inverted index of publishers.
+     *
+     * @return index whose postings are positions in release order
+     */
+    PostingsIndex publisherIndex() {
+        return indexes().publishers();
+    }
+
+    /**
+     * Returns names of all values of a column that are used by some game.
+     *
+     * @param column column whose values should be returned
+     * @return alphabetically ordered names
+     */
+    static List<String> names(ValueColumn column) {
+        List<String> names = new ArrayList<>();
+        for (int id = 0; id < column.distinct(); id++) {
+            if (column.count(id) > 0) {
+                names.add(column.name(id));
+            }
+        }
+        names.sort(Comparator.naturalOrder());
+        return names;
+    }
+
+    /**
+     * Translates names of values into their ids.
+     *
+     * @param column column the values belong to
+     * @param names  string values
+     * @return dictionary ids, {@link StringDictionary#MISSING} for values
+     * no game has
+     */
+    static int[] find(ValueColumn column, String... names) {
+        int[] ids = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            ids[i] = column.find(names[i]);
+        }
+        return ids;
+    }
+
+    /**
+     * Counts number of games for every value of a column.
+     *
+     * @param column column whose values should be counted
+     * @return entries of name and number of games in descending order,
+     * values with equal counts keep order of their first appearance
+     */
+    static List<Map.Entry<String, Integer>> counts(ValueColumn column) {
+        List<Map.Entry<String, Integer>> counts = new ArrayList<>();
+        for (int id = 0; id < column.distinct(); id++) {
+            if (column.count(id) > 0) {
+                counts.add(Map.entry(column.name(id), column.count(id)));
+            }
+        }
+        counts.sort(Comparator.comparingInt(
+                (Map.Entry<String, Integer> entry) -> entry.getValue())
+                .reversed());
+        return counts;
+    }
+
+    /**
+     * Finds values of a column with the highest number of games.
+     *
+     * @param column column whose values should be counted
+     * @param k      maximal number of values
+     * @return at most k entries of name and number of games in descending
+     * order, values with equal counts keep order of their first appearance
+     */
+    static List<Map.Entry<String, Integer>> top(ValueColumn column, int k) {
+        int[] ids = TopK.select(column, k);
+        List<Map.Entry<String, Integer>> top = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            top.add(Map.entry(column.name(id), column.count(id)));
+        }
+        return top;
+    }
+
+    /**
+     * Unmodifiable list view creating games on access.
+     */
+    private static final class GameList extends AbstractList<Game>
+            implements RandomAccess {
+        private final GameCatalog catalog;
+
+        private GameList(GameCatalog catalog) {
+            this.catalog = catalog;
+        }
+
+        @Override
+        public Game get(int index) {
+            return catalog.game(Objects.checkIndex(index, size()));
+        }
+
+        @Override
+        public int size() {
+            return catalog.size;
+        }
+    }
+
+    /**
+     * Creates {@link GameCatalog} by appending games one by one. All arrays
+     * are only appended to, so catalogs which were already built and share
+     * the arrays are not affected by later additions.
+     */
+    static final class Builder {
+        private static final int INITIAL_CAPACITY = 16;
+
+        /**
+         * Titles on heap, null when titles are stored outside of heap
+         */
+        private String[] titles;
+        private OffHeapTitles.Builder offHeapTitles;
+        private int[] years;
+        /**
+         * Games whose release is kept as text, see {@link UnknownReleases}
+         */
+        private int[] unknownIds;
+        private String[] unknownTexts;
+        private int unknownCount;
+        private final ValueColumn.Builder developers;
+        private final ValueColumn.Builder publishers;
+        private final ValueColumn.Builder genres;
+        private int size;
+        /**
+         * Number of games visible in already built catalogs
+         */
+        private int published;
+        /**
+         * The last built catalog, whose indexes are extended by catalogs
+         * built later, null when games were removed since
+         */
+        private GameCatalog previous;
+
+        /**
+         * Creates builder of empty catalog with titles on heap.
+         */
+        Builder() {
+            this(false);
+        }
+
+        /**
+         * Creates builder of empty catalog.
+         *
+         * @param offHeap true if titles should be stored outside of heap
+         */
+        Builder(boolean offHeap) {
+            if (offHeap) {
+                offHeapTitles = new OffHeapTitles.Builder();
+            } else {
+                titles = new String[INITIAL_CAPACITY];
+            }
+            years = new int[INITIAL_CAPACITY];
+            unknownIds = new int[INITIAL_CAPACITY];
+            unknownTexts = new String[INITIAL_CAPACITY];
+            developers = new ValueColumn.Builder();
+            publishers = new ValueColumn.Builder();
+            genres = new ValueColumn.Builder();
+        }
+
+        /**
+         * Creates builder which continues after all games of catalog.
+         * Arrays of catalog are shared, they are copied on first growth.
+         * Titles stay where the catalog keeps them.
+         *
+         * @param catalog catalog to be continued
+         */
+        Builder(GameCatalog catalog) {
+            if (catalog.titles instanceof OffHeapTitles off) {
+                offHeapTitles = new OffHeapTitles.Builder(off, catalog.size);
+            } else {
+                titles = catalog.titles.strings(catalog.size);
+            }
+            years = catalog.years;
+            unknownIds = catalog.unknownReleases.ids();
+            unknownTexts = catalog.unknownReleases.texts();
+            unknownCount = catalog.unknownReleases.count();
+            developers = new ValueColumn.Builder(catalog.developers,
+                    catalog.size);
+            publishers = new ValueColumn.Builder(catalog.publishers,
+                    catalog.size);
+            genres = new ValueColumn.Builder(catalog.genres, catalog.size);
+            size = catalog.size;
+            published = catalog.size;
+            previous = catalog;
+        }
+
+        /**
+         * Appends game at the end of catalog.
+         *
+         * @param game game to be added
+         */
+        void add(Game game) {
+            if (size == years.length) {
+                int capacity = Math.max(size * 2, INITIAL_CAPACITY);
+                if (titles != null) {
+                    titles = Arrays.copyOf(titles, capacity);
+                }
+                years = Arrays.copyOf(years, capacity);
+            }
+            if (titles != null) {
+                titles[size] = game.title();
+            } else {
+                offHeapTitles.add(game.title());
+            }
+            years[size] = parseYear(game.released());
+            if (years[size] == UNKNOWN) {
+                if (unknownCount == unknownIds.length) {
+                    int capacity = Math.max(unknownCount * 2, INITIAL_CAPACITY);
+                    unknownIds = Arrays.copyOf(unknownIds, capacity);
+                    unknownTexts = Arrays.copyOf(unknownTexts, capacity);
+                }
+                unknownIds[unknownCount] = size;
+                unknownTexts[unknownCount] = game.released();
+                unknownCount++;
+            }
+            developers.add(game.developers());
+            publishers.add(game.publishers());
+            genres.add(game.genres());
+            size++;
+        }
+
+        /**
+         * Tells whether titles are stored outside of heap.
+         *
+         * @return true for titles outside of heap
+         */
+        boolean offHeap() {
+            return offHeapTitles != null;
+        }
+
+        /**
+         * Returns number of games added so far.
+         *
+         * @return count of games
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Removes games added after the first {@code newSize} games.
+         * Used when loading of file fails half way through.
+         *
+         * @param newSize number of games to keep
+         */
+        void truncate(int newSize) {
+            if (newSize < published) {
+                // Built catalogs still show removed games, so arrays shared
+                // with them must not be overwritten by following additions
+                if (titles != null) {
+                    titles = titles.clone();
+                }
+                years = years.clone();
+                unknownIds = unknownIds.clone();
+                unknownTexts = unknownTexts.clone();
+                published = newSize;
+                previous = null;
+            }
+            if (titles != null) {
+                Arrays.fill(titles, newSize, size, null);
+            } else {
+                offHeapTitles.truncate(newSize);
+            }
+            int kept = Arrays.binarySearch(unknownIds, 0, unknownCount, newSize);
+            kept = kept >= 0 ? kept : -kept - 1;
+            Arrays.fill(unknownTexts, kept, unknownCount, null);
+            unknownCount = kept;
+            developers.truncate(newSize);
+            publishers.truncate(newSize);
+            genres.truncate(newSize);
+            size = newSize;
+        }
+
+        /**
+         * Creates immutable catalog of all games added so far.
+         *
+         * @return new catalog
+         */
+        GameCatalog build() {
+            published = size;
+            TitleColumn built = titles != null
+                    ? new TitleColumn.Heap(titles)
+                    : offHeapTitles.build();
+            previous = new GameCatalog(size, built, years,
+                    new UnknownReleases(unknownIds, unknownTexts, unknownCount),
+                    developers.build(), publishers.build(), genres.build(),
+                    null, previous);
+            return previous;
+        }
+    }
+}
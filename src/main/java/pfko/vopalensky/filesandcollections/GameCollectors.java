@@ -0,0 +1,243 @@
+package pfko.vopalensky.filesandcollections;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+/**
+ * Collectors computing queries about games in a single pass over any stream
+ * of games. Memory used by every collector is bounded by size of its result,
+ * not by number of games, so they can be used on streams of games which are
+ * parsed on the fly from files that would not fit into memory.
+ */
+public final class GameCollectors {
+    private static final String SIMULATOR_GENRE = "Simulator";
+
+    private GameCollectors() {
+    }
+
+    /**
+     * Collects all genres of games.
+     *
+     * @return Collector returning unique genres alphabetically ordered.
+     */
+    public static Collector<Game, ?, List<String>> genres() {
+        return Collector.of(
+                TreeSet<String>::new,
+                (genres, game) -> genres.addAll(game.genres()),
+                (left, right) -> {
+                    left.addAll(right);
+                    return left;
+                },
+                ArrayList::new);
+    }
+
+    /**
+     * Collects games that are in a concrete genre.
+     *
+     * @param genre Genre the games should be in
+     * @return Collector returning games with deemed genre ordered by release
+     * date, games to be announced are the last ones.
+     */
+    public static Collector<Game, ?, List<Game>> gamesByGenre(String genre) {
+        return Collector.<Game, List<Game>, List<Game>>of(
+                ArrayList::new,
+                (games, game) -> {
+                    if (game.genres().contains(genre)) {
+                        games.add(game);
+                    }
+                },
+                (left, right) -> {
+                    left.addAll(right);
+                    return left;
+                },
+                games -> {
+                    games.sort(Comparator.comparingInt(
+                            game -> GameCatalog.parseYear(game.released())));
+                    return List.copyOf(games);
+                });
+    }
+
+    /**
+     * Collects games of every genre at once.
+     *
+     * @return Collector returning map from genre (alphabetically ordered) to
+     * games with that genre ordered by release date, games to be announced
+     * are the last ones.
+     */
+    public static Collector<Game, ?, Map<String, List<Game>>>
+    gamesOfEveryGenre() {
+        return Collector.<Game, Map<String, List<Game>>,
+                Map<String, List<Game>>>of(
+                TreeMap::new,
+                (genres, game) -> {
+                    for (String genre : game.genres()) {
+                        List<Game> games = genres.computeIfAbsent(
+                                genre, g -> new ArrayList<>());
+                        // Game may list the same genre twice
+                        if (games.isEmpty() || games.getLast() != game) {
+                            games.add(game);
+                        }
+                    }
+                },
+                (left, right) -> {
+                    right.forEach((genre, games) -> left.computeIfAbsent(
+                            genre, g -> new ArrayList<>()).addAll(games));
+                    return left;
+                },
+                genres -> {
+                    genres.replaceAll((genre, games) -> {
+                        games.sort(Comparator.comparingInt(
+                                game -> GameCatalog.parseYear(game.released())));
+                        return List.copyOf(games);
+                    });
+                    return genres;
+                });
+    }
+
+    /**
+     * Collects games that has genre simulator.
+     *
+     * @return Collector returning simulator games ordered by release.
+     */
+    public static Collector<Game, ?, List<Game>> simulatorGames() {
+        return gamesByGenre(SIMULATOR_GENRE);
+    }
+
+    /**
+     * Counts number of published games for each publisher.
+     *
+     * @return Collector returning entries where key is name of publisher and
+     * value is number of published games. List is in descending order,
+     * publishers with equal counts keep order of their first appearance.
+     */
+    public static Collector<Game, ?, List<Map.Entry<String, Integer>>>
+    publisherCounts() {
+        return Collector.<Game, Map<String, Integer>,
+                List<Map.Entry<String, Integer>>>of(
+                LinkedHashMap::new,
+                (counts, game) -> {
+                    for (String publisher : game.publishers()) {
+                        counts.merge(publisher, 1, Integer::sum);
+                    }
+                },
+                (left, right) -> {
+                    right.forEach((publisher, count) ->
+                            left.merge(publisher, count, Integer::sum));
+                    return left;
+                },
+                counts -> {
+                    List<Map.Entry<String, Integer>> list =
+                            new ArrayList<>(counts.entrySet());
+                    list.sort(Comparator.comparingInt(
+                            (Map.Entry<String, Integer> entry) -> entry.getValue())
+                            .reversed());
+                    return list;
+                });
+    }
+
+    /**
+     * Approximately finds publishers with the highest number of published
+     * games, see {@link SpaceSaving}. Memory used does not depend on number
+     * of distinct publishers.
+     *
+     * @param k        maximal number of publishers
+     * @param capacity number of monitored publishers, larger capacity gives
+     *                 more accurate counts
+     * @return Collector returning at most k entries where key is name of
+     * publisher and value is estimated number of published games in
+     * descending order.
+     */
+    public static Collector<Game, ?, List<Map.Entry<String, Integer>>>
+    publisherHeavyHitters(int k, int capacity) {
+        return heavyHitters(Game::publishers, k, capacity);
+    }
+
+    /**
+     * Approximately finds developers with the highest number of developed
+     * games, see {@link SpaceSaving}. Memory used does not depend on number
+     * of distinct developers.
+     *
+     * @param k        maximal number of developers
+     * @param capacity number of monitored developers, larger capacity gives
+     *                 more accurate counts
+     * @return Collector returning at most k entries where key is name of
+     * developer and value is estimated number of developed games in
+     * descending order.
+     */
+    public static Collector<Game, ?, List<Map.Entry<String, Integer>>>
+    developerHeavyHitters(int k, int capacity) {
+        return heavyHitters(Game::developers, k, capacity);
+    }
+
+    /**
+     * Counts values of games into {@link SpaceSaving} counter.
+     */
+    private static Collector<Game, ?, List<Map.Entry<String, Integer>>>
+    heavyHitters(Function<Game, List<String>> values, int k, int capacity) {
+        if (k < 0) {
+            throw new IllegalArgumentException(
+                    "Number of items can not be negative");
+        }
+        return Collector.of(
+                () -> new SpaceSaving(capacity),
+                (counter, game) -> {
+                    for (String value : values.apply(game)) {
+                        counter.add(value);
+                    }
+                },
+                (left, right) -> {
+                    left.merge(right);
+                    return left;
+                },
+                counter -> counter.top(k));
+    }
+
+    /**
+     * Approximately counts distinct values of field, see
+     * {@link HyperLogLog}. Memory used is fixed by precision, sketches of
+     * parts of a parallel stream are merged.
+     *
+     * @param field     field whose values are counted
+     * @param precision precision of sketch, see
+     *                  {@link HyperLogLog#HyperLogLog(int)}
+     * @return Collector returning sketch of values, its
+     * {@link HyperLogLog#estimate()} is the number of distinct values.
+     */
+    public static Collector<Game, ?, HyperLogLog> distinct(
+            GameQuery.Field field, int precision) {
+        // Invalid precision is reported right away, not by the stream
+        HyperLogLog.checkPrecision(precision);
+        return Collector.of(
+                () -> new HyperLogLog(precision),
+                (sketch, game) -> {
+                    for (String value : values(game, field)) {
+                        sketch.add(value);
+                    }
+                },
+                (left, right) -> {
+                    left.merge(right);
+                    return left;
+                },
+                Collector.Characteristics.UNORDERED,
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * Returns values of game in field which holds a list of values.
+     */
+    private static List<String> values(Game game, GameQuery.Field field) {
+        return switch (field) {
+            case GENRE -> game.genres();
+            case DEVELOPER -> game.developers();
+            case PUBLISHER -> game.publishers();
+            case YEAR -> List.of(game.released());
+        };
+    }
+}
@@ -0,0 +1,108 @@
+package pfko.vopalensky.filesandcollections;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes results of queries about games into output files. Results can come
+ * either from games loaded in {@link FileApp} or from {@link GameCollectors}
+ * applied on a stream of games.
+ * <p>
+ * Files are written in UTF-8 and replaced only after they are completely
+ * written, files whose name ends with {@code .gz} are compressed by gzip.
+ */
+public final class GameExports {
+    private static final PrintStream out = System.out;
+    private static final String DELIMITER = ",";
+    private static final String PROBLEM_ON_CREATING_OUTPUT_MESSAGE =
+            "Problem appeared during creating file...";
+    private static final String GAME_COUNT = "game_count";
+
+    private GameExports() {
+    }
+
+    /**
+     * Creates file where is comma separated list of genres.
+     *
+     * @param genres         genres to be written
+     * @param outputFilePath path to a file where genres should be written
+     * @throws IOException When there is a problem with creating or writing
+     *                     into new file.
+     */
+    public static void writeGenres(List<String> genres, String outputFilePath)
+            throws IOException {
+        try (ChannelWriter writer = ChannelWriter.open(outputFilePath)) {
+            String delimiter = "";
+            for (String genre : genres) {
+                writer.write(delimiter);
+                writer.write(genre);
+                delimiter = DELIMITER;
+            }
+            writer.commit();
+        } catch (IOException e) {
+            out.println(PROBLEM_ON_CREATING_OUTPUT_MESSAGE);
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a csv file of games with two columns - release, title
+     *
+     * @param games          games to be written
+     * @param outputFilePath path to a file where games should be written
+     * @throws IOException When there is a problem with creating or writing
+     *                     into new file.
+     */
+    public static void writeReleases(List<Game> games, String outputFilePath)
+            throws IOException {
+        try (ChannelWriter writer = ChannelWriter.open(outputFilePath)) {
+            writer.write(FileApp.csvProperties.RELEASED.getHeader());
+            writer.write(DELIMITER);
+            writer.write(FileApp.csvProperties.TITLE.getHeader());
+            writer.newLine();
+
+            for (Game game : games) {
+                writer.write(game.released());
+                writer.write(DELIMITER);
+                writer.write(game.title());
+                writer.newLine();
+            }
+            writer.commit();
+        } catch (IOException e) {
+            out.println(PROBLEM_ON_CREATING_OUTPUT_MESSAGE);
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a csv file of publishers with two columns - publisher name,
+     * number of published games
+     *
+     * @param publisherCounts entries of publisher and their game counts
+     * @param outputFilePath  path to a file where publishers should be written
+     * @throws IOException When there is a problem with creating or writing
+     *                     into new file.
+     */
+    public static void writePublisherCounts(
+            List<Map.Entry<String, Integer>> publisherCounts,
+            String outputFilePath) throws IOException {
+        try (ChannelWriter writer = ChannelWriter.open(outputFilePath)) {
+            writer.write(FileApp.csvProperties.PUBLISHERS.getHeader());
+            writer.write(DELIMITER);
+            writer.write(GAME_COUNT);
+            writer.newLine();
+            for (Map.Entry<String, Integer> publisher : publisherCounts) {
+                writer.write(publisher.getKey());
+                writer.write(DELIMITER);
+                writer.write(publisher.getValue().toString());
+                writer.newLine();
+            }
+            writer.commit();
+        } catch (IOException e) {
+            out.println(PROBLEM_ON_CREATING_OUTPUT_MESSAGE);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package pfko.vopalensky.filesandcollections;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Description of a question asked of games stored in {@link FileApp}.
+ * Query is a conjunction of predicates on title, year of release, genres,
+ * developers and publishers, optionally with order and limit of results.
+ * Every predicate method adds one more condition, so a game has to fulfil
+ * all of them.
+ * <p>
+ * Query itself does not touch any data, {@link FileApp#query(GameQuery)},
+ * {@link FileApp#count(GameQuery)} and
+ * {@link FileApp#countBy(GameQuery, Field)} compile it into a plan which
+ * uses indexes of catalog whenever they help, see
+ * {@link FileApp#explain(GameQuery)}.
+ */
+public final class GameQuery {
+    private final List<String> genres = new ArrayList<>();
+    private final List<String> developers = new ArrayList<>();
+    private final List<String> publishers = new ArrayList<>();
+    private final List<String> titles = new ArrayList<>();
+    private final List<String> titleParts = new ArrayList<>();
+    private boolean releaseLimited;
+    private int releasedFrom = Integer.MIN_VALUE;
+    private int releasedTo = Integer.MAX_VALUE;
+    private Order order = Order.LOADING;
+    private int limit = Integer.MAX_VALUE;
+
+    /**
+     * Order of games returned by query.
+     */
+    public enum Order {
+        /**
+         * Order in which the games were loaded
+         */
+        LOADING,
+        /**
+         * Order by year of release, games from the same year keep order
+         * of loading and games to be announced are the last
+         */
+        RELEASE,
+        /**
+         * Alphabetical order of titles, games with the same title keep
+         * order of loading
+         */
+        TITLE
+    }
+
+    /**
+     * Attribute of games which can be used for grouping.
+     */
+    public enum Field {
+        YEAR,
+        GENRE,
+        DEVELOPER,
+        PUBLISHER
+    }
+
+    /**
+     * Keeps only games with exactly given title.
+     *
+     * @param title title of game
+     * @return this query
+     */
+    public GameQuery title(String title) {
+        titles.add(Objects.requireNonNull(title));
+        return this;
+    }
+
+    /**
+     * Keeps only games whose title contains given text.
+     *
+     * @param part text the title should contain
+     * @return this query
+     */
+    public GameQuery titleContains(String part) {
+        titleParts.add(Objects.requireNonNull(part));
+        return this;
+    }
+
+    /**
+     * Keeps only games released in given range of years. Games to be
+     * announced are never included.
+     *
+     * @param from First year of range, inclusive
+     * @param to   Last year of range, inclusive
+     * @return this query
+     */
+    public GameQuery releasedBetween(int from, int to) {
+        releaseLimited = true;
+        releasedFrom = Math.max(releasedFrom, from);
+        releasedTo = Math.min(releasedTo, to);
+        return this;
+    }
+
+    /**
+     * Keeps only games of given genre.
+     *
+     * @param genre genre the games should be in
+     * @return this query
+     */
+    public GameQuery genre(String genre) {
+        genres.add(Objects.requireNonNull(genre));
+        return this;
+    }
+
+    /**
+     * Keeps only games made by given developer.
+     *
+     * @param developer developer of games
+     * @return this query
+     */
+    public GameQuery developer(String developer) {
+        developers.add(Objects.requireNonNull(developer));
+        return this;
+    }
+
+    /**
+     * Keeps only games published by given publisher.
+     *
+     * @param publisher publisher of games
+     * @return this query
+     */
+    public GameQuery publisher(String publisher) {
+        publishers.add(Objects.requireNonNull(publisher));
+        return this;
+    }
+
+    /**
+     * Sets order of returned games, games are in order of loading
+     * by default.
+     *
+     * @param order order of games
+     * @return this query
+     */
+    public GameQuery orderBy(Order order) {
+        this.order = Objects.requireNonNull(order);
+        return this;
+    }
+
+    /**
+     * Limits number of returned games, or number of groups when games
+     * are counted by a field.
+     *
+     * @param limit maximal number of results
+     * @return this query
+     */
+    public GameQuery limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit can not be negative");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Getter for required genres.
+     *
+     * @return genres every game has to be in
+     */
+    List<String> genres() {
+        return genres;
+    }
+
+    /**
+     * Getter for required developers.
+     *
+     * @return developers every game has to be made by
+     */
+    List<String> developers() {
+        return developers;
+    }
+
+    /**
+     * Getter for required publishers.
+     *
+     * @return publishers every game has to be published by
+     */
+    List<String> publishers() {
+        return publishers;
+    }
+
+    /**
+     * Getter for exact titles.
+     *
+     * @return titles every game has to have
+     */
+    List<String> titles() {
+        return titles;
+    }
+
+    /**
+     * Getter for parts of title.
+     *
+     * @return texts title of every game has to contain
+     */
+    List<String> titleParts() {
+        return titleParts;
+    }
+
+    /**
+     * Check whether year of release is limited.
+     *
+     * @return true if only games released in a range of years are kept
+     */
+    boolean releaseLimited() {
+        return releaseLimited;
+    }
+
+    /**
+     * Getter for first year of range of releases.
+     *
+     * @return first year, inclusive
+     */
+    int releasedFrom() {
+        return releasedFrom;
+    }
+
+    /**
+     * Getter for last year of range of releases.
+     *
+     * @return last year, inclusive
+     */
+    int releasedTo() {
+        return releasedTo;
+    }
+
+    /**
+     * Getter for order of games.
+     *
+     * @return order of returned games
+     */
+    Order order() {
+        return order;
+    }
+
+    /**
+     * Getter for limit of results.
+     *
+     * @return maximal number of results
+     */
+    int limit() {
+        return limit;
+    }
+}
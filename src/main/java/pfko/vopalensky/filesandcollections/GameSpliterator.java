@@ -0,0 +1,101 @@
+package pfko.vopalensky.filesandcollections;
+
+import pfko.vopalensky.filesandcollections.exceptions.InvalidFileFormatException;
+
+import java.io.UncheckedIOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.Charset;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Parses games lazily from csv lines stored in memory, one game at a time.
+ * Range of lines can be split in half at a line boundary, so streams built
+ * on top of this spliterator can be processed in parallel.
+ * <p>
+ * Invalid line is reported as {@link UncheckedIOException} wrapping
+ * {@link InvalidFileFormatException}.
+ */
+final class GameSpliterator implements Spliterator<Game> {
+    /**
+     * Ranges smaller than this are not worth splitting
+     */
+    private static final long MIN_SPLIT_SIZE = 64 * 1024L;
+
+    private final MemorySegment content;
+    private final ByteCsvTokenizer tokenizer;
+    private final Charset charset;
+    private long position;
+    private final long end;
+
+    /**
+     * Creates spliterator over lines in given range.
+     *
+     * @param content memory where lines are stored
+     * @param from    index where first line starts
+     * @param to      index after last line
+     * @param charset charset the lines are encoded in
+     */
+    GameSpliterator(MemorySegment content, long from, long to,
+                    Charset charset) {
+        this.content = content;
+        this.position = from;
+        this.end = to;
+        this.charset = charset;
+        this.tokenizer = new ByteCsvTokenizer(
+                FileApp.csvProperties.values().length, charset);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Game> action) {
+        while (position < end) {
+            long lineStart = position;
+            long lineEnd = ChunkedCsvLoader.lineEnd(content, lineStart);
+            position = ChunkedCsvLoader.nextLine(content, lineEnd);
+            if (lineEnd > lineStart) {
+                action.accept(parse(lineStart, lineEnd));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses single line, wrapping the checked exception for streams.
+     */
+    private Game parse(long lineStart, long lineEnd) {
+        try {
+            return FileApp.parseLineToGame(
+                    tokenizer, content, lineStart, lineEnd);
+        } catch (InvalidFileFormatException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Spliterator<Game> trySplit() {
+        long remaining = end - position;
+        if (remaining < MIN_SPLIT_SIZE) {
+            return null;
+        }
+        long middle = ChunkedCsvLoader.nextLine(content,
+                ChunkedCsvLoader.lineEnd(content, position + remaining / 2));
+        if (middle >= end) {
+            return null;
+        }
+        GameSpliterator prefix =
+                new GameSpliterator(content, position, middle, charset);
+        position = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return end - position;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+}
@@ -0,0 +1,182 @@
+package pfko.vopalensky.filesandcollections;
+
+/**
+ * Approximate counter of distinct strings, using the HyperLogLog algorithm.
+ * Every string is hashed into 64 bits, the first {@code precision} bits
+ * choose one of {@code m = 2^precision} registers and the register keeps
+ * the longest run of leading zeros seen in the rest of the hash. Number of
+ * distinct strings is estimated from harmonic mean of all registers.
+ * <p>
+ * Memory is fixed to {@code m} bytes whatever the number of strings is.
+ * Standard error of estimate is {@code 1.04 / sqrt(m)}, see
+ * {@link #standardError()}, so with the default precision 14 (16 KiB)
+ * the estimate is within 0.81 % of the real count in about two thirds of
+ * cases and within 2.5 % almost always. Small counts are counted by linear
+ * counting of empty registers, which is nearly exact.
+ * <p>
+ * Sketches with the same precision can be merged, merged sketch is exactly
+ * the sketch of all strings of both, so sketches may be computed for parts
+ * of data (chunks, shards, parallel streams) and combined afterwards.
+ */
+public final class HyperLogLog {
+    public static final int DEFAULT_PRECISION = 14;
+    private static final int MIN_PRECISION = 4;
+    private static final int MAX_PRECISION = 18;
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * Creates empty sketch with {@link #DEFAULT_PRECISION}.
+     */
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * Creates empty sketch.
+     *
+     * @param precision number of bits choosing register, between 4 and 18,
+     *                  every additional bit doubles memory and lowers error
+     *                  by factor of about 1.4
+     */
+    public HyperLogLog(int precision) {
+        checkPrecision(precision);
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Checks that sketch of given precision can be created.
+     *
+     * @param precision checked precision
+     * @throws IllegalArgumentException When precision is not between
+     *                                  4 and 18.
+     */
+    static void checkPrecision(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Precision has to be between "
+                    + MIN_PRECISION + " and " + MAX_PRECISION);
+        }
+    }
+
+    /**
+     * Computes 64-bit hash of string. FNV-1a over characters is followed
+     * by the finalizer of MurmurHash3, so all bits of hash depend on all
+     * characters.
+     *
+     * @param value hashed string
+     * @return hash of string
+     */
+    static long hash(String value) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Counts string.
+     *
+     * @param value counted string
+     */
+    public void add(String value) {
+        addHash(hash(value));
+    }
+
+    /**
+     * Counts string by its hash computed by {@link #hash(String)}, so hash
+     * of a repeated string can be computed only once.
+     *
+     * @param hash hash of counted string
+     */
+    void addHash(long hash) {
+        int register = (int) (hash >>> (Long.SIZE - precision));
+        // Marker bit limits the run when all remaining bits are zeros
+        long rest = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (registers[register] < rank) {
+            registers[register] = rank;
+        }
+    }
+
+    /**
+     * Adds strings counted by another sketch into this one.
+     *
+     * @param other sketch of another part of data
+     * @throws IllegalArgumentException When sketches have different
+     *                                  precision.
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException(
+                    "Only sketches with the same precision can be merged");
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] < other.registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Estimates number of distinct counted strings.
+     *
+     * @return estimated count
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int empty = 0;
+        for (byte register : registers) {
+            sum += Math.scalb(1.0, -register);
+            if (register == 0) {
+                empty++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && empty > 0) {
+            // Linear counting is more accurate for small counts
+            estimate = m * Math.log((double) m / empty);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Bias correction constant of estimate.
+     */
+    private static double alpha(int m) {
+        return switch (m) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / m);
+        };
+    }
+
+    /**
+     * Returns standard error of estimate relative to the real count.
+     *
+     * @return relative standard error, for example 0.0081 for 0.81 %
+     */
+    public double standardError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    /**
+     * Getter for precision.
+     *
+     * @return number of bits choosing register
+     */
+    public int precision() {
+        return precision;
+    }
+}
@@ -0,0 +1,46 @@
+package pfko.vopalensky.filesandcollections;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistics of a single lenient load, see
+ * {@link FileApp#loadLenient(java.nio.file.Path, java.nio.file.Path, int)}.
+ *
+ * @param rows    number of loaded games
+ * @param rejects number of invalid lines written into quarantine
+ * @param bytes   size of loaded file in bytes
+ * @param nanos   time spent by loading in nanoseconds
+ */
+public record IngestReport(long rows, long rejects, long bytes, long nanos) {
+
+    /**
+     * Computes how many games were loaded per second.
+     *
+     * @return loaded games per second
+     */
+    public double rowsPerSecond() {
+        return perSecond(rows);
+    }
+
+    /**
+     * Computes how many bytes of file were read per second.
+     *
+     * @return read bytes per second
+     */
+    public double bytesPerSecond() {
+        return perSecond(bytes);
+    }
+
+    private double perSecond(long amount) {
+        return amount * (double) TimeUnit.SECONDS.toNanos(1)
+                / Math.max(nanos, 1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows, %d rejects, %d bytes in %d ms"
+                        + " (%.0f rows/s, %.0f bytes/s)",
+                rows, rejects, bytes, TimeUnit.NANOSECONDS.toMillis(nanos),
+                rowsPerSecond(), bytesPerSecond());
+    }
+}
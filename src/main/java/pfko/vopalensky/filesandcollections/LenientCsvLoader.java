@@ -0,0 +1,109 @@
+package pfko.vopalensky.filesandcollections;
+
+import pfko.vopalensky.filesandcollections.exceptions.EmptyFileException;
+import pfko.vopalensky.filesandcollections.exceptions.ErrorBudgetExceededException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Parses content of csv file line by line and does not stop on invalid
+ * lines. Every invalid line is written into quarantine together with its
+ * line number and reason of rejection, so it can be fixed and loaded later
+ * without parsing the whole file again.
+ * <p>
+ * Quarantine has one rejected line per line in format
+ * {@code <line number>\t<reason>\t<original line>}, lines are numbered
+ * from 1 and the headers line is line 1.
+ */
+final class LenientCsvLoader {
+    private static final char SEPARATOR = '\t';
+
+    private final BufferedWriter quarantine;
+    private final int errorBudget;
+    private final ByteCsvTokenizer tokenizer = new ByteCsvTokenizer(
+            FileApp.csvProperties.values().length, StandardCharsets.UTF_8);
+
+    /**
+     * Creates loader writing rejected lines into given writer.
+     *
+     * @param quarantine  writer of rejected lines
+     * @param errorBudget maximal number of rejected lines
+     */
+    LenientCsvLoader(BufferedWriter quarantine, int errorBudget) {
+        this.quarantine = quarantine;
+        this.errorBudget = errorBudget;
+    }
+
+    /**
+     * Skips headers line and passes games of all valid lines to consumer
+     * in order of file.
+     *
+     * @param input whole content of csv file
+     * @param games consumer of parsed games
+     * @return statistics of the load
+     * @throws IOException when file is empty, quarantine cannot be written
+     *                     or {@link ErrorBudgetExceededException} when there
+     *                     are more rejected lines than the budget allows
+     */
+    IngestReport load(MemorySegment input, Consumer<Game> games)
+            throws IOException {
+        long started = System.nanoTime();
+        long headersEnd = ChunkedCsvLoader.lineEnd(input, 0);
+        if (headersEnd == 0) {
+            throw new EmptyFileException();
+        }
+        long rows = 0;
+        long rejects = 0;
+        long lineNumber = 1;
+        long lineStart = ChunkedCsvLoader.nextLine(input, headersEnd);
+        while (lineStart < input.byteSize()) {
+            lineNumber++;
+            long lineEnd = ChunkedCsvLoader.lineEnd(input, lineStart);
+            if (lineEnd > lineStart) {
+                if (tokenizer.tokenize(input, lineStart, lineEnd)) {
+                    games.accept(FileApp.toGame(tokenizer));
+                    rows++;
+                } else {
+                    reject(lineNumber, input, lineStart, lineEnd);
+                    if (++rejects > errorBudget) {
+                        throw new ErrorBudgetExceededException();
+                    }
+                }
+            }
+            lineStart = ChunkedCsvLoader.nextLine(input, lineEnd);
+        }
+        return new IngestReport(rows, rejects, input.byteSize(),
+                System.nanoTime() - started);
+    }
+
+    /**
+     * Writes invalid line into quarantine.
+     */
+    private void reject(long lineNumber, MemorySegment input,
+                        long from, long to) throws IOException {
+        byte[] line = new byte[(int) (to - from)];
+        MemorySegment.copy(input, ValueLayout.JAVA_BYTE, from,
+                line, 0, line.length);
+        quarantine.append(Long.toString(lineNumber)).append(SEPARATOR)
+                .append(reason()).append(SEPARATOR)
+                .append(new String(line, StandardCharsets.UTF_8));
+        quarantine.newLine();
+    }
+
+    /**
+     * Describes why the last tokenized line was rejected.
+     */
+    private String reason() {
+        int expected = FileApp.csvProperties.values().length;
+        if (tokenizer.columns() == expected) {
+            return "More than " + expected + " columns";
+        }
+        return "Expected " + expected + " columns, found "
+                + tokenizer.columns();
+    }
+}
@@ -0,0 +1,147 @@
+package pfko.vopalensky.filesandcollections;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from non-negative long keys to int counts, stored in two plain
+ * arrays with open addressing and linear probing. Unlike
+ * {@code HashMap<Long, Integer>} it creates no object per entry, so
+ * counting millions of pairs does not fill the heap with boxed numbers.
+ * Instances are not thread safe.
+ */
+final class LongIntHashMap {
+    private static final long EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 64;
+    /**
+     * Map grows when more than 2/3 of slots are used
+     */
+    private static final int LOAD_NUMERATOR = 2;
+    private static final int LOAD_DENOMINATOR = 3;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    /**
+     * Creates empty map.
+     */
+    LongIntHashMap() {
+        keys = new long[INITIAL_CAPACITY];
+        values = new int[INITIAL_CAPACITY];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Consumer of entries of map.
+     */
+    @FunctionalInterface
+    interface EntryConsumer {
+        /**
+         * Accepts a single entry.
+         *
+         * @param key   key of entry
+         * @param value value of entry
+         */
+        void accept(long key, int value);
+    }
+
+    /**
+     * Adds number to value of key, missing key has value 0.
+     *
+     * @param key   non-negative key
+     * @param delta number to be added
+     */
+    void add(long key, int delta) {
+        int slot = slot(keys, key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            if (++size * LOAD_DENOMINATOR > keys.length * LOAD_NUMERATOR) {
+                values[slot] = delta;
+                grow();
+                return;
+            }
+        }
+        values[slot] += delta;
+    }
+
+    /**
+     * Returns value of key.
+     *
+     * @param key non-negative key
+     * @return value, 0 when key is not in map
+     */
+    int get(long key) {
+        int slot = slot(keys, key);
+        return keys[slot] == EMPTY ? 0 : values[slot];
+    }
+
+    /**
+     * Returns number of keys in map.
+     *
+     * @return count of keys
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds values of all keys of other map to this map.
+     *
+     * @param other map to be added
+     */
+    void addAll(LongIntHashMap other) {
+        other.forEach(this::add);
+    }
+
+    /**
+     * Passes every entry to consumer, in no particular order.
+     *
+     * @param consumer consumer of entries
+     */
+    void forEach(EntryConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    /**
+     * Finds slot holding key or the empty slot where it belongs.
+     */
+    private static int slot(long[] keys, long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Mixes bits of key, packed pairs of small ids differ mostly in a few
+     * low bits of both halves.
+     */
+    private static int hash(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    /**
+     * Doubles number of slots and moves all entries.
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(keys, EMPTY);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) {
+                int newSlot = slot(keys, oldKeys[slot]);
+                keys[newSlot] = oldKeys[slot];
+                values[newSlot] = oldValues[slot];
+            }
+        }
+    }
+}
@@ -13,8 +13,9 @@ public class Main {
     public static void main(String[] args) throws IOException {
         FileApp fa = new FileApp();
         fa.load("/pfko/vopalensky/filesandcollections/games.csv");
-        fa.createGenreFile("genres.txt");
-        fa.createSimulatorFile("simulator_games.csv");
-        fa.createPublishersFile("game_publishers.csv");
+        fa.export(new ExportPipeline()
+                .genres("genres.txt")
+                .simulatorGames("simulator_games.csv")
+                .publisherCounts("game_publishers.csv"));
     }
 }
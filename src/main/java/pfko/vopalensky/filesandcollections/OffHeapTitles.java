@@ -0,0 +1,259 @@
+package pfko.vopalensky.filesandcollections;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.IntPredicate;
+
+/**
+ * Titles stored as UTF-8 bytes in native memory, one after another, with
+ * position and length of every title kept in two primitive arrays on heap.
+ * Heap of a large catalog then holds no object per game, so garbage
+ * collector has much less to trace and copy.
+ * <p>
+ * Strings are decoded only when a title is requested. Exact and substring
+ * matches and ordering are computed on bytes directly, UTF-8 bytes compared
+ * as unsigned numbers are ordered by code points, which differs from
+ * {@link String#compareTo(String)} only for characters beyond U+FFFF.
+ * <p>
+ * Memory is allocated by automatic arenas, it is released when no catalog
+ * uses it any more.
+ */
+final class OffHeapTitles implements TitleColumn {
+    private final MemorySegment bytes;
+    private final long[] offsets;
+    private final int[] lengths;
+
+    private OffHeapTitles(MemorySegment bytes, long[] offsets, int[] lengths) {
+        this.bytes = bytes;
+        this.offsets = offsets;
+        this.lengths = lengths;
+    }
+
+    @Override
+    public String title(int id) {
+        byte[] encoded = new byte[lengths[id]];
+        MemorySegment.copy(bytes, ValueLayout.JAVA_BYTE, offsets[id],
+                encoded, 0, encoded.length);
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int compare(int first, int second) {
+        long firstStart = offsets[first];
+        long secondStart = offsets[second];
+        // Second title is sliced, JDK 21.0.1 reports any two ranges of the
+        // same segment instance as equal: AbstractMemorySegmentImpl.mismatch
+        // returns -1 when source and destination segment are identical,
+        // without comparing the ranges
+        long mismatch = mismatch(firstStart, lengths[first],
+                bytes.asSlice(secondStart, lengths[second]));
+        if (mismatch == -1) {
+            return 0;
+        }
+        if (mismatch == lengths[first] || mismatch == lengths[second]) {
+            // One title is prefix of the other one
+            return Integer.compare(lengths[first], lengths[second]);
+        }
+        return Integer.compare(
+                Byte.toUnsignedInt(bytes.get(ValueLayout.JAVA_BYTE,
+                        firstStart + mismatch)),
+                Byte.toUnsignedInt(bytes.get(ValueLayout.JAVA_BYTE,
+                        secondStart + mismatch)));
+    }
+
+    @Override
+    public Comparator<String> order() {
+        return OffHeapTitles::compareCodePoints;
+    }
+
+    /**
+     * Compares strings by code points, the same way as their UTF-8 bytes
+     * are compared. Surrogates are moved above all other characters of
+     * basic plane, so characters beyond U+FFFF sort after them.
+     */
+    private static int compareCodePoints(String first, String second) {
+        int length = Math.min(first.length(), second.length());
+        for (int i = 0; i < length; i++) {
+            char a = first.charAt(i);
+            char b = second.charAt(i);
+            if (a != b) {
+                return Integer.compare(codePointOrder(a), codePointOrder(b));
+            }
+        }
+        return first.length() - second.length();
+    }
+
+    /**
+     * Maps UTF-16 unit to a number ordered as code points starting with it.
+     */
+    private static int codePointOrder(char c) {
+        if (c < Character.MIN_SURROGATE) {
+            return c;
+        }
+        return Character.isSurrogate(c) ? c + 0x2000 : c - 0x800;
+    }
+
+    @Override
+    public IntPredicate equalTo(String title) {
+        byte[] encoded = title.getBytes(StandardCharsets.UTF_8);
+        MemorySegment required = MemorySegment.ofArray(encoded);
+        return id -> lengths[id] == encoded.length
+                && mismatch(offsets[id], lengths[id], required) == -1;
+    }
+
+    @Override
+    public IntPredicate containing(String text) {
+        byte[] encoded = text.getBytes(StandardCharsets.UTF_8);
+        MemorySegment required = MemorySegment.ofArray(encoded);
+        return id -> indexOf(id, encoded, required) >= 0;
+    }
+
+    /**
+     * Compares bytes starting at offset with all bytes of other segment,
+     * which must not be the segment of titles.
+     *
+     * @return position of first difference or -1 when bytes are equal
+     */
+    private long mismatch(long offset, int length, MemorySegment other) {
+        return MemorySegment.mismatch(bytes, offset, offset + length,
+                other, 0, other.byteSize());
+    }
+
+    /**
+     * Finds bytes of text in title. Encoded text starts and ends on
+     * boundaries of characters, so it matches only whole characters.
+     *
+     * @return position of text in title or -1 when title does not contain it
+     */
+    private long indexOf(int id, byte[] encoded, MemorySegment required) {
+        if (encoded.length == 0) {
+            return 0;
+        }
+        long start = offsets[id];
+        long last = start + lengths[id] - encoded.length;
+        for (long i = start; i <= last; i++) {
+            if (bytes.get(ValueLayout.JAVA_BYTE, i) == encoded[0]
+                    && mismatch(i, encoded.length, required) == -1) {
+                return i - start;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Appends titles one by one. Bytes and arrays are only appended to,
+     * so titles which were already built and share them are not affected
+     * by later additions.
+     */
+    static final class Builder {
+        private static final int INITIAL_CAPACITY = 16;
+        private static final long INITIAL_BYTES = 1024;
+
+        private MemorySegment bytes;
+        private long[] offsets;
+        private int[] lengths;
+        private long used;
+        private int size;
+        /**
+         * Number of titles visible in already built titles
+         */
+        private int published;
+
+        /**
+         * Creates builder of no titles.
+         */
+        Builder() {
+            bytes = allocate(INITIAL_BYTES);
+            offsets = new long[INITIAL_CAPACITY];
+            lengths = new int[INITIAL_CAPACITY];
+        }
+
+        /**
+         * Creates builder which continues after the first titles.
+         *
+         * @param titles titles to be continued
+         * @param size   number of titles to be kept
+         */
+        Builder(OffHeapTitles titles, int size) {
+            bytes = titles.bytes;
+            offsets = titles.offsets;
+            lengths = titles.lengths;
+            this.size = size;
+            published = size;
+            used = end(size);
+        }
+
+        private static MemorySegment allocate(long capacity) {
+            return Arena.ofAuto().allocate(capacity, 1);
+        }
+
+        /**
+         * Returns position right after the first titles.
+         */
+        private long end(int count) {
+            return count == 0 ? 0 : offsets[count - 1] + lengths[count - 1];
+        }
+
+        /**
+         * Appends title.
+         *
+         * @param title title of next game
+         */
+        void add(String title) {
+            byte[] encoded = title.getBytes(StandardCharsets.UTF_8);
+            if (size == offsets.length) {
+                int capacity = Math.max(size * 2, INITIAL_CAPACITY);
+                offsets = Arrays.copyOf(offsets, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+            }
+            if (used + encoded.length > bytes.byteSize()) {
+                // Built titles keep the old memory, only new titles use
+                // the larger one
+                MemorySegment larger = allocate(Math.max(bytes.byteSize() * 2,
+                        used + encoded.length));
+                MemorySegment.copy(bytes, 0, larger, 0, used);
+                bytes = larger;
+            }
+            MemorySegment.copy(encoded, 0, bytes, ValueLayout.JAVA_BYTE, used,
+                    encoded.length);
+            offsets[size] = used;
+            lengths[size] = encoded.length;
+            used += encoded.length;
+            size++;
+        }
+
+        /**
+         * Removes titles added after the first {@code newSize} titles.
+         *
+         * @param newSize number of titles to keep
+         */
+        void truncate(int newSize) {
+            if (newSize < published) {
+                // Built titles still show removed ones, so memory shared
+                // with them must not be overwritten by following additions
+                MemorySegment copy = allocate(bytes.byteSize());
+                MemorySegment.copy(bytes, 0, copy, 0, end(newSize));
+                bytes = copy;
+                offsets = offsets.clone();
+                lengths = lengths.clone();
+                published = newSize;
+            }
+            used = end(newSize);
+            size = newSize;
+        }
+
+        /**
+         * Creates immutable titles of all titles added so far.
+         *
+         * @return new titles
+         */
+        OffHeapTitles build() {
+            published = size;
+            return new OffHeapTitles(bytes, offsets, lengths);
+        }
+    }
+}
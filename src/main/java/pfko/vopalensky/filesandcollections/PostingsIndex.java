@@ -0,0 +1,320 @@
+package pfko.vopalensky.filesandcollections;
+
+import pfko.vopalensky.filesandcollections.exceptions.InvalidFileFormatException;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Inverted index of a {@link ValueColumn}. For every value of the column it
+ * stores a postings list of games having that value.
+ * <p>
+ * Postings do not hold ids of games but their positions in a fixed order
+ * of games (order of release), so every postings list is an ascending
+ * array. That keeps results of lookups already ordered and lets
+ * intersections and unions of several values run as simple merges.
+ * Postings of value {@code v} are stored from {@code starts[v]} (inclusive)
+ * to {@code starts[v + 1]} (exclusive) of a single array.
+ */
+final class PostingsIndex {
+    private static final int[] EMPTY = new int[0];
+
+    private final int[] starts;
+    private final int[] postings;
+
+    private PostingsIndex(int[] starts, int[] postings) {
+        this.starts = starts;
+        this.postings = postings;
+    }
+
+    /**
+     * Builds index of a column. Games are visited in the given order, so
+     * postings are filled already sorted without any further sorting.
+     *
+     * @param column column to be indexed
+     * @param order  ids of games in the order positions should follow
+     * @return new index
+     */
+    static PostingsIndex build(ValueColumn column, int[] order) {
+        int distinct = column.distinct();
+        int[] starts = new int[distinct + 1];
+        // Game may list the same value twice, it is indexed only once
+        int[] lastPosition = new int[distinct];
+        Arrays.fill(lastPosition, -1);
+        for (int position = 0; position < order.length; position++) {
+            int game = order[position];
+            for (int i = column.start(game); i < column.end(game); i++) {
+                int id = column.value(i);
+                if (lastPosition[id] != position) {
+                    lastPosition[id] = position;
+                    starts[id + 1]++;
+                }
+            }
+        }
+        for (int id = 0; id < distinct; id++) {
+            starts[id + 1] += starts[id];
+        }
+
+        int[] postings = new int[starts[distinct]];
+        int[] next = Arrays.copyOf(starts, distinct);
+        Arrays.fill(lastPosition, -1);
+        for (int position = 0; position < order.length; position++) {
+            int game = order[position];
+            for (int i = column.start(game); i < column.end(game); i++) {
+                int id = column.value(i);
+                if (lastPosition[id] != position) {
+                    lastPosition[id] = position;
+                    postings[next[id]++] = position;
+                }
+            }
+        }
+        return new PostingsIndex(starts, postings);
+    }
+
+    /**
+     * Creates index of more games from this index of the first games.
+     * Values of added games are read from column, positions of indexed
+     * games only move to their places in the new order, which keeps
+     * indexed games in the same relative order.
+     *
+     * @param column column to be indexed, values of indexed games are
+     *               the same as when this index was built
+     * @param order  ids of all games in the order positions should follow
+     * @param from   number of indexed games, games with smaller ids
+     * @return new index
+     */
+    PostingsIndex extend(ValueColumn column, int[] order, int from) {
+        if (from == order.length) {
+            // Values without games have no postings, see size(int)
+            return this;
+        }
+        int distinct = column.distinct();
+        int[] moved = new int[from];
+        int[] addedPositions = new int[order.length - from];
+        int[] addedStarts = new int[distinct + 1];
+        int[] lastPosition = new int[distinct];
+        Arrays.fill(lastPosition, -1);
+        int movedCount = 0;
+        int addedCount = 0;
+        for (int position = 0; position < order.length; position++) {
+            int game = order[position];
+            if (game < from) {
+                moved[movedCount++] = position;
+                continue;
+            }
+            addedPositions[addedCount++] = position;
+            for (int i = column.start(game); i < column.end(game); i++) {
+                int id = column.value(i);
+                if (lastPosition[id] != position) {
+                    lastPosition[id] = position;
+                    addedStarts[id + 1]++;
+                }
+            }
+        }
+        for (int id = 0; id < distinct; id++) {
+            addedStarts[id + 1] += addedStarts[id];
+        }
+        int[] added = new int[addedStarts[distinct]];
+        int[] next = Arrays.copyOf(addedStarts, distinct);
+        Arrays.fill(lastPosition, -1);
+        for (int position : addedPositions) {
+            int game = order[position];
+            for (int i = column.start(game); i < column.end(game); i++) {
+                int id = column.value(i);
+                if (lastPosition[id] != position) {
+                    lastPosition[id] = position;
+                    added[next[id]++] = position;
+                }
+            }
+        }
+
+        // Moved postings and postings of added games are both ascending,
+        // postings of every value are merged
+        int[] mergedStarts = new int[distinct + 1];
+        int[] merged = new int[postings.length + added.length];
+        int length = 0;
+        for (int id = 0; id < distinct; id++) {
+            int i = id + 1 < starts.length ? starts[id] : postings.length;
+            int end = id + 1 < starts.length ? starts[id + 1] : postings.length;
+            int j = addedStarts[id];
+            while (i < end || j < addedStarts[id + 1]) {
+                if (j == addedStarts[id + 1]
+                        || (i < end && moved[postings[i]] < added[j])) {
+                    merged[length++] = moved[postings[i++]];
+                } else {
+                    merged[length++] = added[j++];
+                }
+            }
+            mergedStarts[id + 1] = length;
+        }
+        return new PostingsIndex(mergedStarts, merged);
+    }
+
+    /**
+     * Writes index into snapshot.
+     *
+     * @param writer writer of snapshot
+     * @throws IOException When writing into file fails.
+     */
+    void write(SnapshotWriter writer) throws IOException {
+        writer.writeInts(starts, starts.length);
+        writer.writeInts(postings, postings.length);
+    }
+
+    /**
+     * Reads index from snapshot.
+     *
+     * @param reader reader of snapshot
+     * @param column column the index belongs to
+     * @return new index
+     * @throws InvalidFileFormatException When snapshot is damaged.
+     */
+    static PostingsIndex read(SnapshotReader reader, ValueColumn column)
+            throws InvalidFileFormatException {
+        int[] starts = reader.readInts();
+        int[] postings = reader.readInts();
+        if (starts.length != column.distinct() + 1
+                || starts[column.distinct()] != postings.length) {
+            throw new InvalidFileFormatException();
+        }
+        return new PostingsIndex(starts, postings);
+    }
+
+    /**
+     * Returns number of games having given value.
+     *
+     * @param id dictionary id of value
+     * @return length of postings list
+     */
+    int size(int id) {
+        return id < 0 || id + 1 >= starts.length
+                ? 0
+                : starts[id + 1] - starts[id];
+    }
+
+    /**
+     * Returns postings of a single value.
+     *
+     * @param id dictionary id of value
+     * @return ascending positions of games having the value
+     */
+    int[] postings(int id) {
+        if (size(id) == 0) {
+            return EMPTY;
+        }
+        return Arrays.copyOfRange(postings, starts[id], starts[id + 1]);
+    }
+
+    /**
+     * Finds games having all of given values.
+     *
+     * @param ids dictionary ids of values, negative id matches no game
+     * @return ascending positions of games
+     */
+    int[] all(int... ids) {
+        if (ids.length == 0) {
+            return EMPTY;
+        }
+        // Start from the shortest list, result can only get shorter
+        int[] ordered = ids.clone();
+        for (int id : ordered) {
+            if (size(id) == 0) {
+                return EMPTY;
+            }
+        }
+        sortBySize(ordered);
+        int[] result = postings(ordered[0]);
+        int length = result.length;
+        for (int i = 1; i < ordered.length && length > 0; i++) {
+            length = intersect(result, length, ordered[i]);
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    /**
+     * Finds games having at least one of given values.
+     *
+     * @param ids dictionary ids of values, negative id matches no game
+     * @return ascending positions of games
+     */
+    int[] any(int... ids) {
+        int[] result = EMPTY;
+        for (int id : ids) {
+            if (size(id) > 0) {
+                result = union(result, id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Keeps only those positions of result which are in postings of value.
+     * Each position is looked up by exponential search from the previous
+     * one, which is fast both for lists of similar and of different sizes.
+     *
+     * @return new length of result
+     */
+    private int intersect(int[] result, int length, int id) {
+        int low = starts[id];
+        int end = starts[id + 1];
+        int kept = 0;
+        for (int i = 0; i < length && low < end; i++) {
+            int position = result[i];
+            int step = 1;
+            int high = low;
+            while (high < end && postings[high] < position) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            int found = Arrays.binarySearch(postings, low,
+                    Math.min(high + 1, end), position);
+            if (found >= 0) {
+                result[kept++] = position;
+                low = found + 1;
+            } else {
+                low = -found - 1;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Merges two ascending lists into one without duplicates.
+     */
+    private int[] union(int[] result, int id) {
+        int i = 0;
+        int j = starts[id];
+        int end = starts[id + 1];
+        int[] merged = new int[result.length + end - j];
+        int length = 0;
+        while (i < result.length || j < end) {
+            int position;
+            if (j == end || (i < result.length && result[i] < postings[j])) {
+                position = result[i++];
+            } else if (i == result.length || postings[j] < result[i]) {
+                position = postings[j++];
+            } else {
+                position = result[i++];
+                j++;
+            }
+            merged[length++] = position;
+        }
+        return Arrays.copyOf(merged, length);
+    }
+
+    /**
+     * Orders ids by length of their postings, ascending.
+     */
+    private void sortBySize(int[] ids) {
+        for (int i = 1; i < ids.length; i++) {
+            int id = ids[i];
+            int j = i - 1;
+            while (j >= 0 && size(ids[j]) > size(id)) {
+                ids[j + 1] = ids[j];
+                j--;
+            }
+            ids[j + 1] = id;
+        }
+    }
+}
@@ -0,0 +1,463 @@
+package pfko.vopalensky.filesandcollections;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.stream.Stream;
+
+/**
+ * Execution plan of {@link GameQuery} over a single version of catalog.
+ * <p>
+ * Plan reads games from one access path and checks all remaining
+ * predicates on columns of every game it reads. Predicates on genre,
+ * publisher, year of release and title can be answered by indexes of
+ * catalog, the index expected to return the fewest games is used as the
+ * access path. When no such predicate is present, all games are scanned.
+ * Values of predicates are translated into dictionary ids once, so checks
+ * of games compare only numbers, and value no game has makes the plan read
+ * nothing at all.
+ * <p>
+ * Games are read in order of loading by scan and by title index and in
+ * order of release by other indexes, the plan sorts them only when that
+ * order differs from the requested one, otherwise it stops reading at
+ * the limit.
+ */
+final class QueryPlan {
+    private static final int[] NONE = new int[0];
+
+    private final GameCatalog catalog;
+    private final GameQuery query;
+    private final int[] genreIds;
+    private final int[] developerIds;
+    private final int[] publisherIds;
+    /**
+     * Tests of exact titles and parts of titles, prepared once for all games
+     */
+    private final IntPredicate[] titleChecks;
+    private final Access access;
+    /**
+     * Title predicate answered by title index, exact title or its part
+     */
+    private String titleSeed;
+    private boolean titleSeedExact;
+
+    /**
+     * Way in which games are read.
+     */
+    private enum Access {
+        NOTHING("nothing"),
+        SCAN("scan"),
+        GENRE_INDEX("genre index"),
+        PUBLISHER_INDEX("publisher index"),
+        YEAR_INDEX("year index"),
+        TITLE_INDEX("title index");
+
+        private final String description;
+
+        Access(String description) {
+            this.description = description;
+        }
+    }
+
+    /**
+     * Compiles query into a plan.
+     *
+     * @param catalog version of catalog the query runs on
+     * @param query   query to be executed
+     */
+    QueryPlan(GameCatalog catalog, GameQuery query) {
+        this.catalog = catalog;
+        this.query = query;
+        this.genreIds = ids(catalog.genres(), query.genres());
+        this.developerIds = ids(catalog.developers(), query.developers());
+        this.publisherIds = ids(catalog.publishers(), query.publishers());
+        this.titleChecks = titleChecks(catalog.titles(), query);
+        this.access = chooseAccess();
+    }
+
+    /**
+     * Prepares tests of all title predicates of query.
+     */
+    private static IntPredicate[] titleChecks(TitleColumn titles,
+                                              GameQuery query) {
+        return Stream.concat(
+                        query.titles().stream().map(titles::equalTo),
+                        query.titleParts().stream().map(titles::containing))
+                .toArray(IntPredicate[]::new);
+    }
+
+    /**
+     * Translates required values into dictionary ids.
+     */
+    private static int[] ids(ValueColumn column, List<String> names) {
+        return GameCatalog.find(column, names.toArray(String[]::new));
+    }
+
+    private static boolean anyMissing(int[] ids) {
+        for (int id : ids) {
+            if (id == StringDictionary.MISSING) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Chooses access path reading the fewest games.
+     */
+    private Access chooseAccess() {
+        if (anyMissing(genreIds) || anyMissing(developerIds)
+                || anyMissing(publisherIds)
+                || query.releasedFrom() > query.releasedTo()) {
+            return Access.NOTHING;
+        }
+        Access best = Access.SCAN;
+        long bestSize = catalog.size();
+        if (genreIds.length > 0) {
+            long size = smallestPostings(catalog.genreIndex(), genreIds);
+            if (size < bestSize) {
+                best = Access.GENRE_INDEX;
+                bestSize = size;
+            }
+        }
+        if (publisherIds.length > 0) {
+            long size = smallestPostings(catalog.publisherIndex(),
+                    publisherIds);
+            if (size < bestSize) {
+                best = Access.PUBLISHER_INDEX;
+                bestSize = size;
+            }
+        }
+        if (query.releaseLimited()) {
+            YearIndex yearIndex = catalog.yearIndex();
+            long size = yearIndex.to(query.releasedTo())
+                    - yearIndex.from(query.releasedFrom());
+            if (size < bestSize) {
+                best = Access.YEAR_INDEX;
+                bestSize = size;
+            }
+        }
+        if (!query.titles().isEmpty() || !query.titleParts().isEmpty()) {
+            TitleIndex titleIndex = catalog.titleIndex();
+            for (String title : query.titles()) {
+                long size = titleIndex.prefixSize(title);
+                if (size < bestSize) {
+                    best = Access.TITLE_INDEX;
+                    bestSize = size;
+                    titleSeed = title;
+                    titleSeedExact = true;
+                }
+            }
+            for (String part : query.titleParts()) {
+                long size = titleIndex.containingSize(part);
+                if (size < bestSize) {
+                    best = Access.TITLE_INDEX;
+                    bestSize = size;
+                    titleSeed = part;
+                    titleSeedExact = false;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Estimates size of intersection of postings by the shortest list.
+     */
+    private static long smallestPostings(PostingsIndex index, int[] ids) {
+        long smallest = Long.MAX_VALUE;
+        for (int id : ids) {
+            smallest = Math.min(smallest, index.size(id));
+        }
+        return smallest;
+    }
+
+    /**
+     * Finds games of query in requested order.
+     *
+     * @return ids of at most limit games
+     */
+    int[] execute() {
+        if (readInRequestedOrder()) {
+            return select(query.limit());
+        }
+        int[] ids = select(Integer.MAX_VALUE);
+        Arrays.sort(ids);
+        if (query.order() == GameQuery.Order.RELEASE) {
+            sortByRelease(ids);
+        } else if (query.order() == GameQuery.Order.TITLE) {
+            sortByTitle(ids);
+        }
+        return ids.length > query.limit()
+                ? Arrays.copyOf(ids, query.limit())
+                : ids;
+    }
+
+    /**
+     * Orders ids the same way as order of index of years, by year and then
+     * by order of loading.
+     */
+    private void sortByRelease(int[] ids) {
+        // Year in upper half and id in lower half, as in YearIndex
+        long[] keys = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            keys[i] = ((long) catalog.year(ids[i]) << Integer.SIZE) | ids[i];
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (int) keys[i];
+        }
+    }
+
+    /**
+     * Orders ids by title and then by order of loading.
+     */
+    private void sortByTitle(int[] ids) {
+        // Rank of title in upper half and id in lower half
+        int[] ranks = catalog.titleRanks();
+        long[] keys = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            keys[i] = ((long) ranks[ids[i]] << Integer.SIZE) | ids[i];
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (int) keys[i];
+        }
+    }
+
+    /**
+     * Counts games of query without creating them.
+     *
+     * @return number of games {@link #execute()} would find
+     */
+    int count() {
+        return select(query.limit()).length;
+    }
+
+    /**
+     * Counts games of query for every value of field.
+     *
+     * @param field field games are grouped by
+     * @return at most limit entries of value and number of games
+     * in descending order, values with equal counts keep order of their
+     * first appearance in loaded games
+     */
+    List<Map.Entry<String, Integer>> countBy(GameQuery.Field field) {
+        int[] ids = select(Integer.MAX_VALUE);
+        Arrays.sort(ids);
+        List<Map.Entry<String, Integer>> groups = switch (field) {
+            case YEAR -> countYears(ids);
+            case GENRE -> countValues(catalog.genres(), ids);
+            case DEVELOPER -> countValues(catalog.developers(), ids);
+            case PUBLISHER -> countValues(catalog.publishers(), ids);
+        };
+        groups.sort(Comparator.comparingInt(
+                (Map.Entry<String, Integer> entry) -> entry.getValue())
+                .reversed());
+        return groups.size() > query.limit()
+                ? new ArrayList<>(groups.subList(0, query.limit()))
+                : groups;
+    }
+
+    /**
+     * Counts releases of games, games to be announced are counted under
+     * {@link GameCatalog#TBA_TAG}.
+     */
+    private List<Map.Entry<String, Integer>> countYears(int[] ids) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (int id : ids) {
+            counts.merge(catalog.released(id), 1, Integer::sum);
+        }
+        return new ArrayList<>(counts.entrySet());
+    }
+
+    /**
+     * Counts values of column in a single array indexed by dictionary id.
+     */
+    private static List<Map.Entry<String, Integer>> countValues(
+            ValueColumn column, int[] ids) {
+        int[] counts = new int[column.distinct()];
+        int[] appearance = new int[column.distinct()];
+        int distinct = 0;
+        for (int id : ids) {
+            for (int i = column.start(id); i < column.end(id); i++) {
+                int value = column.value(i);
+                if (counts[value]++ == 0) {
+                    appearance[distinct++] = value;
+                }
+            }
+        }
+        List<Map.Entry<String, Integer>> groups = new ArrayList<>(distinct);
+        for (int i = 0; i < distinct; i++) {
+            int value = appearance[i];
+            groups.add(Map.entry(column.name(value), counts[value]));
+        }
+        return groups;
+    }
+
+    /**
+     * Check whether access path already reads games in requested order.
+     */
+    private boolean readInRequestedOrder() {
+        return switch (query.order()) {
+            case LOADING -> access == Access.SCAN || access == Access.NOTHING
+                    || access == Access.TITLE_INDEX;
+            case RELEASE -> access != Access.TITLE_INDEX;
+            case TITLE -> access == Access.NOTHING;
+        };
+    }
+
+    /**
+     * Reads games of access path and keeps those fulfilling all other
+     * predicates.
+     *
+     * @param limit number of games after which reading stops
+     * @return ids of games in order of access path
+     */
+    private int[] select(int limit) {
+        int[] ids = new int[Math.min(limit, catalog.size())];
+        int found = 0;
+        if (access == Access.NOTHING) {
+            return NONE;
+        } else if (access == Access.SCAN) {
+            int[] releaseOrder = query.order() == GameQuery.Order.RELEASE
+                    ? catalog.yearIndex().order()
+                    : null;
+            for (int i = 0; i < catalog.size() && found < ids.length; i++) {
+                int id = releaseOrder == null ? i : releaseOrder[i];
+                if (accepts(id)) {
+                    ids[found++] = id;
+                }
+            }
+        } else if (access == Access.TITLE_INDEX) {
+            int[] candidates = titleCandidates();
+            for (int i = 0; i < candidates.length && found < ids.length; i++) {
+                if (accepts(candidates[i])) {
+                    ids[found++] = candidates[i];
+                }
+            }
+        } else {
+            int[] releaseOrder = catalog.yearIndex().order();
+            int[] positions = switch (access) {
+                case GENRE_INDEX -> catalog.genreIndex().all(genreIds);
+                case PUBLISHER_INDEX ->
+                        catalog.publisherIndex().all(publisherIds);
+                default -> catalog.releasedBetween(query.releasedFrom(),
+                        query.releasedTo());
+            };
+            for (int i = 0; i < positions.length && found < ids.length; i++) {
+                int id = releaseOrder[positions[i]];
+                if (accepts(id)) {
+                    ids[found++] = id;
+                }
+            }
+        }
+        return Arrays.copyOf(ids, found);
+    }
+
+    /**
+     * Finds games by title index. Index ignores case of letters, so it may
+     * return more games than the title predicate accepts.
+     *
+     * @return ascending ids of games
+     */
+    private int[] titleCandidates() {
+        TitleIndex titleIndex = catalog.titleIndex();
+        if (titleSeedExact) {
+            int[] ids = titleIndex.prefix(titleSeed, Integer.MAX_VALUE);
+            Arrays.sort(ids);
+            return ids;
+        }
+        return titleIndex.containing(titleSeed);
+    }
+
+    /**
+     * Checks predicates which are not answered by access path.
+     */
+    private boolean accepts(int id) {
+        if (access != Access.GENRE_INDEX
+                && !containsAll(catalog.genres(), id, genreIds)) {
+            return false;
+        }
+        if (access != Access.PUBLISHER_INDEX
+                && !containsAll(catalog.publishers(), id, publisherIds)) {
+            return false;
+        }
+        if (!containsAll(catalog.developers(), id, developerIds)) {
+            return false;
+        }
+        if (access != Access.YEAR_INDEX && query.releaseLimited()) {
+            int year = catalog.year(id);
+            if (year == GameCatalog.TBA || year == GameCatalog.UNKNOWN
+                    || year < query.releasedFrom()
+                    || year > query.releasedTo()) {
+                return false;
+            }
+        }
+        for (IntPredicate check : titleChecks) {
+            if (!check.test(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsAll(ValueColumn column, int id, int[] ids) {
+        for (int value : ids) {
+            if (!column.contains(id, value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Describes steps of plan, such as
+     * {@code genre index -> filter developer -> sort by title -> limit 10}.
+     *
+     * @return steps of plan separated by arrows
+     */
+    @Override
+    public String toString() {
+        List<String> steps = new ArrayList<>();
+        if (access == Access.SCAN) {
+            steps.add(query.order() == GameQuery.Order.RELEASE
+                    ? "scan in release order"
+                    : "scan in loading order");
+        } else {
+            steps.add(access.description);
+        }
+        if (access != Access.NOTHING) {
+            if (access != Access.GENRE_INDEX && genreIds.length > 0) {
+                steps.add("filter genre");
+            }
+            if (access != Access.PUBLISHER_INDEX && publisherIds.length > 0) {
+                steps.add("filter publisher");
+            }
+            if (developerIds.length > 0) {
+                steps.add("filter developer");
+            }
+            if (access != Access.YEAR_INDEX && query.releaseLimited()) {
+                steps.add("filter year");
+            }
+            if (!query.titles().isEmpty() || !query.titleParts().isEmpty()) {
+                steps.add("filter title");
+            }
+            if (!readInRequestedOrder()) {
+                steps.add(switch (query.order()) {
+                    case LOADING -> "sort by loading order";
+                    case RELEASE -> "sort by release order";
+                    case TITLE -> "sort by title";
+                });
+            }
+        }
+        if (query.limit() != Integer.MAX_VALUE) {
+            steps.add("limit " + query.limit());
+        }
+        return String.join(" -> ", steps);
+    }
+}
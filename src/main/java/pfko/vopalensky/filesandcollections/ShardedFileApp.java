@@ -0,0 +1,350 @@
+package pfko.vopalensky.filesandcollections;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Catalog of games split into shards, one shard for every loaded csv file.
+ * Files are parsed concurrently and every shard gets its own independent
+ * catalog with its own indexes. Unlike {@link FileApp}, games are
+ * deduplicated: a game with the same title and release as an already
+ * loaded one is skipped, whether it comes in another file or again in the
+ * same file. It is kept only where it appears first, where files loaded
+ * earlier and files earlier in the list come first.
+ * <p>
+ * Queries are scattered to all shards in parallel and partial results of
+ * shards are gathered in order of shards, so apart from the skipped
+ * duplicates the result equals the one of {@link FileApp} for the files
+ * loaded one after another. Shards are published through a single atomic
+ * reference like catalog of {@link FileApp}, so queries never block.
+ */
+public final class ShardedFileApp {
+    private static final String SIMULATOR_GENRE = "Simulator";
+
+    private final AtomicReference<List<GameCatalog>> shards =
+            new AtomicReference<>(List.of());
+    /**
+     * Titles and releases of all loaded games, used to skip duplicates
+     */
+    private final Set<GameKey> loaded = new HashSet<>();
+
+    /**
+     * Identity of a game across shards.
+     *
+     * @param title    title of game
+     * @param released release of game
+     */
+    private record GameKey(String title, String released) {
+    }
+
+    /**
+     * Loads every file into its own shard, files are parsed concurrently
+     * by as many threads as there are processors.
+     *
+     * @param files Paths to files where data about games are stored.
+     * @throws IOException Exception is thrown when there is a problem
+     *                     with any of files such as nonexistence, invalid
+     *                     format, emptiness. No shard is added then.
+     */
+    public void load(List<Path> files) throws IOException {
+        load(files, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Loads every file into its own shard, files are parsed concurrently.
+     *
+     * @param files       Paths to files where data about games are stored.
+     * @param parallelism Number of threads parsing the files.
+     * @throws IOException Exception is thrown when there is a problem
+     *                     with any of files such as nonexistence, invalid
+     *                     format, emptiness. No shard is added then.
+     */
+    public synchronized void load(List<Path> files, int parallelism)
+            throws IOException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(
+                    "Parallelism has to be positive");
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ForkJoinTask<List<Game>>> parsing = new ArrayList<>();
+            for (Path file : files) {
+                parsing.add(pool.submit(() -> FileApp.readMappedFile(file, 1)));
+            }
+            List<List<Game>> parsed = ChunkedCsvLoader.join(parsing);
+
+            // Duplicates are resolved sequentially, so the first occurrence
+            // in order of files always wins
+            Set<GameKey> keys = new HashSet<>();
+            List<List<Game>> unique = new ArrayList<>(parsed.size());
+            for (List<Game> games : parsed) {
+                List<Game> kept = new ArrayList<>(games.size());
+                for (Game game : games) {
+                    GameKey key = new GameKey(game.title(), game.released());
+                    if (!loaded.contains(key) && keys.add(key)) {
+                        kept.add(game);
+                    }
+                }
+                unique.add(kept);
+            }
+
+            List<ForkJoinTask<GameCatalog>> building = new ArrayList<>();
+            for (List<Game> games : unique) {
+                building.add(pool.submit(() -> build(games)));
+            }
+            List<GameCatalog> added = ChunkedCsvLoader.join(building);
+            List<GameCatalog> all = new ArrayList<>(shards.get());
+            all.addAll(added);
+            loaded.addAll(keys);
+            shards.set(List.copyOf(all));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates catalog of a single shard.
+     */
+    private static GameCatalog build(List<Game> games) {
+        GameCatalog.Builder builder = new GameCatalog.Builder();
+        for (Game game : games) {
+            builder.add(game);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Runs a query on all shards in parallel.
+     *
+     * @return partial results in order of shards
+     */
+    private static <T> List<T> scatter(List<GameCatalog> shards,
+                                       Function<GameCatalog, T> query) {
+        return shards.parallelStream().map(query).toList();
+    }
+
+    /**
+     * Returns number of shards.
+     *
+     * @return number of loaded files
+     */
+    public int getShardCount() {
+        return shards.get().size();
+    }
+
+    /**
+     * Returns all games of all shards.
+     *
+     * @return unmodifiable list of games, shard after shard
+     */
+    public List<Game> getGames() {
+        return new ShardList(shards.get());
+    }
+
+    /**
+     * Collects genres of all shards.
+     *
+     * @return List of unique genres from all games alphabetically ordered.
+     */
+    public List<String> getAllGenres() {
+        Set<String> genres = new TreeSet<>();
+        for (List<String> partial : scatter(shards.get(),
+                catalog -> GameCatalog.names(catalog.genres()))) {
+            genres.addAll(partial);
+        }
+        return new ArrayList<>(genres);
+    }
+
+    /**
+     * Get all games that has genre simulator.
+     *
+     * @return List of simulator games ordered by release.
+     */
+    public List<Game> getSimulatorGames() {
+        return getGameByGenre(SIMULATOR_GENRE);
+    }
+
+    /**
+     * Get all games that are in a concrete genre. Every shard finds its
+     * games in its own index and the ordered parts are merged.
+     *
+     * @param genre Genre the games should be in
+     * @return List of games with deemed genre ordered by release date,
+     * games released in the same year are ordered by shards.
+     */
+    public List<Game> getGameByGenre(String genre) {
+        List<GameCatalog> current = shards.get();
+        return mergeByRelease(current, scatter(current,
+                catalog -> catalog.genreIndex()
+                        .postings(catalog.genres().find(genre))));
+    }
+
+    /**
+     * Merges games found by shards into one release order. Positions of
+     * every shard are already in its order of release, so the game with
+     * the smallest year among the next games of all shards is taken each
+     * time, compared by year columns of shards. Games of equal years are
+     * taken from earlier shards first.
+     *
+     * @param shards    shards the positions belong to
+     * @param positions ascending positions in order of release of every
+     *                  shard
+     * @return games of all shards ordered by release
+     */
+    private static List<Game> mergeByRelease(List<GameCatalog> shards,
+                                             List<int[]> positions) {
+        int[][] orders = new int[shards.size()][];
+        int[] next = new int[shards.size()];
+        int total = 0;
+        for (int shard = 0; shard < shards.size(); shard++) {
+            orders[shard] = shards.get(shard).yearIndex().order();
+            total += positions.get(shard).length;
+        }
+        Game[] games = new Game[total];
+        for (int i = 0; i < total; i++) {
+            int best = -1;
+            int bestYear = 0;
+            for (int shard = 0; shard < shards.size(); shard++) {
+                int[] found = positions.get(shard);
+                if (next[shard] < found.length) {
+                    int year = shards.get(shard)
+                            .year(orders[shard][found[next[shard]]]);
+                    if (best == -1 || year < bestYear) {
+                        best = shard;
+                        bestYear = year;
+                    }
+                }
+            }
+            int position = positions.get(best)[next[best]++];
+            games[i] = shards.get(best).game(orders[best][position]);
+        }
+        return List.of(games);
+    }
+
+    /**
+     * Counts number of released games in each year.
+     *
+     * @return Map of year and number of games released in that year,
+     * ordered by year. Games to be announced are not counted.
+     */
+    public SortedMap<Integer, Integer> getReleaseCounts() {
+        SortedMap<Integer, Integer> counts = new TreeMap<>();
+        for (SortedMap<Integer, Integer> partial : scatter(shards.get(),
+                catalog -> catalog.yearIndex().counts())) {
+            partial.forEach((year, count) ->
+                    counts.merge(year, count, Integer::sum));
+        }
+        return counts;
+    }
+
+    /**
+     * Counts number of published games for each publisher. Every shard
+     * counts its own games and the partial counts are summed.
+     *
+     * @return List of entries where key is name of publisher and value
+     * is number of published games. List is in descending order,
+     * publishers with equal counts keep order of their first appearance.
+     */
+    public List<Map.Entry<String, Integer>> getPublisherCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (Map<String, Integer> partial : scatter(shards.get(),
+                catalog -> counts(catalog.publishers()))) {
+            partial.forEach((publisher, count) ->
+                    counts.merge(publisher, count, Integer::sum));
+        }
+        List<Map.Entry<String, Integer>> list =
+                new ArrayList<>(counts.entrySet());
+        list.sort(Comparator.comparingInt(
+                (Map.Entry<String, Integer> entry) -> entry.getValue())
+                .reversed());
+        return list;
+    }
+
+    /**
+     * Estimates number of distinct values of field among games of all
+     * shards. Every shard creates its own sketch and sketches are merged,
+     * see {@link HyperLogLog}.
+     *
+     * @param field Field whose values are counted.
+     * @return Estimated number of distinct values.
+     */
+    public long getDistinctCount(GameQuery.Field field) {
+        HyperLogLog merged = new HyperLogLog();
+        for (HyperLogLog sketch : scatter(shards.get(),
+                catalog -> CatalogSketches.sketch(catalog, field))) {
+            merged.merge(sketch);
+        }
+        return merged.estimate();
+    }
+
+    /**
+     * Counts values of column of a single shard.
+     *
+     * @return counts of used values in order of their first appearance
+     */
+    private static Map<String, Integer> counts(ValueColumn column) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (int id = 0; id < column.distinct(); id++) {
+            if (column.count(id) > 0) {
+                counts.put(column.name(id), column.count(id));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Unmodifiable list view of games of all shards.
+     */
+    private static final class ShardList extends AbstractList<Game>
+            implements RandomAccess {
+        private final List<GameCatalog> shards;
+        /**
+         * Index of the first game of every shard, with one extra item
+         */
+        private final int[] starts;
+
+        private ShardList(List<GameCatalog> shards) {
+            this.shards = shards;
+            this.starts = new int[shards.size() + 1];
+            for (int i = 0; i < shards.size(); i++) {
+                starts[i + 1] = starts[i] + shards.get(i).size();
+            }
+        }
+
+        @Override
+        public Game get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            int found = Arrays.binarySearch(starts, index);
+            int shard = found >= 0 ? found : -found - 2;
+            // Empty shards start at the same index as the following shard
+            while (starts[shard + 1] <= index) {
+                shard++;
+            }
+            return shards.get(shard).game(index - starts[shard]);
+        }
+
+        @Override
+        public int size() {
+            return starts[shards.size()];
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package pfko.vopalensky.filesandcollections;
+
+import pfko.vopalensky.filesandcollections.exceptions.InvalidFileFormatException;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads binary snapshot of catalog written by {@link SnapshotWriter} from
+ * a memory segment, usually a memory mapped file. Arrays of numbers are
+ * copied out of the segment in bulk without any parsing.
+ */
+final class SnapshotReader {
+    private static final ValueLayout.OfInt INT =
+            ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG =
+            ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final MemorySegment segment;
+    private long position;
+    private byte[] buffer = new byte[64];
+
+    /**
+     * Creates reader starting at given offset of segment.
+     *
+     * @param segment  content of snapshot
+     * @param position offset of the first byte to be read
+     */
+    SnapshotReader(MemorySegment segment, long position) {
+        this.segment = segment;
+        this.position = position;
+    }
+
+    /**
+     * Reads a single number.
+     *
+     * @return read number
+     * @throws InvalidFileFormatException When snapshot ends too early.
+     */
+    int readInt() throws InvalidFileFormatException {
+        require(Integer.BYTES);
+        int value = segment.get(INT, position);
+        position += Integer.BYTES;
+        return value;
+    }
+
+    /**
+     * Reads a single long number.
+     *
+     * @return read number
+     * @throws InvalidFileFormatException When snapshot ends too early.
+     */
+    long readLong() throws InvalidFileFormatException {
+        require(Long.BYTES);
+        long value = segment.get(LONG, position);
+        position += Long.BYTES;
+        return value;
+    }
+
+    /**
+     * Reads count of numbers followed by the numbers.
+     *
+     * @return new array of read numbers
+     * @throws InvalidFileFormatException When snapshot ends too early.
+     */
+    int[] readInts() throws InvalidFileFormatException {
+        int count = readCount(Integer.BYTES);
+        int[] values = new int[count];
+        MemorySegment.copy(segment, INT, position, values, 0, count);
+        position += (long) count * Integer.BYTES;
+        return values;
+    }
+
+    /**
+     * Reads string written as UTF-8 length followed by UTF-8 bytes.
+     *
+     * @return read string
+     * @throws InvalidFileFormatException When snapshot ends too early.
+     */
+    String readString() throws InvalidFileFormatException {
+        int length = readCount(1);
+        if (length > buffer.length) {
+            buffer = new byte[Math.max(length, buffer.length * 2)];
+        }
+        MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, position,
+                buffer, 0, length);
+        position += length;
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads count of strings followed by the strings.
+     *
+     * @return new array of read strings
+     * @throws InvalidFileFormatException When snapshot ends too early.
+     */
+    String[] readStrings() throws InvalidFileFormatException {
+        // Every string takes at least bytes of its length
+        String[] values = new String[readCount(Integer.BYTES)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readString();
+        }
+        return values;
+    }
+
+    /**
+     * Reads count of items and checks that snapshot is long enough for them.
+     */
+    private int readCount(int itemSize) throws InvalidFileFormatException {
+        int count = readInt();
+        if (count < 0) {
+            throw new InvalidFileFormatException();
+        }
+        require((long) count * itemSize);
+        return count;
+    }
+
+    /**
+     * Checks that given number of bytes can be read.
+     */
+    private void require(long bytes) throws InvalidFileFormatException {
+        if (bytes > segment.byteSize() - position) {
+            throw new InvalidFileFormatException();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package pfko.vopalensky.filesandcollections;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Writes binary snapshot of catalog, see {@link CatalogSnapshot}. Numbers
+ * are written in little endian order through a fixed buffer straight into
+ * file channel and checksum of everything written after header is updated
+ * on every flush of the buffer.
+ */
+final class SnapshotWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32 checksum = new CRC32();
+    private long length;
+
+    /**
+     * Creates (or overwrites) file and leaves space for header at its start.
+     *
+     * @param file       file to be written
+     * @param headerSize number of bytes reserved for header
+     * @throws IOException When file cannot be created.
+     */
+    SnapshotWriter(Path file, int headerSize) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        channel.position(headerSize);
+    }
+
+    /**
+     * Writes a single number.
+     *
+     * @param value number to be written
+     * @throws IOException When writing into file fails.
+     */
+    void writeInt(int value) throws IOException {
+        ensure(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    /**
+     * Writes count of numbers followed by the numbers.
+     *
+     * @param values array of numbers
+     * @param count  number of items of array to be written
+     * @throws IOException When writing into file fails.
+     */
+    void writeInts(int[] values, int count) throws IOException {
+        writeInt(count);
+        int written = 0;
+        while (written < count) {
+            ensure(Integer.BYTES);
+            int chunk = Math.min(count - written,
+                    buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().put(values, written, chunk);
+            buffer.position(buffer.position() + chunk * Integer.BYTES);
+            written += chunk;
+        }
+    }
+
+    /**
+     * Writes string as its UTF-8 length followed by UTF-8 bytes.
+     *
+     * @param value string to be written
+     * @throws IOException When writing into file fails.
+     */
+    void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        int written = 0;
+        while (written < bytes.length) {
+            ensure(1);
+            int chunk = Math.min(bytes.length - written, buffer.remaining());
+            buffer.put(bytes, written, chunk);
+            written += chunk;
+        }
+    }
+
+    /**
+     * Writes count of strings followed by the strings.
+     *
+     * @param values array of strings
+     * @param count  number of items of array to be written
+     * @throws IOException When writing into file fails.
+     */
+    void writeStrings(String[] values, int count) throws IOException {
+        writeInt(count);
+        for (int i = 0; i < count; i++) {
+            writeString(values[i]);
+        }
+    }
+
+    /**
+     * Makes room for given number of bytes in buffer.
+     */
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes content of buffer into file.
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        checksum.update(buffer.duplicate());
+        length += buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes everything buffered and returns checksum of written data.
+     *
+     * @return CRC32 of all bytes written after header
+     * @throws IOException When writing into file fails.
+     */
+    int finish() throws IOException {
+        flush();
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * Returns number of bytes written after header.
+     *
+     * @return length of payload, valid after {@link #finish()}
+     */
+    long length() {
+        return length;
+    }
+
+    /**
+     * Writes header at the start of file.
+     *
+     * @param header complete header
+     * @throws IOException When writing into file fails.
+     */
+    void writeHeader(ByteBuffer header) throws IOException {
+        channel.position(0);
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+    }
+
+    /**
+     * Closes file.
+     *
+     * @throws IOException When file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,202 @@
+package pfko.vopalensky.filesandcollections;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Approximate counter of the most frequent strings of a stream, using the
+ * SpaceSaving algorithm. Only a fixed number of strings is monitored, when
+ * a new string comes and all places are taken, it replaces the string with
+ * the lowest count and takes over its count as a possible error.
+ * <p>
+ * Estimated count of every monitored string is never lower than its real
+ * count and higher by at most {@link #error(String)}. Every string that
+ * occurs more than {@code n / capacity} times in a stream of n strings is
+ * guaranteed to be monitored. Summaries of parts of a stream can be merged,
+ * so the counter can be used from parallel streams.
+ */
+public final class SpaceSaving {
+    private final int capacity;
+    /**
+     * Monitored strings kept in a binary heap by count, the lowest count is
+     * at index 0
+     */
+    private final String[] items;
+    private final int[] counts;
+    private final int[] errors;
+    private final Map<String, Integer> positions = new HashMap<>();
+    private int size;
+
+    /**
+     * Creates empty counter.
+     *
+     * @param capacity maximal number of monitored strings
+     */
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity has to be positive");
+        }
+        this.capacity = capacity;
+        this.items = new String[capacity];
+        this.counts = new int[capacity];
+        this.errors = new int[capacity];
+    }
+
+    /**
+     * Counts one occurrence of string.
+     *
+     * @param item string to be counted
+     */
+    public void add(String item) {
+        Integer position = positions.get(item);
+        if (position != null) {
+            counts[position]++;
+            siftDown(position);
+        } else if (size < capacity) {
+            set(size, item, 1, 0);
+            siftUp(size++);
+        } else {
+            positions.remove(items[0]);
+            set(0, item, counts[0] + 1, counts[0]);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Adds counts of another counter into this one. Strings not monitored
+     * by one of counters may have occurred there as many times as its
+     * lowest count, which is added to both their count and error.
+     *
+     * @param other counter of another part of stream
+     */
+    public void merge(SpaceSaving other) {
+        int missingHere = size == capacity ? counts[0] : 0;
+        int missingThere = other.size == other.capacity ? other.counts[0] : 0;
+        Map<String, int[]> merged = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            merged.put(items[i], new int[]{counts[i] + missingThere,
+                    errors[i] + missingThere});
+        }
+        for (int i = 0; i < other.size; i++) {
+            int[] counted = merged.get(other.items[i]);
+            if (counted == null) {
+                merged.put(other.items[i], new int[]{
+                        other.counts[i] + missingHere,
+                        other.errors[i] + missingHere});
+            } else {
+                counted[0] += other.counts[i] - missingThere;
+                counted[1] += other.errors[i] - missingThere;
+            }
+        }
+        List<Map.Entry<String, int[]>> entries =
+                new ArrayList<>(merged.entrySet());
+        entries.sort(Comparator.comparingInt(
+                (Map.Entry<String, int[]> entry) -> entry.getValue()[0])
+                .reversed());
+        positions.clear();
+        size = 0;
+        for (int i = 0; i < entries.size() && size < capacity; i++) {
+            int[] counted = entries.get(i).getValue();
+            set(size, entries.get(i).getKey(), counted[0], counted[1]);
+            siftUp(size++);
+        }
+    }
+
+    /**
+     * Returns estimated count of string.
+     *
+     * @param item counted string
+     * @return upper bound of real count, 0 if string is not monitored
+     */
+    public int count(String item) {
+        Integer position = positions.get(item);
+        return position == null ? 0 : counts[position];
+    }
+
+    /**
+     * Returns maximal overestimation of count of string.
+     *
+     * @param item counted string
+     * @return difference between estimated count and its lower bound
+     */
+    public int error(String item) {
+        Integer position = positions.get(item);
+        return position == null ? 0 : errors[position];
+    }
+
+    /**
+     * Returns strings with the highest estimated counts.
+     *
+     * @param k maximal number of strings
+     * @return at most k entries of string and estimated count in descending
+     * order, strings with equal counts are ordered alphabetically
+     */
+    public List<Map.Entry<String, Integer>> top(int k) {
+        List<Map.Entry<String, Integer>> top = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            top.add(Map.entry(items[i], counts[i]));
+        }
+        top.sort(Comparator.comparingInt(
+                        (Map.Entry<String, Integer> entry) -> entry.getValue())
+                .reversed()
+                .thenComparing(Map.Entry::getKey));
+        return top.subList(0, Math.min(k, top.size()));
+    }
+
+    /**
+     * Stores monitored string at position of heap.
+     */
+    private void set(int position, String item, int count, int error) {
+        items[position] = item;
+        counts[position] = count;
+        errors[position] = error;
+        positions.put(item, position);
+    }
+
+    /**
+     * Swaps two positions of heap.
+     */
+    private void swap(int a, int b) {
+        String item = items[a];
+        int count = counts[a];
+        int error = errors[a];
+        set(a, items[b], counts[b], errors[b]);
+        set(b, item, count, error);
+    }
+
+    /**
+     * Moves string at position up while its count is lower than count of
+     * its parent.
+     */
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (counts[position] >= counts[parent]) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    /**
+     * Moves string at position down while any of its children has lower
+     * count.
+     */
+    private void siftDown(int position) {
+        int child;
+        while ((child = 2 * position + 1) < size) {
+            if (child + 1 < size && counts[child + 1] < counts[child]) {
+                child++;
+            }
+            if (counts[child] >= counts[position]) {
+                return;
+            }
+            swap(position, child);
+            position = child;
+        }
+    }
+}
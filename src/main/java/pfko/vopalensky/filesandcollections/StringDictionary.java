@@ -0,0 +1,111 @@
+package pfko.vopalensky.filesandcollections;
+
+import pfko.vopalensky.filesandcollections.exceptions.InvalidFileFormatException;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns small integer ids to strings, so every distinct string is stored
+ * only once and columns can hold plain ids instead of references.
+ * <p>
+ * Dictionary only grows. Ids are assigned in order of first appearance
+ * and once assigned they never change. Strings are added by a single thread
+ * at a time, but published catalogs look them up from any thread while
+ * new strings are added, so lookups never see a partially added string.
+ */
+final class StringDictionary {
+    private static final int INITIAL_CAPACITY = 16;
+    static final int MISSING = -1;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    /**
+     * Volatile, so grown array is seen by readers with all its content
+     */
+    private volatile String[] values = new String[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Returns id of given string, string which is not yet in dictionary
+     * gets a new id.
+     *
+     * @param value string to be looked up or added
+     * @return id of string
+     */
+    int add(String value) {
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        String[] current = values;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, size * 2);
+        }
+        current[size] = value;
+        values = current;
+        ids.put(value, size);
+        return size++;
+    }
+
+    /**
+     * Finds id of given string.
+     *
+     * @param value string to be looked up
+     * @return id of string or {@link #MISSING} if string is not in dictionary
+     */
+    int find(String value) {
+        Integer id = ids.get(value);
+        return id == null ? MISSING : id;
+    }
+
+    /**
+     * Returns string with given id.
+     *
+     * @param id id of string
+     * @return string stored under the id
+     */
+    String get(int id) {
+        return values[id];
+    }
+
+    /**
+     * Returns number of strings in dictionary.
+     *
+     * @return count of distinct strings
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Writes first strings of dictionary into snapshot.
+     *
+     * @param writer writer of snapshot
+     * @param count  number of strings to be written
+     * @throws IOException When writing into file fails.
+     */
+    void write(SnapshotWriter writer, int count) throws IOException {
+        writer.writeStrings(values, count);
+    }
+
+    /**
+     * Reads dictionary from snapshot, strings get the same ids they had
+     * when the snapshot was written.
+     *
+     * @param reader reader of snapshot
+     * @return new dictionary
+     * @throws InvalidFileFormatException When snapshot is damaged.
+     */
+    static StringDictionary read(SnapshotReader reader)
+            throws InvalidFileFormatException {
+        StringDictionary dictionary = new StringDictionary();
+        for (String value : reader.readStrings()) {
+            if (dictionary.add(value) != dictionary.size - 1) {
+                throw new InvalidFileFormatException();
+            }
+        }
+        return dictionary;
+    }
+}
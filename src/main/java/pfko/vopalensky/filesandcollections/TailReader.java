@@ -0,0 +1,148 @@
+package pfko.vopalensky.filesandcollections;
+
+import pfko.vopalensky.filesandcollections.exceptions.EmptyFileException;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads lines appended to a csv file since the previous read. Reader
+ * remembers the byte offset after the last line it parsed and every read
+ * maps only the part of file after that offset, so its cost depends on size
+ * of appended data and not on size of the whole file.
+ * <p>
+ * Only lines ended by a line terminator are read, a line which is still
+ * being written is left for the next read. Invalid lines are skipped and
+ * counted, so they do not block lines appended after them.
+ */
+final class TailReader {
+    private static final byte NEW_LINE = '\n';
+
+    private final Path file;
+    private final ByteCsvTokenizer tokenizer = new ByteCsvTokenizer(
+            FileApp.csvProperties.values().length, StandardCharsets.UTF_8);
+    private long offset;
+    /**
+     * Number of invalid lines skipped by the last read
+     */
+    private int rejected;
+
+    /**
+     * Creates reader which has not read anything yet.
+     *
+     * @param file csv file to be read
+     */
+    TailReader(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Getter for followed file.
+     *
+     * @return path to file
+     */
+    Path file() {
+        return file;
+    }
+
+    /**
+     * Getter for number of invalid lines skipped by the last read.
+     *
+     * @return number of skipped lines
+     */
+    int rejected() {
+        return rejected;
+    }
+
+    /**
+     * Parses all complete lines appended since previous read. Offset moves
+     * after all of them, invalid lines are skipped and counted by
+     * {@link #rejected()}, they are not read again.
+     *
+     * @return games of valid lines in order of file
+     * @throws IOException When file cannot be read,
+     *                     {@link EmptyFileException} when file does not start
+     *                     with line of headers.
+     */
+    List<Game> read() throws IOException {
+        List<Game> games = new ArrayList<>();
+        rejected = 0;
+        try (FileChannel channel = FileChannel.open(file);
+             Arena arena = Arena.ofConfined()) {
+            long size = channel.size();
+            if (size == 0 && offset == 0) {
+                throw new EmptyFileException();
+            }
+            if (size <= offset) {
+                return games;
+            }
+            MemorySegment appended = channel.map(FileChannel.MapMode.READ_ONLY,
+                    offset, size - offset, arena);
+            long complete = lastLineEnd(appended);
+            long position = 0;
+            if (offset == 0 && complete > 0) {
+                // Skip headers line
+                long headerEnd = ChunkedCsvLoader.lineEnd(appended, 0);
+                if (headerEnd == 0) {
+                    throw new EmptyFileException();
+                }
+                position = ChunkedCsvLoader.nextLine(appended, headerEnd);
+            }
+            MemorySegment lines = appended.asSlice(0, complete);
+            while (position < complete) {
+                long end = ChunkedCsvLoader.lineEnd(lines, position);
+                if (end > position) {
+                    if (tokenizer.tokenize(lines, position, end)) {
+                        games.add(FileApp.toGame(tokenizer));
+                    } else {
+                        rejected++;
+                    }
+                }
+                position = ChunkedCsvLoader.nextLine(lines, end);
+            }
+            offset += complete;
+        }
+        return games;
+    }
+
+    /**
+     * Checks whether file got shorter than already read part, which means
+     * that it was truncated or replaced.
+     *
+     * @return true if content read so far is no longer in file
+     * @throws IOException When file cannot be read.
+     */
+    boolean truncated() throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            return channel.size() < offset;
+        }
+    }
+
+    /**
+     * Starts reading from the beginning of file again.
+     */
+    void rewind() {
+        offset = 0;
+    }
+
+    /**
+     * Finds end of the last complete line.
+     *
+     * @return index after the last line terminator, 0 if there is none
+     */
+    private static long lastLineEnd(MemorySegment content) {
+        for (long i = content.byteSize() - 1; i >= 0; i--) {
+            if (content.get(ValueLayout.JAVA_BYTE, i) == NEW_LINE) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,104 @@
+package pfko.vopalensky.filesandcollections;
+
+import java.util.Comparator;
+import java.util.function.IntPredicate;
+
+/**
+ * Titles of all games of a catalog, indexed by id of game. Titles are kept
+ * either as strings on heap or as UTF-8 bytes outside of heap, see
+ * {@link OffHeapTitles}. Instances are immutable.
+ */
+interface TitleColumn {
+    /**
+     * Returns title of game.
+     *
+     * @param id id of game
+     * @return title as written in csv file
+     */
+    String title(int id);
+
+    /**
+     * Compares titles of two games.
+     *
+     * @param first  id of first game
+     * @param second id of second game
+     * @return negative number, zero or positive number when title of first
+     * game is less than, equal to or greater than title of second game
+     */
+    int compare(int first, int second);
+
+    /**
+     * Returns order of titles used by {@link #compare(int, int)}.
+     *
+     * @return comparator of titles as strings
+     */
+    Comparator<String> order();
+
+    /**
+     * Creates test whether game has exactly given title.
+     *
+     * @param title required title
+     * @return predicate on ids of games
+     */
+    IntPredicate equalTo(String title);
+
+    /**
+     * Creates test whether title of game contains given text, with regard
+     * to case.
+     *
+     * @param text required part of title
+     * @return predicate on ids of games
+     */
+    IntPredicate containing(String text);
+
+    /**
+     * Returns titles of the first games as strings.
+     *
+     * @param size number of games
+     * @return array holding at least size titles, it must not be modified
+     */
+    default String[] strings(int size) {
+        String[] strings = new String[size];
+        for (int id = 0; id < size; id++) {
+            strings[id] = title(id);
+        }
+        return strings;
+    }
+
+    /**
+     * Titles stored as strings in array shared with builder of catalog.
+     *
+     * @param titles title of every game
+     */
+    record Heap(String[] titles) implements TitleColumn {
+        @Override
+        public String title(int id) {
+            return titles[id];
+        }
+
+        @Override
+        public int compare(int first, int second) {
+            return titles[first].compareTo(titles[second]);
+        }
+
+        @Override
+        public Comparator<String> order() {
+            return Comparator.naturalOrder();
+        }
+
+        @Override
+        public IntPredicate equalTo(String title) {
+            return id -> titles[id].equals(title);
+        }
+
+        @Override
+        public IntPredicate containing(String text) {
+            return id -> titles[id].contains(text);
+        }
+
+        @Override
+        public String[] strings(int size) {
+            return titles;
+        }
+    }
+}
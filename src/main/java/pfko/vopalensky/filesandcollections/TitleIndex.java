@@ -0,0 +1,490 @@
+package pfko.vopalensky.filesandcollections;
+
+import java.util.Arrays;
+
+/**
+ * Index of titles of games for prefix, substring and similarity search.
+ * Titles are compared without regard to case, the same way as
+ * {@link String#equalsIgnoreCase(String)}.
+ * <p>
+ * Prefixes are looked up in ids of games sorted by title, games with a
+ * common prefix form one continuous part of that order which is found by
+ * two binary searches. Substrings are looked up in an inverted index of
+ * trigrams (every three consecutive characters of title), only games having
+ * all trigrams of the searched text can contain it, so only those are
+ * compared with it. The inverted index is stored in three flat arrays,
+ * sorted distinct trigrams and postings of all of them one after another,
+ * so it needs no object per trigram or per game.
+ */
+final class TitleIndex {
+    private static final int GRAM = 3;
+    private static final int[] NONE = new int[0];
+    /**
+     * Minimal similarity of titles found by {@link #similar(String, int)}
+     */
+    private static final double MIN_SIMILARITY = 0.3;
+
+    private final TitleColumn titles;
+    private final int size;
+    /**
+     * Ids of games ordered by title, games with equal titles keep order
+     * of loading
+     */
+    private final int[] sorted;
+    /**
+     * Distinct trigrams in ascending order, see {@link #gram(String, int)}
+     */
+    private final long[] grams;
+    /**
+     * Position in postings where games of each trigram start, with one
+     * extra item at the end
+     */
+    private final int[] starts;
+    /**
+     * Ascending ids of games having each trigram
+     */
+    private final int[] postings;
+
+    private TitleIndex(TitleColumn titles, int size, int[] sorted, long[] grams,
+                       int[] starts, int[] postings) {
+        this.titles = titles;
+        this.size = size;
+        this.sorted = sorted;
+        this.grams = grams;
+        this.starts = starts;
+        this.postings = postings;
+    }
+
+    /**
+     * Builds index of titles.
+     *
+     * @param titles title of every game
+     * @param size   number of games
+     * @return new index
+     */
+    static TitleIndex build(TitleColumn titles, int size) {
+        return new TitleIndex(titles, 0, NONE, new long[0], new int[1], NONE)
+                .extend(titles, size);
+    }
+
+    /**
+     * Creates index of more games from this index of the first games.
+     * Only titles of added games are sorted and split into trigrams,
+     * they are merged into the existing order and postings.
+     *
+     * @param titles title of every game, titles of indexed games are
+     *               the same as when this index was built
+     * @param size   number of games, at least the number of indexed games
+     * @return new index
+     */
+    TitleIndex extend(TitleColumn titles, int size) {
+        int from = this.size;
+        if (from == size) {
+            return this;
+        }
+        int count = size - from;
+        // Titles outside of heap are decoded only while the index is built
+        String[] strings = new String[count];
+        String[] folded = new String[count];
+        for (int i = 0; i < count; i++) {
+            strings[i] = titles.title(from + i);
+            folded[i] = fold(strings[i]);
+        }
+        String[] order = folded.clone();
+        Arrays.sort(order);
+
+        // Position of folded title in order (upper half) and id (lower
+        // half), so plain sort keeps games with equal titles by id
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            long rank = Arrays.binarySearch(order, folded[i]);
+            keys[i] = (rank << Integer.SIZE) | (from + i);
+        }
+        Arrays.sort(keys);
+        // Added games follow indexed games with equal titles
+        int[] merged = new int[size];
+        int length = 0;
+        int low = 0;
+        for (long key : keys) {
+            int id = (int) key;
+            int high = insertion(titles, folded[id - from], low);
+            System.arraycopy(sorted, low, merged, length, high - low);
+            length += high - low;
+            low = high;
+            merged[length++] = id;
+        }
+        System.arraycopy(sorted, low, merged, length, from - low);
+
+        // Distinct trigrams of added titles
+        int total = 0;
+        for (String title : strings) {
+            total += Math.max(title.length() - GRAM + 1, 0);
+        }
+        long[] all = new long[total];
+        int gramCount = 0;
+        for (String title : strings) {
+            for (int i = 0; i + GRAM <= title.length(); i++) {
+                all[gramCount++] = gram(title, i);
+            }
+        }
+        long[] added = distinct(all, gramCount);
+
+        // Union of indexed and added trigrams, with new index of every
+        // indexed trigram
+        long[] mergedGrams = new long[grams.length + added.length];
+        int[] moved = new int[grams.length];
+        int distinct = 0;
+        int i = 0;
+        int j = 0;
+        while (i < grams.length || j < added.length) {
+            if (j == added.length || (i < grams.length && grams[i] <= added[j])) {
+                if (j < added.length && grams[i] == added[j]) {
+                    j++;
+                }
+                moved[i] = distinct;
+                mergedGrams[distinct++] = grams[i++];
+            } else {
+                mergedGrams[distinct++] = added[j++];
+            }
+        }
+        mergedGrams = Arrays.copyOf(mergedGrams, distinct);
+
+        // Pairs of index of trigram (upper half) and id (lower half), so
+        // plain sort groups added games of trigram in ascending order
+        long[] pairs = new long[total];
+        gramCount = 0;
+        for (int k = 0; k < count; k++) {
+            for (int g = 0; g + GRAM <= strings[k].length(); g++) {
+                long index = Arrays.binarySearch(mergedGrams,
+                        gram(strings[k], g));
+                pairs[gramCount++] = (index << Integer.SIZE) | (from + k);
+            }
+        }
+        pairs = distinct(pairs, gramCount);
+
+        // Added games have larger ids, so they follow indexed games
+        // in postings of every trigram
+        int[] mergedStarts = new int[distinct + 1];
+        for (int g = 0; g < grams.length; g++) {
+            mergedStarts[moved[g] + 1] += postingsSize(g);
+        }
+        for (long pair : pairs) {
+            mergedStarts[(int) (pair >>> Integer.SIZE) + 1]++;
+        }
+        for (int g = 0; g < distinct; g++) {
+            mergedStarts[g + 1] += mergedStarts[g];
+        }
+        int[] mergedPostings = new int[mergedStarts[distinct]];
+        int[] next = Arrays.copyOf(mergedStarts, distinct);
+        for (int g = 0; g < grams.length; g++) {
+            System.arraycopy(postings, starts[g], mergedPostings,
+                    next[moved[g]], postingsSize(g));
+            next[moved[g]] += postingsSize(g);
+        }
+        for (long pair : pairs) {
+            mergedPostings[next[(int) (pair >>> Integer.SIZE)]++] = (int) pair;
+        }
+        return new TitleIndex(titles, size, merged, mergedGrams, mergedStarts,
+                mergedPostings);
+    }
+
+    /**
+     * Finds first position from {@code low} in sorted titles whose folded
+     * title is larger than given folded title.
+     */
+    private int insertion(TitleColumn titles, String folded, int low) {
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareFolded(titles.title(sorted[middle]), folded) > 0) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Sorts values and removes duplicates.
+     *
+     * @return new array of distinct values in ascending order
+     */
+    private static long[] distinct(long[] values, int count) {
+        Arrays.sort(values, 0, count);
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            if (length == 0 || values[length - 1] != values[i]) {
+                values[length++] = values[i];
+            }
+        }
+        return Arrays.copyOf(values, length);
+    }
+
+    /**
+     * Converts character into the same form for upper and lower case.
+     */
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Converts all characters of text into the same form for upper and
+     * lower case, so folded titles are ordered without regard to case
+     * by {@link String#compareTo(String)}.
+     */
+    private static String fold(String text) {
+        char[] chars = new char[text.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = fold(text.charAt(i));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Packs three folded characters starting at given index into a number.
+     */
+    private static long gram(String text, int index) {
+        return ((long) fold(text.charAt(index)) << (2 * Character.SIZE))
+                | ((long) fold(text.charAt(index + 1)) << Character.SIZE)
+                | fold(text.charAt(index + 2));
+    }
+
+    /**
+     * Compares title with already folded title without regard to case,
+     * the same way as their folded forms are compared.
+     */
+    private static int compareFolded(String title, String folded) {
+        int length = Math.min(title.length(), folded.length());
+        for (int i = 0; i < length; i++) {
+            int difference = fold(title.charAt(i)) - folded.charAt(i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return title.length() - folded.length();
+    }
+
+    /**
+     * Compares beginning of title with prefix without regard to case.
+     *
+     * @return 0 if title starts with prefix, otherwise the same sign as
+     * comparison of folded title and folded prefix, see
+     * {@link #fold(String)}
+     */
+    private static int comparePrefix(String title, String prefix) {
+        for (int i = 0; i < prefix.length(); i++) {
+            if (i == title.length()) {
+                return -1;
+            }
+            int difference = fold(title.charAt(i)) - fold(prefix.charAt(i));
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Finds first position in sorted titles whose comparison with prefix
+     * is larger than given bound.
+     */
+    private int search(String prefix, int bound) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (comparePrefix(titles.title(sorted[middle]), prefix) > bound) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Counts games whose title starts with prefix.
+     *
+     * @param prefix beginning of title
+     * @return number of games
+     */
+    int prefixSize(String prefix) {
+        return search(prefix, 0) - search(prefix, -1);
+    }
+
+    /**
+     * Finds games whose title starts with prefix.
+     *
+     * @param prefix beginning of title
+     * @param limit  maximal number of games
+     * @return ids of at most limit games ordered by title
+     */
+    int[] prefix(String prefix, int limit) {
+        int from = search(prefix, -1);
+        int to = search(prefix, 0);
+        return Arrays.copyOfRange(sorted, from,
+                from + Math.min(to - from, limit));
+    }
+
+    /**
+     * Estimates number of games whose title contains text by the shortest
+     * postings of its trigrams.
+     *
+     * @param text searched text
+     * @return upper bound of number of games
+     */
+    int containingSize(String text) {
+        if (text.length() < GRAM) {
+            return size;
+        }
+        int smallest = Integer.MAX_VALUE;
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            int index = Arrays.binarySearch(grams, gram(text, i));
+            smallest = Math.min(smallest,
+                    index < 0 ? 0 : starts[index + 1] - starts[index]);
+        }
+        return smallest;
+    }
+
+    /**
+     * Finds games whose title contains text.
+     *
+     * @param text searched text
+     * @return ascending ids of games
+     */
+    int[] containing(String text) {
+        int[] candidates;
+        int length;
+        if (text.length() < GRAM) {
+            // Text has no trigram, every title has to be compared
+            candidates = new int[size];
+            for (int id = 0; id < size; id++) {
+                candidates[id] = id;
+            }
+            length = size;
+        } else {
+            int[] indexes = new int[text.length() - GRAM + 1];
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = Arrays.binarySearch(grams, gram(text, i));
+                if (indexes[i] < 0) {
+                    return NONE;
+                }
+            }
+            // Start from the shortest postings, result can only get shorter
+            int shortest = 0;
+            for (int i = 1; i < indexes.length; i++) {
+                if (postingsSize(indexes[i]) < postingsSize(indexes[shortest])) {
+                    shortest = i;
+                }
+            }
+            candidates = Arrays.copyOfRange(postings, starts[indexes[shortest]],
+                    starts[indexes[shortest] + 1]);
+            length = candidates.length;
+            for (int index : indexes) {
+                length = intersect(candidates, length, index);
+            }
+        }
+        int found = 0;
+        for (int i = 0; i < length; i++) {
+            if (contains(titles.title(candidates[i]), text)) {
+                candidates[found++] = candidates[i];
+            }
+        }
+        return Arrays.copyOf(candidates, found);
+    }
+
+    private int postingsSize(int index) {
+        return starts[index + 1] - starts[index];
+    }
+
+    /**
+     * Keeps only those candidates which are in postings of trigram.
+     *
+     * @return new number of candidates
+     */
+    private int intersect(int[] candidates, int length, int index) {
+        int kept = 0;
+        int low = starts[index];
+        int end = starts[index + 1];
+        for (int i = 0; i < length; i++) {
+            int found = Arrays.binarySearch(postings, low, end, candidates[i]);
+            if (found >= 0) {
+                candidates[kept++] = candidates[i];
+                low = found + 1;
+            } else {
+                low = -found - 1;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Checks whether title contains text without regard to case.
+     */
+    private static boolean contains(String title, String text) {
+        for (int i = 0; i + text.length() <= title.length(); i++) {
+            if (title.regionMatches(true, i, text, 0, text.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds games whose titles are similar to text, which tolerates typos
+     * and different order of words. Similarity is the number of trigrams
+     * shared by title and text divided by number of trigrams of both.
+     *
+     * @param text  searched text
+     * @param limit maximal number of games
+     * @return ids of at most limit games ordered by descending similarity,
+     * games equally similar keep order of loading
+     */
+    int[] similar(String text, int limit) {
+        if (text.length() < GRAM) {
+            return prefix(text, limit);
+        }
+        long[] textGrams = new long[text.length() - GRAM + 1];
+        for (int i = 0; i < textGrams.length; i++) {
+            textGrams[i] = gram(text, i);
+        }
+        textGrams = distinct(textGrams, textGrams.length);
+
+        int[] shared = new int[size];
+        int[] touched = new int[size];
+        int touchedCount = 0;
+        for (long textGram : textGrams) {
+            int index = Arrays.binarySearch(grams, textGram);
+            if (index < 0) {
+                continue;
+            }
+            for (int i = starts[index]; i < starts[index + 1]; i++) {
+                if (shared[postings[i]]++ == 0) {
+                    touched[touchedCount++] = postings[i];
+                }
+            }
+        }
+
+        // Similarity in upper half (inverted, so larger comes first) and
+        // id in lower half, so plain sort orders the result
+        long[] keys = new long[touchedCount];
+        int found = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int id = touched[i];
+            int titleGrams = Math.max(titles.title(id).length() - GRAM + 1, 1);
+            double similarity = (double) shared[id]
+                    / (textGrams.length + titleGrams - shared[id]);
+            if (similarity >= MIN_SIMILARITY) {
+                long scaled = Math.round(similarity * Integer.MAX_VALUE);
+                keys[found++] = ((Integer.MAX_VALUE - scaled) << Integer.SIZE) | id;
+            }
+        }
+        Arrays.sort(keys, 0, found);
+        int[] ids = new int[Math.min(found, limit)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (int) keys[i];
+        }
+        return ids;
+    }
+}
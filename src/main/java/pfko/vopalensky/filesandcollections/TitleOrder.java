@@ -0,0 +1,117 @@
+package pfko.vopalensky.filesandcollections;
+
+import java.util.Arrays;
+
+/**
+ * Order of games by title as given by {@link TitleColumn#compare(int, int)},
+ * games with equal titles keep the order of loading. Index remembers
+ * position of every game in that order, so ids of any games are ordered
+ * by title by a plain sort of positions.
+ */
+final class TitleOrder {
+    private static final int[] NONE = new int[0];
+
+    /**
+     * Ids of games ordered by title
+     */
+    private final int[] order;
+    /**
+     * Position of every game in order, indexed by id of game
+     */
+    private final int[] ranks;
+
+    private TitleOrder(int[] order, int[] ranks) {
+        this.order = order;
+        this.ranks = ranks;
+    }
+
+    /**
+     * Builds order of titles.
+     *
+     * @param titles title of every game
+     * @param size   number of games
+     * @return new index
+     */
+    static TitleOrder build(TitleColumn titles, int size) {
+        return new TitleOrder(NONE, NONE).extend(titles, size);
+    }
+
+    /**
+     * Creates index of more games from this index of the first games.
+     * Only titles of added games are sorted, each of them is then placed
+     * into the existing order by binary search.
+     *
+     * @param titles title of every game, titles of indexed games are
+     *               the same as when this index was built
+     * @param size   number of games, at least the number of indexed games
+     * @return new index
+     */
+    TitleOrder extend(TitleColumn titles, int size) {
+        int from = order.length;
+        if (from == size) {
+            return this;
+        }
+        int count = size - from;
+        String[] strings = new String[count];
+        for (int i = 0; i < count; i++) {
+            strings[i] = titles.title(from + i);
+        }
+        String[] sorted = strings.clone();
+        Arrays.sort(sorted, titles.order());
+
+        // Position of title among added titles (upper half) and id (lower
+        // half), so plain sort keeps added games with equal titles by id
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            long rank = Arrays.binarySearch(sorted, strings[i], titles.order());
+            keys[i] = (rank << Integer.SIZE) | (from + i);
+        }
+        Arrays.sort(keys);
+
+        // Added games follow indexed games with equal titles
+        int[] merged = new int[size];
+        int length = 0;
+        int low = 0;
+        for (long key : keys) {
+            int id = (int) key;
+            int high = insertion(titles, id, low);
+            System.arraycopy(order, low, merged, length, high - low);
+            length += high - low;
+            low = high;
+            merged[length++] = id;
+        }
+        System.arraycopy(order, low, merged, length, from - low);
+
+        int[] mergedRanks = new int[size];
+        for (int position = 0; position < size; position++) {
+            mergedRanks[merged[position]] = position;
+        }
+        return new TitleOrder(merged, mergedRanks);
+    }
+
+    /**
+     * Finds first position from {@code low} in order whose title is larger
+     * than title of given game.
+     */
+    private int insertion(TitleColumn titles, int id, int low) {
+        int high = order.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (titles.compare(order[middle], id) > 0) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns position of every game in order of titles.
+     *
+     * @return positions indexed by id of game, must not be modified
+     */
+    int[] ranks() {
+        return ranks;
+    }
+}
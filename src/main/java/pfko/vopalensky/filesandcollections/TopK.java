@@ -0,0 +1,115 @@
+package pfko.vopalensky.filesandcollections;
+
+/**
+ * Selects values of a {@link ValueColumn} with the highest counts without
+ * sorting all of them. Ids of the best values seen so far are kept in a
+ * bounded binary heap whose root is the worst of them, so every other value
+ * is compared only with the root. Selection runs in O(n log k) time and
+ * O(k) memory for n distinct values.
+ */
+final class TopK {
+    private final ValueColumn column;
+    private final int[] heap;
+    private int size;
+
+    private TopK(ValueColumn column, int k) {
+        this.column = column;
+        this.heap = new int[k];
+    }
+
+    /**
+     * Finds ids of values with the highest counts.
+     *
+     * @param column column whose values should be selected
+     * @param k      maximal number of values
+     * @return ids ordered by count descending, values with equal counts
+     * keep order of their first appearance
+     */
+    static int[] select(ValueColumn column, int k) {
+        int bound = Math.min(k, column.distinct());
+        if (bound <= 0) {
+            return new int[0];
+        }
+        TopK top = new TopK(column, bound);
+        for (int id = 0; id < column.distinct(); id++) {
+            if (column.count(id) > 0) {
+                top.offer(id);
+            }
+        }
+        return top.sorted();
+    }
+
+    /**
+     * Adds id into heap if it is better than the worst kept id.
+     */
+    private void offer(int id) {
+        if (size < heap.length) {
+            heap[size] = id;
+            siftUp(size++);
+        } else if (worse(heap[0], id)) {
+            heap[0] = id;
+            siftDown(0, size);
+        }
+    }
+
+    /**
+     * Empties heap from the worst id, which orders ids from the best.
+     */
+    private int[] sorted() {
+        int[] ids = new int[size];
+        for (int end = size - 1; end > 0; end--) {
+            int worst = heap[0];
+            heap[0] = heap[end];
+            siftDown(0, end);
+            ids[end] = worst;
+        }
+        if (size > 0) {
+            ids[0] = heap[0];
+        }
+        return ids;
+    }
+
+    /**
+     * Check whether value {@code a} is ranked below value {@code b}.
+     */
+    private boolean worse(int a, int b) {
+        int countA = column.count(a);
+        int countB = column.count(b);
+        return countA != countB ? countA < countB : a > b;
+    }
+
+    /**
+     * Moves id at index up while it is worse than its parent.
+     */
+    private void siftUp(int index) {
+        int id = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!worse(id, heap[parent])) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = id;
+    }
+
+    /**
+     * Moves id at index down while any of its children is worse.
+     */
+    private void siftDown(int index, int end) {
+        int id = heap[index];
+        int child;
+        while ((child = 2 * index + 1) < end) {
+            if (child + 1 < end && worse(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!worse(heap[child], id)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = id;
+    }
+}
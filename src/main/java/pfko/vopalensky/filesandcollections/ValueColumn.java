@@ -0,0 +1,278 @@
+package pfko.vopalensky.filesandcollections;
+
+import pfko.vopalensky.filesandcollections.exceptions.InvalidFileFormatException;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Column holding a list of strings for every game, such as developers,
+ * publishers or genres. Strings are replaced by ids from a shared
+ * dictionary and ids of all games are stored one after another in a single
+ * array, game {@code g} owns values from {@code offsets[g]} (inclusive)
+ * to {@code offsets[g + 1]} (exclusive).
+ * <p>
+ * Column also knows how many times each of its values occurs. Instances
+ * are immutable, they are created by {@link Builder}.
+ */
+final class ValueColumn {
+    private final StringDictionary dictionary;
+    private final int distinct;
+    private final int[] offsets;
+    private final int[] values;
+    private final int[] counts;
+
+    private ValueColumn(StringDictionary dictionary, int distinct,
+                        int[] offsets, int[] values, int[] counts) {
+        this.dictionary = dictionary;
+        this.distinct = distinct;
+        this.offsets = offsets;
+        this.values = values;
+        this.counts = counts;
+    }
+
+    /**
+     * Returns index of first value of game.
+     *
+     * @param game id of game
+     * @return index into {@link #value(int)}
+     */
+    int start(int game) {
+        return offsets[game];
+    }
+
+    /**
+     * Returns index after last value of game.
+     *
+     * @param game id of game
+     * @return index into {@link #value(int)}
+     */
+    int end(int game) {
+        return offsets[game + 1];
+    }
+
+    /**
+     * Returns id of value stored at given index.
+     *
+     * @param index index between {@link #start(int)} and {@link #end(int)}
+     * @return dictionary id of value
+     */
+    int value(int index) {
+        return values[index];
+    }
+
+    /**
+     * Check whether game has given value.
+     *
+     * @param game id of game
+     * @param id   dictionary id of value
+     * @return true if value is one of game's values
+     */
+    boolean contains(int game, int id) {
+        for (int i = offsets[game]; i < offsets[game + 1]; i++) {
+            if (values[i] == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates list of strings stored for a game.
+     *
+     * @param game id of game
+     * @return values of game in the original order
+     */
+    List<String> names(int game) {
+        int start = offsets[game];
+        String[] names = new String[offsets[game + 1] - start];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = dictionary.get(values[start + i]);
+        }
+        return List.of(names);
+    }
+
+    /**
+     * Finds id of value.
+     *
+     * @param name string value
+     * @return dictionary id or {@link StringDictionary#MISSING} if no game
+     * has this value
+     */
+    int find(String name) {
+        int id = dictionary.find(name);
+        return id >= distinct || id == StringDictionary.MISSING || counts[id] == 0
+                ? StringDictionary.MISSING
+                : id;
+    }
+
+    /**
+     * Returns string value of id.
+     *
+     * @param id dictionary id
+     * @return string value
+     */
+    String name(int id) {
+        return dictionary.get(id);
+    }
+
+    /**
+     * Returns number of occurrences of value, which is the number of games
+     * having it unless some game lists the same value twice.
+     *
+     * @param id dictionary id
+     * @return count of occurrences
+     */
+    int count(int id) {
+        return counts[id];
+    }
+
+    /**
+     * Returns number of ids which may be used in column, some of them can
+     * have count zero.
+     *
+     * @return upper bound of ids in column
+     */
+    int distinct() {
+        return distinct;
+    }
+
+    /**
+     * Writes column into snapshot.
+     *
+     * @param writer writer of snapshot
+     * @param games  number of games of catalog
+     * @throws IOException When writing into file fails.
+     */
+    void write(SnapshotWriter writer, int games) throws IOException {
+        dictionary.write(writer, distinct);
+        writer.writeInts(offsets, games + 1);
+        writer.writeInts(values, offsets[games]);
+        writer.writeInts(counts, distinct);
+    }
+
+    /**
+     * Reads column from snapshot.
+     *
+     * @param reader reader of snapshot
+     * @param games  number of games of catalog
+     * @return new column
+     * @throws InvalidFileFormatException When snapshot is damaged.
+     */
+    static ValueColumn read(SnapshotReader reader, int games)
+            throws InvalidFileFormatException {
+        StringDictionary dictionary = StringDictionary.read(reader);
+        int[] offsets = reader.readInts();
+        int[] values = reader.readInts();
+        int[] counts = reader.readInts();
+        if (offsets.length != games + 1 || offsets[games] != values.length
+                || counts.length != dictionary.size()) {
+            throw new InvalidFileFormatException();
+        }
+        return new ValueColumn(dictionary, dictionary.size(), offsets, values,
+                counts);
+    }
+
+    /**
+     * Creates {@link ValueColumn} by appending values of games one by one.
+     * Arrays are only appended to, so already built columns which share
+     * them are not affected by later additions.
+     */
+    static final class Builder {
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final StringDictionary dictionary;
+        private int[] offsets;
+        private int[] values;
+        private int[] counts;
+        private int games;
+        /**
+         * Number of games visible in already built columns
+         */
+        private int published;
+
+        /**
+         * Creates builder of empty column.
+         */
+        Builder() {
+            dictionary = new StringDictionary();
+            offsets = new int[INITIAL_CAPACITY + 1];
+            values = new int[INITIAL_CAPACITY];
+            counts = new int[INITIAL_CAPACITY];
+        }
+
+        /**
+         * Creates builder which continues after all games of column.
+         * Arrays of column are shared, they are copied on first growth.
+         *
+         * @param column column to be continued
+         * @param games  number of games in column
+         */
+        Builder(ValueColumn column, int games) {
+            dictionary = column.dictionary;
+            offsets = column.offsets;
+            values = column.values;
+            counts = Arrays.copyOf(column.counts,
+                    Math.max(column.distinct, INITIAL_CAPACITY));
+            this.games = games;
+            this.published = games;
+        }
+
+        /**
+         * Appends values of next game.
+         *
+         * @param names values of game
+         */
+        void add(List<String> names) {
+            int start = offsets[games];
+            if (start + names.size() > values.length) {
+                values = Arrays.copyOf(values,
+                        Math.max(values.length * 2, start + names.size()));
+            }
+            for (String name : names) {
+                int id = dictionary.add(name);
+                if (id >= counts.length) {
+                    counts = Arrays.copyOf(counts, counts.length * 2);
+                }
+                counts[id]++;
+                values[start++] = id;
+            }
+            if (games + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[++games] = start;
+        }
+
+        /**
+         * Removes games added after the first {@code size} games.
+         *
+         * @param size number of games to keep
+         */
+        void truncate(int size) {
+            for (int i = offsets[size]; i < offsets[games]; i++) {
+                counts[values[i]]--;
+            }
+            if (size < published) {
+                // Built columns still show removed games, so arrays shared
+                // with them must not be overwritten by following additions
+                offsets = offsets.clone();
+                values = values.clone();
+                published = size;
+            }
+            games = size;
+        }
+
+        /**
+         * Creates immutable column of all games added so far.
+         *
+         * @return new column
+         */
+        ValueColumn build() {
+            published = games;
+            int distinct = dictionary.size();
+            return new ValueColumn(dictionary, distinct, offsets, values,
+                    Arrays.copyOf(counts, distinct));
+        }
+    }
+}
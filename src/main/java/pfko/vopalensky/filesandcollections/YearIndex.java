@@ -0,0 +1,277 @@
+package pfko.vopalensky.filesandcollections;
+
+import pfko.vopalensky.filesandcollections.exceptions.InvalidFileFormatException;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Index of games by year of release. Games are ordered by year (games from
+ * the same year keep the order of loading) and for every distinct year the
+ * index remembers where its games start in that order.
+ * <p>
+ * Games of any range of years therefore form one continuous part of the
+ * order, which is found by two binary searches over distinct years.
+ * Games to be announced or with unknown release are placed after all
+ * released games and are never part of a range.
+ */
+final class YearIndex {
+    /**
+     * Counting sort is used only when the range of years is not much
+     * larger than the number of games
+     */
+    private static final int COUNTING_SORT_RANGE_FACTOR = 4;
+
+    private final int[] order;
+    /**
+     * Distinct years in ascending order
+     */
+    private final int[] years;
+    /**
+     * Position in order where games of each distinct year start, with
+     * one extra item at the end
+     */
+    private final int[] starts;
+
+    private YearIndex(int[] order, int[] years, int[] starts) {
+        this.order = order;
+        this.years = years;
+        this.starts = starts;
+    }
+
+    /**
+     * Builds index of years of games.
+     *
+     * @param years year of every game, see {@link GameCatalog#year(int)}
+     * @param size  number of games
+     * @return new index
+     */
+    static YearIndex build(int[] years, int size) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int game = 0; game < size; game++) {
+            if (released(years[game])) {
+                min = Math.min(min, years[game]);
+                max = Math.max(max, years[game]);
+            }
+        }
+        if (min > max) {
+            min = 0;
+            max = 0;
+        }
+        int[] order = (long) max - min
+                < (long) size * COUNTING_SORT_RANGE_FACTOR
+                ? countingSort(years, size, min, max)
+                : keySort(years, 0, size);
+        return of(order, years);
+    }
+
+    /**
+     * Creates index of more games from this index of the first games.
+     * Only added games are sorted, they are merged into the existing order,
+     * where they follow earlier games of the same year.
+     *
+     * @param years year of every game, years of indexed games are
+     *              the same as when this index was built
+     * @param size  number of games, at least the number of indexed games
+     * @return new index
+     */
+    YearIndex extend(int[] years, int size) {
+        int from = order.length;
+        if (from == size) {
+            return this;
+        }
+        int[] added = keySort(years, from, size);
+        int[] merged = new int[size];
+        int i = 0;
+        int j = 0;
+        for (int position = 0; position < size; position++) {
+            if (j == added.length || (i < from
+                    && years[order[i]] <= years[added[j]])) {
+                merged[position] = order[i++];
+            } else {
+                merged[position] = added[j++];
+            }
+        }
+        return of(merged, years);
+    }
+
+    /**
+     * Creates index of games in given order, finds where every year starts.
+     */
+    private static YearIndex of(int[] order, int[] years) {
+        int size = order.length;
+        int[] distinct = new int[size];
+        int[] starts = new int[size + 1];
+        int count = 0;
+        for (int position = 0; position < size; position++) {
+            int year = years[order[position]];
+            if (count == 0 || distinct[count - 1] != year) {
+                distinct[count] = year;
+                starts[count] = position;
+                count++;
+            }
+        }
+        starts[count] = size;
+        return new YearIndex(order, Arrays.copyOf(distinct, count),
+                Arrays.copyOf(starts, count + 1));
+    }
+
+    /**
+     * Writes index into snapshot.
+     *
+     * @param writer writer of snapshot
+     * @throws IOException When writing into file fails.
+     */
+    void write(SnapshotWriter writer) throws IOException {
+        writer.writeInts(order, order.length);
+        writer.writeInts(years, years.length);
+        writer.writeInts(starts, starts.length);
+    }
+
+    /**
+     * Reads index from snapshot.
+     *
+     * @param reader reader of snapshot
+     * @param size   number of games
+     * @return new index
+     * @throws InvalidFileFormatException When snapshot is damaged.
+     */
+    static YearIndex read(SnapshotReader reader, int size)
+            throws InvalidFileFormatException {
+        int[] order = reader.readInts();
+        int[] years = reader.readInts();
+        int[] starts = reader.readInts();
+        if (order.length != size || starts.length != years.length + 1) {
+            throw new InvalidFileFormatException();
+        }
+        return new YearIndex(order, years, starts);
+    }
+
+    /**
+     * Orders games by counting number of games in every year. Runs in
+     * linear time with respect to number of games and range of years.
+     */
+    private static int[] countingSort(int[] years, int size, int min, int max) {
+        // One bucket for every year and two more for unknown and TBA
+        int buckets = max - min + 3;
+        int[] next = new int[buckets + 1];
+        for (int game = 0; game < size; game++) {
+            next[bucket(years[game], min, max) + 1]++;
+        }
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            next[bucket + 1] += next[bucket];
+        }
+        int[] order = new int[size];
+        for (int game = 0; game < size; game++) {
+            order[next[bucket(years[game], min, max)]++] = game;
+        }
+        return order;
+    }
+
+    private static int bucket(int year, int min, int max) {
+        return switch (year) {
+            case GameCatalog.UNKNOWN -> max - min + 1;
+            case GameCatalog.TBA -> max - min + 2;
+            default -> year - min;
+        };
+    }
+
+    /**
+     * Orders games from {@code from} (inclusive) to {@code to} (exclusive)
+     * by sorting keys made of year and id of game, used when years are too
+     * sparse for counting sort and for added games.
+     */
+    private static int[] keySort(int[] years, int from, int to) {
+        // Year in upper half and id of game in lower half, so plain sort
+        // orders by year and keeps loading order for the same year
+        long[] keys = new long[to - from];
+        for (int game = from; game < to; game++) {
+            keys[game - from] = ((long) years[game] << Integer.SIZE) | game;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    private static boolean released(int year) {
+        return year != GameCatalog.TBA && year != GameCatalog.UNKNOWN;
+    }
+
+    /**
+     * Returns ids of games ordered by year of release.
+     *
+     * @return order shared by all indexes of catalog, must not be modified
+     */
+    int[] order() {
+        return order;
+    }
+
+    /**
+     * Finds first position of games released in given year or later.
+     *
+     * @param year year of release
+     * @return position in order
+     */
+    int from(int year) {
+        int found = Arrays.binarySearch(years, year);
+        return starts[found >= 0 ? found : -found - 1];
+    }
+
+    /**
+     * Finds position after games released in given year or earlier.
+     * Games which are not released yet are never included.
+     *
+     * @param year year of release
+     * @return position in order
+     */
+    int to(int year) {
+        int limit = Math.min(year, GameCatalog.UNKNOWN - 1);
+        int found = Arrays.binarySearch(years, limit);
+        return starts[found >= 0 ? found + 1 : -found - 1];
+    }
+
+    /**
+     * Counts games released in every year.
+     *
+     * @return number of games for each year with at least one release
+     */
+    SortedMap<Integer, Integer> counts() {
+        SortedMap<Integer, Integer> counts = new TreeMap<>();
+        for (int i = 0; i < years.length && released(years[i]); i++) {
+            counts.put(years[i], starts[i + 1] - starts[i]);
+        }
+        return counts;
+    }
+
+    /**
+     * Counts games from postings list released in every year. Postings are
+     * ascending positions in order, so games of one year form a continuous
+     * run which is skipped by a single binary search.
+     *
+     * @param postings ascending positions of games in order
+     * @return number of games for each year with at least one release
+     */
+    SortedMap<Integer, Integer> counts(int[] postings) {
+        SortedMap<Integer, Integer> counts = new TreeMap<>();
+        int i = 0;
+        while (i < postings.length) {
+            int found = Arrays.binarySearch(starts, postings[i]);
+            int year = found >= 0 ? found : -found - 2;
+            if (!released(years[year])) {
+                break;
+            }
+            int next = Arrays.binarySearch(postings, i, postings.length,
+                    starts[year + 1]);
+            next = next >= 0 ? next : -next - 1;
+            counts.put(years[year], next - i);
+            i = next;
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,4 @@
+package pfko.vopalensky.filesandcollections.exceptions;
+
+public class ErrorBudgetExceededException extends InvalidFileFormatException {
+}
@@ -0,0 +1,343 @@
+package pfko.vopalensky.objectarray;
+
+import pfko.vopalensky.simd.IntReductions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Array of numbers like {@link PFArray} whose numbers are stored outside
+ * of heap, so garbage collector never copies them and number of elements
+ * is limited only by memory, not by the maximal length of Java array.
+ * Elements are indexed by {@code long}.
+ * <p>
+ * Array is either held in native memory or mapped onto a file, so arrays
+ * larger than memory are paged in and out by operating system. File starts
+ * with the number of elements, which is updated by every change, followed
+ * by the elements. Space reserved for following additions is therefore
+ * never read as elements, even when the file was not closed. Numbers are
+ * stored in native byte order. Memory is released and file is shortened
+ * to its elements by {@link #close()}, array cannot be used afterwards.
+ * <p>
+ * Array may be used from more threads, but not at the same time.
+ */
+public final class OffHeapPFArray implements AutoCloseable {
+    private static final long INITIAL_CAPACITY = 16;
+    private static final int EXTEND_COEFFICIENT = 2;
+    private static final long INT_SIZE = ValueLayout.JAVA_INT.byteSize();
+    private static final long HEADER_SIZE = ValueLayout.JAVA_LONG.byteSize();
+
+    /**
+     * File the numbers are mapped onto, null for array in memory
+     */
+    private final FileChannel channel;
+    private Arena arena;
+    /**
+     * Memory of numbers, its size is the current capacity
+     */
+    private MemorySegment data;
+    /**
+     * Mapped number of elements at the start of file, null for array
+     * in memory
+     */
+    private MemorySegment header;
+    /**
+     * Count of stored numbers
+     */
+    private long count;
+
+    /**
+     * Creates new empty array in native memory.
+     */
+    public OffHeapPFArray() {
+        channel = null;
+        reserve(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates new array in native memory based on user input
+     *
+     * @param input line of numbers divided by commas to be saved in array
+     */
+    public OffHeapPFArray(String input) {
+        this();
+        for (String number : input.replaceAll("\\s", "").split(",")) {
+            add(Integer.parseInt(number));
+        }
+    }
+
+    private OffHeapPFArray(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = channel.size();
+        if (size != 0 && (size < HEADER_SIZE
+                || (size - HEADER_SIZE) % INT_SIZE != 0)) {
+            throw new IOException("File is not an array of numbers");
+        }
+        long stored = size == 0 ? 0 : (size - HEADER_SIZE) / INT_SIZE;
+        reserve(Math.max(stored, INITIAL_CAPACITY));
+        long storedCount = header.get(ValueLayout.JAVA_LONG, 0);
+        if (storedCount < 0 || storedCount > stored) {
+            arena.close();
+            throw new IOException("File is not an array of numbers");
+        }
+        count = storedCount;
+    }
+
+    /**
+     * Opens array mapped onto file. Numbers already stored in file become
+     * elements of array, missing or empty file is created as empty array.
+     *
+     * @param file file written by array, holding number of elements
+     *             followed by the elements in native byte order
+     * @return array of numbers in file
+     * @throws IOException When file cannot be opened or does not hold
+     *                     an array of numbers.
+     */
+    public static OffHeapPFArray open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new OffHeapPFArray(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Replaces memory of numbers by memory of given capacity, which keeps
+     * all stored numbers.
+     *
+     * @param capacity number of elements that fit into new memory
+     */
+    private void reserve(long capacity) {
+        Arena newArena = Arena.ofShared();
+        MemorySegment newData;
+        MemorySegment newHeader = null;
+        try {
+            if (channel == null) {
+                newData = newArena.allocate(capacity * INT_SIZE, INT_SIZE);
+                if (data != null) {
+                    MemorySegment.copy(data, 0, newData, 0, count * INT_SIZE);
+                }
+            } else {
+                // File already holds all numbers, larger mapping just
+                // extends it
+                MemorySegment mapping = channel.map(
+                        FileChannel.MapMode.READ_WRITE, 0,
+                        HEADER_SIZE + capacity * INT_SIZE, newArena);
+                newHeader = mapping.asSlice(0, HEADER_SIZE);
+                newData = mapping.asSlice(HEADER_SIZE);
+            }
+        } catch (IOException e) {
+            newArena.close();
+            throw new UncheckedIOException(e);
+        }
+        if (arena != null) {
+            arena.close();
+        }
+        arena = newArena;
+        data = newData;
+        header = newHeader;
+    }
+
+    /**
+     * Changes number of elements, array mapped onto file writes it
+     * into file too.
+     *
+     * @param newCount new number of elements
+     */
+    private void setCount(long newCount) {
+        count = newCount;
+        if (header != null) {
+            header.set(ValueLayout.JAVA_LONG, 0, newCount);
+        }
+    }
+
+    /**
+     * Returns number of elements that fit into current memory.
+     */
+    private long capacity() {
+        return data.byteSize() / INT_SIZE;
+    }
+
+    /**
+     * Add new number to the array
+     *
+     * @param number New number to be added at the end of array.
+     * @return reference to this array
+     * @throws UncheckedIOException when file cannot be extended
+     */
+    public OffHeapPFArray add(int number) {
+        if (count == capacity()) {
+            reserve(capacity() * EXTEND_COEFFICIENT);
+        }
+        data.setAtIndex(ValueLayout.JAVA_INT, count, number);
+        setCount(count + 1);
+        return this;
+    }
+
+    /**
+     * Remove only first occurrence of number from array
+     *
+     * @param number to be removed
+     * @return reference to this array
+     */
+    public OffHeapPFArray remove(int number) {
+        return remove(number, false);
+    }
+
+    /**
+     * Remove number(s) from array. Removes only one or all instances.
+     * Numbers before the first occurrence are only read, so an array
+     * without the number is left untouched. A single occurrence is removed
+     * by one copy of the following numbers, all occurrences by compacting
+     * the rest of the array in a single pass.
+     *
+     * @param number    Number to be removed from an array.
+     * @param removeAll If true then remove all occurrences of number
+     * @return reference to this array
+     */
+    public OffHeapPFArray remove(int number, boolean removeAll) {
+        long first = 0;
+        while (first < count
+                && data.getAtIndex(ValueLayout.JAVA_INT, first) != number) {
+            first++;
+        }
+        if (first == count) {
+            return this;
+        }
+        if (!removeAll) {
+            MemorySegment.copy(data, (first + 1) * INT_SIZE,
+                    data, first * INT_SIZE, (count - first - 1) * INT_SIZE);
+            setCount(count - 1);
+            return this;
+        }
+        long kept = first;
+        for (long i = first + 1; i < count; i++) {
+            int value = data.getAtIndex(ValueLayout.JAVA_INT, i);
+            if (value != number) {
+                data.setAtIndex(ValueLayout.JAVA_INT, kept++, value);
+            }
+        }
+        setCount(kept);
+        return this;
+    }
+
+    /**
+     * Finds the largest number in array.
+     *
+     * @return the largest number if array contains at least one element
+     * otherwise {@code Exception} is thrown
+     * @throws IndexOutOfBoundsException when there is no element in array
+     */
+    public int max() {
+        if (count == 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        return IntReductions.max(data, 0, count);
+    }
+
+    /**
+     * Finds the smallest number in array.
+     *
+     * @return the smallest number if array contains at least one element
+     * otherwise {@code Exception} is thrown
+     * @throws IndexOutOfBoundsException when there is no element in array
+     */
+    public int min() {
+        if (count == 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        return IntReductions.min(data, 0, count);
+    }
+
+    /**
+     * Counts sum of all numbers in array
+     *
+     * @return sum of all numbers in array
+     */
+    public long sum() {
+        return IntReductions.sum(data, 0, count);
+    }
+
+    /**
+     * Removes all elements, memory is kept for following additions.
+     *
+     * @return reference to this array
+     */
+    public OffHeapPFArray clear() {
+        setCount(0);
+        return this;
+    }
+
+    /**
+     * Returns number of elements inside of array.
+     *
+     * @return count of numbers in array
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Check whether array contains any elements.
+     *
+     * @return true if array is empty. False otherwise.
+     */
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Returns element from array at given index
+     *
+     * @param idx of element to return
+     * @return element at given index
+     * @throws IndexOutOfBoundsException when {@code idx} is negative
+     *                                   or not smaller than count
+     */
+    public int at(long idx) {
+        if (idx < 0 || idx >= count) {
+            throw new IndexOutOfBoundsException();
+        }
+        return data.getAtIndex(ValueLayout.JAVA_INT, idx);
+    }
+
+    /**
+     * Returns array of numbers filled with numbers stored in array
+     *
+     * @return classic Java array of numbers
+     * @throws IllegalStateException when there are more numbers than fit
+     *                               into Java array
+     */
+    public int[] toArray() {
+        return data.asSlice(0, count * INT_SIZE).toArray(ValueLayout.JAVA_INT);
+    }
+
+    /**
+     * Releases memory of array. Array mapped onto file is written into it,
+     * file is shortened so it holds just the elements of array. Closing
+     * closed array has no effect.
+     *
+     * @throws IOException When file cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!arena.scope().isAlive()) {
+            return;
+        }
+        arena.close();
+        if (channel != null) {
+            try (channel) {
+                channel.truncate(HEADER_SIZE + count * INT_SIZE);
+            }
+        }
+    }
+}
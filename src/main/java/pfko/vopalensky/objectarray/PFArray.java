@@ -1,8 +1,20 @@
 package pfko.vopalensky.objectarray;
 
+import pfko.vopalensky.simd.IntReductions;
+
 import java.io.PrintStream;
 import java.security.SecureRandom;
 import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.IntSummaryStatistics;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 public class PFArray {
     private static final int MAX_RANDOM_ARRAY_LENGTH = 20;
@@ -24,6 +36,23 @@ public class PFArray {
      * Count of stored numbers
      */
     private int count;
+    /**
+     * Sum of stored numbers, kept up to date by every change
+     */
+    private long sum;
+    /**
+     * The smallest and the largest stored number, valid only when
+     * {@link #extremesKnown} is true. Additions keep them up to date,
+     * removal of one of them makes them unknown until they are needed.
+     */
+    private int min;
+    private int max;
+    private boolean extremesKnown;
+    /**
+     * Number of additions and removals, iterators and streams fail when
+     * it changes while they are going through the array
+     */
+    private int modCount;
 
     /**
      * Generates random number in interval of {@code -MAX_RANDOM_ARRAY_VALUE}
@@ -45,6 +74,7 @@ public class PFArray {
         data = new int[count];
         for (int i = 0; i < count; i++) {
             data[i] = generateRandomNumber();
+            sum += data[i];
         }
     }
 
@@ -60,6 +90,7 @@ public class PFArray {
         data = new int[length];
         for (int i = 0; i < count; i++) {
             data[i] = Integer.parseInt(numbers[i]);
+            sum += data[i];
         }
     }
 
@@ -98,6 +129,12 @@ public class PFArray {
         }
         data[count] = number;
         count++;
+        modCount++;
+        sum += number;
+        if (extremesKnown) {
+            min = Math.min(min, number);
+            max = Math.max(max, number);
+        }
         return this;
     }
 
@@ -119,21 +156,144 @@ public class PFArray {
      * @return reference to this array
      */
     public PFArray remove(int number, boolean removeAll) {
+        if (removeAll) {
+            return removeAll(number);
+        }
         for (int i = 0; i < count; i++) {
-            while (i < count && data[i] == number) {
-                System.arraycopy(data, i + 1,
-                        data, i, data.length - i - 1);
-                count--;
-                if (!removeAll) {
-                    return this;
+            if (data[i] == number) {
+                return removeRange(i, i + 1);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Remove all occurrences of number from array.
+     *
+     * @param number Number to be removed from an array.
+     * @return reference to this array
+     */
+    public PFArray removeAll(int number) {
+        return removeIf(value -> value == number);
+    }
+
+    /**
+     * Remove all occurrences of any of given numbers from array.
+     *
+     * @param numbers Numbers to be removed from an array.
+     * @return reference to this array
+     */
+    public PFArray removeAll(int... numbers) {
+        int[] sorted = sorted(numbers);
+        return removeIf(value -> Arrays.binarySearch(sorted, value) >= 0);
+    }
+
+    /**
+     * Keep only occurrences of given numbers in array.
+     *
+     * @param numbers Numbers to be kept in an array.
+     * @return reference to this array
+     */
+    public PFArray retainAll(int... numbers) {
+        int[] sorted = sorted(numbers);
+        return removeIf(value -> Arrays.binarySearch(sorted, value) < 0);
+    }
+
+    /**
+     * Returns sorted copy of numbers, so they can be looked up by binary
+     * search.
+     */
+    private static int[] sorted(int[] numbers) {
+        int[] sorted = numbers.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Remove all numbers matching a condition from array. Kept numbers are
+     * moved to the front in a single pass and stay in their order.
+     *
+     * When the condition throws, numbers already removed stay removed and
+     * the rest of array is kept unchanged.
+     *
+     * @param condition Condition of numbers to be removed.
+     * @return reference to this array
+     */
+    public PFArray removeIf(IntPredicate condition) {
+        int kept = 0;
+        int i = 0;
+        try {
+            for (; i < count; i++) {
+                int number = data[i];
+                if (condition.test(number)) {
+                    removed(number);
+                } else {
+                    data[kept++] = number;
                 }
             }
+        } finally {
+            if (kept != i) {
+                // Numbers not tested yet are moved after the kept ones
+                System.arraycopy(data, i, data, kept, count - i);
+                count -= i - kept;
+                modCount++;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Remove continuous part of array.
+     *
+     * @param from Index of the first removed element.
+     * @param to   Index after the last removed element.
+     * @return reference to this array
+     * @throws IndexOutOfBoundsException when the part is out of array
+     */
+    public PFArray removeRange(int from, int to) {
+        Objects.checkFromToIndex(from, to, count);
+        if (from == to) {
+            return this;
         }
+        IntSummaryStatistics removed = IntReductions.summary(data, from, to);
+        sum -= removed.getSum();
+        if (removed.getMin() == min || removed.getMax() == max) {
+            extremesKnown = false;
+        }
+        System.arraycopy(data, to, data, from, count - to);
+        count -= to - from;
+        modCount++;
         return this;
     }
 
     /**
-     * Finds the largest number in array.
+     * Updates aggregates after number was removed.
+     *
+     * @param number removed number
+     */
+    private void removed(int number) {
+        sum -= number;
+        if (number == min || number == max) {
+            extremesKnown = false;
+        }
+    }
+
+    /**
+     * Finds the smallest and the largest number when they are not known,
+     * both in a single pass.
+     */
+    private void findExtremes() {
+        if (!extremesKnown) {
+            IntSummaryStatistics summary = IntReductions.summary(data, 0, count);
+            min = summary.getMin();
+            max = summary.getMax();
+            extremesKnown = true;
+        }
+    }
+
+    /**
+     * Finds the largest number in array. Result is remembered until
+     * the number is removed.
      *
      * @return the largest number if array contains at least one element
      * otherwise {@code Exception} is thrown
@@ -143,17 +303,15 @@ public class PFArray {
         if (count == 0) {
             throw new IndexOutOfBoundsException();
         }
-        int max = data[0];
-        for (int i = 0; i < count; i++) {
-            max = Math.max(max, data[i]);
-        }
+        findExtremes();
         return max;
     }
 
     /**
-     * Finds the largest number in array.
+     * Finds the smallest number in array. Result is remembered until
+     * the number is removed.
      *
-     * @return the largest number if array contains at least one element
+     * @return the smallest number if array contains at least one element
      * otherwise {@code Exception} is thrown
      * @throws IndexOutOfBoundsException when there is no element in array
      */
@@ -161,26 +319,45 @@ public class PFArray {
         if (count == 0) {
             throw new IndexOutOfBoundsException();
         }
-        int min = data[0];
-        for (int i = 0; i < count; i++) {
-            min = Math.min(min, data[i]);
-        }
+        findExtremes();
         return min;
     }
 
     /**
      * Counts sum of all numbers in array
      *
-     * @return sum of all numbers in array
+     * @return sum of all numbers in array, computed as {@code long}
+     * so it does not overflow. Sum is kept up to date by every change,
+     * so it is returned without going through the array.
      */
-    public int sum() {
-        int sum = 0;
-        for (int i = 0; i < count; i++) {
-            sum += data[i];
-        }
+    public long sum() {
         return sum;
     }
 
+    /**
+     * Computes count, the smallest number, the largest number and sum
+     * of all numbers in array at once.
+     *
+     * @return statistics of numbers in array
+     */
+    public IntSummaryStatistics summary() {
+        if (count == 0) {
+            return new IntSummaryStatistics();
+        }
+        findExtremes();
+        return new IntSummaryStatistics(count, min, max, sum);
+    }
+
+    /**
+     * Counts occurrences of number in array.
+     *
+     * @param number Number to be counted.
+     * @return how many times the number is stored in array
+     */
+    public int count(int number) {
+        return IntReductions.count(data, 0, count, number);
+    }
+
     /**
      * Deletes whole array and all elements in it.
      *
@@ -188,6 +365,9 @@ public class PFArray {
      */
     public PFArray clear() {
         count = 0;
+        modCount++;
+        sum = 0;
+        extremesKnown = false;
         return null;
     }
 
@@ -197,9 +377,12 @@ public class PFArray {
      * @return reference to this array
      */
     public PFArray regenerate() {
+        sum = 0;
         for (int i = 0; i < count; i++) {
             data[i] = generateRandomNumber();
+            sum += data[i];
         }
+        extremesKnown = false;
         return this;
     }
 
@@ -243,4 +426,145 @@ public class PFArray {
     public int[] toArray() {
         return Arrays.copyOf(data, count);
     }
+
+    /**
+     * Passes every number of array to action, in order of the array.
+     *
+     * @param action action to be performed for each number
+     * @throws ConcurrentModificationException when array is changed
+     *                                         by the action
+     */
+    public void forEach(IntConsumer action) {
+        Objects.requireNonNull(action);
+        int expectedModCount = modCount;
+        for (int i = 0; i < count && modCount == expectedModCount; i++) {
+            action.accept(data[i]);
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Returns iterator over numbers of array without boxing them.
+     *
+     * @return iterator in order of the array
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    /**
+     * Returns spliterator over numbers of array. It is bound to the array
+     * when it is used for the first time, so changes made before that are
+     * visible. Later additions or removals make it fail.
+     *
+     * @return sized spliterator, which splits into halves
+     */
+    public Spliterator.OfInt spliterator() {
+        return new ArraySpliterator(0, -1, 0);
+    }
+
+    /**
+     * Returns sequential stream of numbers reading the array directly,
+     * without copying it.
+     *
+     * @return stream of numbers in order of the array
+     */
+    public IntStream stream() {
+        return StreamSupport.intStream(spliterator(), false);
+    }
+
+    /**
+     * Returns parallel stream of numbers reading the array directly,
+     * without copying it. Parts of the array are processed by the common
+     * fork-join pool.
+     *
+     * @return parallel stream of numbers in order of the array
+     */
+    public IntStream parallelStream() {
+        return StreamSupport.intStream(spliterator(), true);
+    }
+
+    /**
+     * Spliterator over part of the array.
+     */
+    private final class ArraySpliterator implements Spliterator.OfInt {
+        private int index;
+        /**
+         * Index after the last number, -1 until the spliterator is used
+         */
+        private int fence;
+        private int expectedModCount;
+
+        private ArraySpliterator(int origin, int fence, int expectedModCount) {
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        /**
+         * Binds spliterator to the current size of array on first use.
+         */
+        private int fence() {
+            if (fence < 0) {
+                expectedModCount = modCount;
+                fence = count;
+            }
+            return fence;
+        }
+
+        private void checkModCount() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            int hi = fence();
+            int lo = index;
+            int mid = (lo + hi) >>> 1;
+            if (lo >= mid) {
+                return null;
+            }
+            index = mid;
+            return new ArraySpliterator(lo, mid, expectedModCount);
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            Objects.requireNonNull(action);
+            int hi = fence();
+            if (index >= hi) {
+                return false;
+            }
+            action.accept(data[index++]);
+            checkModCount();
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            Objects.requireNonNull(action);
+            int hi = fence();
+            int[] numbers = data;
+            for (int i = index; i < hi; i++) {
+                action.accept(numbers[i]);
+            }
+            index = hi;
+            checkModCount();
+        }
+
+        @Override
+        public long estimateSize() {
+            return (long) fence() - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED
+                    | Spliterator.SUBSIZED;
+        }
+    }
 }
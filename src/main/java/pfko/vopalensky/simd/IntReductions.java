@@ -0,0 +1,170 @@
+package pfko.vopalensky.simd;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.IntSummaryStatistics;
+import java.util.Objects;
+
+/**
+ * Reductions of arrays of numbers. When module {@code jdk.incubator.vector}
+ * is enabled ({@code --add-modules jdk.incubator.vector}), numbers are
+ * processed by the Vector API many at a time, otherwise by plain loops
+ * with the same results.
+ * <p>
+ * Numbers are read either from arrays or from memory segments holding ints
+ * in native byte order, whose parts are given by indexes of ints.
+ */
+public final class IntReductions {
+    private static final boolean VECTORIZED = ModuleLayer.boot()
+            .findModule("jdk.incubator.vector").isPresent();
+
+    private IntReductions() {
+    }
+
+    /**
+     * Tells whether reductions use the Vector API.
+     *
+     * @return true if module of the Vector API is available
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * Finds the largest number in part of array.
+     *
+     * @param array array of numbers
+     * @param from  first index of part
+     * @param to    index after the last one of part
+     * @return the largest number, {@link Integer#MIN_VALUE} for empty part
+     * @throws IndexOutOfBoundsException when part is out of array
+     */
+    public static int max(int[] array, int from, int to) {
+        Objects.checkFromToIndex(from, to, array.length);
+        return VECTORIZED
+                ? VectorKernels.max(array, from, to)
+                : ScalarKernels.max(array, from, to);
+    }
+
+    /**
+     * Finds the smallest number in part of array.
+     *
+     * @param array array of numbers
+     * @param from  first index of part
+     * @param to    index after the last one of part
+     * @return the smallest number, {@link Integer#MAX_VALUE} for empty part
+     * @throws IndexOutOfBoundsException when part is out of array
+     */
+    public static int min(int[] array, int from, int to) {
+        Objects.checkFromToIndex(from, to, array.length);
+        return VECTORIZED
+                ? VectorKernels.min(array, from, to)
+                : ScalarKernels.min(array, from, to);
+    }
+
+    /**
+     * Sums part of array.
+     *
+     * @param array array of numbers
+     * @param from  first index of part
+     * @param to    index after the last one of part
+     * @return sum of numbers, which does not overflow
+     * @throws IndexOutOfBoundsException when part is out of array
+     */
+    public static long sum(int[] array, int from, int to) {
+        Objects.checkFromToIndex(from, to, array.length);
+        return VECTORIZED
+                ? VectorKernels.sum(array, from, to)
+                : ScalarKernels.sum(array, from, to);
+    }
+
+    /**
+     * Computes count, the smallest and the largest number and sum of part
+     * of array in a single pass.
+     *
+     * @param array array of numbers
+     * @param from  first index of part
+     * @param to    index after the last one of part
+     * @return statistics of numbers
+     * @throws IndexOutOfBoundsException when part is out of array
+     */
+    public static IntSummaryStatistics summary(int[] array, int from, int to) {
+        Objects.checkFromToIndex(from, to, array.length);
+        return VECTORIZED
+                ? VectorKernels.summary(array, from, to)
+                : ScalarKernels.summary(array, from, to);
+    }
+
+    /**
+     * Checks that part of memory is inside of segment.
+     */
+    private static void checkRange(MemorySegment segment, long from, long to) {
+        Objects.checkFromToIndex(from, to,
+                segment.byteSize() / ValueLayout.JAVA_INT.byteSize());
+    }
+
+    /**
+     * Finds the largest number in part of memory.
+     *
+     * @param segment memory of numbers
+     * @param from    index of first number of part
+     * @param to      index after the last number of part
+     * @return the largest number, {@link Integer#MIN_VALUE} for empty part
+     * @throws IndexOutOfBoundsException when part is out of segment
+     */
+    public static int max(MemorySegment segment, long from, long to) {
+        checkRange(segment, from, to);
+        return VECTORIZED
+                ? VectorKernels.max(segment, from, to)
+                : ScalarKernels.max(segment, from, to);
+    }
+
+    /**
+     * Finds the smallest number in part of memory.
+     *
+     * @param segment memory of numbers
+     * @param from    index of first number of part
+     * @param to      index after the last number of part
+     * @return the smallest number, {@link Integer#MAX_VALUE} for empty part
+     * @throws IndexOutOfBoundsException when part is out of segment
+     */
+    public static int min(MemorySegment segment, long from, long to) {
+        checkRange(segment, from, to);
+        return VECTORIZED
+                ? VectorKernels.min(segment, from, to)
+                : ScalarKernels.min(segment, from, to);
+    }
+
+    /**
+     * Sums part of memory.
+     *
+     * @param segment memory of numbers
+     * @param from    index of first number of part
+     * @param to      index after the last number of part
+     * @return sum of numbers, which does not overflow
+     * @throws IndexOutOfBoundsException when part is out of segment
+     */
+    public static long sum(MemorySegment segment, long from, long to) {
+        checkRange(segment, from, to);
+        return VECTORIZED
+                ? VectorKernels.sum(segment, from, to)
+                : ScalarKernels.sum(segment, from, to);
+    }
+
+    /**
+     * Counts occurrences of number in part of array.
+     *
+     * @param array array of numbers
+     * @param from  first index of part
+     * @param to    index after the last one of part
+     * @param value counted number
+     * @return number of occurrences
+     * @throws IndexOutOfBoundsException when part is out of array
+     */
+    public static int count(int[] array, int from, int to, int value) {
+        Objects.checkFromToIndex(from, to, array.length);
+        return VECTORIZED
+                ? VectorKernels.count(array, from, to, value)
+                : ScalarKernels.count(array, from, to, value);
+    }
+}
@@ -0,0 +1,153 @@
+package pfko.vopalensky.simd;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.IntSummaryStatistics;
+
+/**
+ * Reductions of arrays computed one element after another. Used when
+ * the Vector API module is not available and for the tails of arrays
+ * shorter than one vector.
+ */
+final class ScalarKernels {
+    private ScalarKernels() {
+    }
+
+    /**
+     * Finds the largest number in part of array.
+     *
+     * @param array array of numbers
+     * @param from  first index of part
+     * @param to    index after the last one of part
+     * @return the largest number, {@link Integer#MIN_VALUE} for empty part
+     */
+    static int max(int[] array, int from, int to) {
+        int max = Integer.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            max = Math.max(max, array[i]);
+        }
+        return max;
+    }
+
+    /**
+     * Finds the smallest number in part of array.
+     *
+     * @param array array of numbers
+     * @param from  first index of part
+     * @param to    index after the last one of part
+     * @return the smallest number, {@link Integer#MAX_VALUE} for empty part
+     */
+    static int min(int[] array, int from, int to) {
+        int min = Integer.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+            min = Math.min(min, array[i]);
+        }
+        return min;
+    }
+
+    /**
+     * Sums part of array.
+     *
+     * @param array array of numbers
+     * @param from  first index of part
+     * @param to    index after the last one of part
+     * @return sum of numbers
+     */
+    static long sum(int[] array, int from, int to) {
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Computes the smallest and the largest number and sum of part
+     * of array at once.
+     *
+     * @param array array of numbers
+     * @param from  first index of part
+     * @param to    index after the last one of part
+     * @return statistics of numbers
+     */
+    static IntSummaryStatistics summary(int[] array, int from, int to) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            min = Math.min(min, array[i]);
+            max = Math.max(max, array[i]);
+            sum += array[i];
+        }
+        return new IntSummaryStatistics(to - from, min, max, sum);
+    }
+
+    /**
+     * Finds the largest number in part of memory holding ints in native
+     * byte order.
+     *
+     * @param segment memory of numbers
+     * @param from    index of first number of part
+     * @param to      index after the last number of part
+     * @return the largest number, {@link Integer#MIN_VALUE} for empty part
+     */
+    static int max(MemorySegment segment, long from, long to) {
+        int max = Integer.MIN_VALUE;
+        for (long i = from; i < to; i++) {
+            max = Math.max(max, segment.getAtIndex(ValueLayout.JAVA_INT, i));
+        }
+        return max;
+    }
+
+    /**
+     * Finds the smallest number in part of memory holding ints in native
+     * byte order.
+     *
+     * @param segment memory of numbers
+     * @param from    index of first number of part
+     * @param to      index after the last number of part
+     * @return the smallest number, {@link Integer#MAX_VALUE} for empty part
+     */
+    static int min(MemorySegment segment, long from, long to) {
+        int min = Integer.MAX_VALUE;
+        for (long i = from; i < to; i++) {
+            min = Math.min(min, segment.getAtIndex(ValueLayout.JAVA_INT, i));
+        }
+        return min;
+    }
+
+    /**
+     * Sums part of memory holding ints in native byte order.
+     *
+     * @param segment memory of numbers
+     * @param from    index of first number of part
+     * @param to      index after the last number of part
+     * @return sum of numbers
+     */
+    static long sum(MemorySegment segment, long from, long to) {
+        long sum = 0;
+        for (long i = from; i < to; i++) {
+            sum += segment.getAtIndex(ValueLayout.JAVA_INT, i);
+        }
+        return sum;
+    }
+
+    /**
+     * Counts occurrences of number in part of array.
+     *
+     * @param array array of numbers
+     * @param from  first index of part
+     * @param to    index after the last one of part
+     * @param value counted number
+     * @return number of occurrences
+     */
+    static int count(int[] array, int from, int to, int value) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (array[i] == value) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,219 @@
+package pfko.vopalensky.simd;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteOrder;
+import java.util.IntSummaryStatistics;
+
+/**
+ * Reductions of arrays computed by the Vector API, so that each step
+ * processes as many numbers as fit into one register of processor.
+ * Lanes are combined only once at the end and numbers after the last full
+ * vector are processed by {@link ScalarKernels}.
+ * <p>
+ * Class can be loaded only when module {@code jdk.incubator.vector}
+ * is available, see {@link IntReductions}.
+ */
+final class VectorKernels {
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    /**
+     * Longs of the same total size, every vector of ints is summed
+     * as two vectors of longs
+     */
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+    private VectorKernels() {
+    }
+
+    /**
+     * Returns index after the last full vector of part of array.
+     */
+    private static int bound(int from, int to) {
+        return from + INTS.loopBound(to - from);
+    }
+
+    /**
+     * Returns index after the last full vector of part of memory.
+     */
+    private static long bound(long from, long to) {
+        return from + ((to - from) & -INTS.length());
+    }
+
+    /**
+     * Loads vector of ints starting at index of int.
+     */
+    private static IntVector load(MemorySegment segment, long index) {
+        return IntVector.fromMemorySegment(INTS, segment,
+                index * Integer.BYTES, ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Finds the largest number in part of array.
+     *
+     * @param array array of numbers
+     * @param from  first index of part
+     * @param to    index after the last one of part
+     * @return the largest number, {@link Integer#MIN_VALUE} for empty part
+     */
+    static int max(int[] array, int from, int to) {
+        int bound = bound(from, to);
+        IntVector max = IntVector.broadcast(INTS, Integer.MIN_VALUE);
+        for (int i = from; i < bound; i += INTS.length()) {
+            max = max.max(IntVector.fromArray(INTS, array, i));
+        }
+        return Math.max(max.reduceLanes(VectorOperators.MAX),
+                ScalarKernels.max(array, bound, to));
+    }
+
+    /**
+     * Finds the smallest number in part of array.
+     *
+     * @param array array of numbers
+     * @param from  first index of part
+     * @param to    index after the last one of part
+     * @return the smallest number, {@link Integer#MAX_VALUE} for empty part
+     */
+    static int min(int[] array, int from, int to) {
+        int bound = bound(from, to);
+        IntVector min = IntVector.broadcast(INTS, Integer.MAX_VALUE);
+        for (int i = from; i < bound; i += INTS.length()) {
+            min = min.min(IntVector.fromArray(INTS, array, i));
+        }
+        return Math.min(min.reduceLanes(VectorOperators.MIN),
+                ScalarKernels.min(array, bound, to));
+    }
+
+    /**
+     * Sums part of array. Numbers are widened to longs before they are
+     * added, so the sum does not overflow.
+     *
+     * @param array array of numbers
+     * @param from  first index of part
+     * @param to    index after the last one of part
+     * @return sum of numbers
+     */
+    static long sum(int[] array, int from, int to) {
+        int bound = bound(from, to);
+        LongVector sum = LongVector.zero(LONGS);
+        for (int i = from; i < bound; i += INTS.length()) {
+            sum = add(sum, IntVector.fromArray(INTS, array, i));
+        }
+        return sum.reduceLanes(VectorOperators.ADD)
+                + ScalarKernels.sum(array, bound, to);
+    }
+
+    /**
+     * Adds both halves of vector of ints widened to longs.
+     */
+    private static LongVector add(LongVector sum, IntVector numbers) {
+        return sum
+                .add(numbers.convertShape(VectorOperators.I2L, LONGS, 0))
+                .add(numbers.convertShape(VectorOperators.I2L, LONGS, 1));
+    }
+
+    /**
+     * Computes the smallest and the largest number and sum of part
+     * of array in a single pass.
+     *
+     * @param array array of numbers
+     * @param from  first index of part
+     * @param to    index after the last one of part
+     * @return statistics of numbers
+     */
+    static IntSummaryStatistics summary(int[] array, int from, int to) {
+        int bound = bound(from, to);
+        IntVector min = IntVector.broadcast(INTS, Integer.MAX_VALUE);
+        IntVector max = IntVector.broadcast(INTS, Integer.MIN_VALUE);
+        LongVector sum = LongVector.zero(LONGS);
+        for (int i = from; i < bound; i += INTS.length()) {
+            IntVector numbers = IntVector.fromArray(INTS, array, i);
+            min = min.min(numbers);
+            max = max.max(numbers);
+            sum = add(sum, numbers);
+        }
+        IntSummaryStatistics tail = ScalarKernels.summary(array, bound, to);
+        return new IntSummaryStatistics(to - from,
+                Math.min(min.reduceLanes(VectorOperators.MIN), tail.getMin()),
+                Math.max(max.reduceLanes(VectorOperators.MAX), tail.getMax()),
+                sum.reduceLanes(VectorOperators.ADD) + tail.getSum());
+    }
+
+    /**
+     * Finds the largest number in part of memory holding ints in native
+     * byte order.
+     *
+     * @param segment memory of numbers
+     * @param from    index of first number of part
+     * @param to      index after the last number of part
+     * @return the largest number, {@link Integer#MIN_VALUE} for empty part
+     */
+    static int max(MemorySegment segment, long from, long to) {
+        long bound = bound(from, to);
+        IntVector max = IntVector.broadcast(INTS, Integer.MIN_VALUE);
+        for (long i = from; i < bound; i += INTS.length()) {
+            max = max.max(load(segment, i));
+        }
+        return Math.max(max.reduceLanes(VectorOperators.MAX),
+                ScalarKernels.max(segment, bound, to));
+    }
+
+    /**
+     * Finds the smallest number in part of memory holding ints in native
+     * byte order.
+     *
+     * @param segment memory of numbers
+     * @param from    index of first number of part
+     * @param to      index after the last number of part
+     * @return the smallest number, {@link Integer#MAX_VALUE} for empty part
+     */
+    static int min(MemorySegment segment, long from, long to) {
+        long bound = bound(from, to);
+        IntVector min = IntVector.broadcast(INTS, Integer.MAX_VALUE);
+        for (long i = from; i < bound; i += INTS.length()) {
+            min = min.min(load(segment, i));
+        }
+        return Math.min(min.reduceLanes(VectorOperators.MIN),
+                ScalarKernels.min(segment, bound, to));
+    }
+
+    /**
+     * Sums part of memory holding ints in native byte order.
+     *
+     * @param segment memory of numbers
+     * @param from    index of first number of part
+     * @param to      index after the last number of part
+     * @return sum of numbers
+     */
+    static long sum(MemorySegment segment, long from, long to) {
+        long bound = bound(from, to);
+        LongVector sum = LongVector.zero(LONGS);
+        for (long i = from; i < bound; i += INTS.length()) {
+            sum = add(sum, load(segment, i));
+        }
+        return sum.reduceLanes(VectorOperators.ADD)
+                + ScalarKernels.sum(segment, bound, to);
+    }
+
+    /**
+     * Counts occurrences of number in part of array.
+     *
+     * @param array array of numbers
+     * @param from  first index of part
+     * @param to    index after the last one of part
+     * @param value counted number
+     * @return number of occurrences
+     */
+    static int count(int[] array, int from, int to, int value) {
+        int bound = bound(from, to);
+        int count = 0;
+        for (int i = from; i < bound; i += INTS.length()) {
+            count += IntVector.fromArray(INTS, array, i)
+                    .compare(VectorOperators.EQ, value).trueCount();
+        }
+        return count + ScalarKernels.count(array, bound, to, value);
+    }
+}
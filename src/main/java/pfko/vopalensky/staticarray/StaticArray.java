@@ -1,10 +1,14 @@
 package pfko.vopalensky.staticarray;
 
+import pfko.vopalensky.simd.IntReductions;
+
 import java.io.PrintStream;
 import java.security.SecureRandom;
 import java.util.Arrays;
+import java.util.IntSummaryStatistics;
 import java.util.Objects;
 import java.util.Scanner;
+import java.util.function.IntPredicate;
 
 /**
  * Static class for working with arrays.
@@ -108,11 +112,7 @@ public class StaticArray {
         if (array.length == 0) {
             throw new ArrayIndexOutOfBoundsException();
         }
-        int max = array[0];
-        for (int number : array) {
-            max = Math.max(number, max);
-        }
-        return max;
+        return IntReductions.max(array, 0, array.length);
     }
 
     /**
@@ -127,52 +127,172 @@ public class StaticArray {
         if (array.length == 0) {
             throw new ArrayIndexOutOfBoundsException();
         }
-        int min = array[0];
-        for (int number : array) {
-            min = Math.min(number, min);
-        }
-        return min;
+        return IntReductions.min(array, 0, array.length);
+    }
+
+    /**
+     * Sums all numbers in an array.
+     *
+     * @param array Array of numbers to be summed.
+     * @return Sum of all numbers, computed as {@code long} so it does not
+     * overflow.
+     */
+    public static long sum(int[] array) {
+        return IntReductions.sum(array, 0, array.length);
+    }
+
+    /**
+     * Computes count, the smallest number, the largest number and sum
+     * of an array at once.
+     *
+     * @param array Array of numbers to be described.
+     * @return Statistics of numbers in array.
+     */
+    public static IntSummaryStatistics summary(int[] array) {
+        return IntReductions.summary(array, 0, array.length);
+    }
+
+    /**
+     * Counts occurrences of a number in an array.
+     *
+     * @param array  Array to count the number in.
+     * @param number Number to be counted.
+     * @return How many times the number is in array.
+     */
+    public static int count(int[] array, int number) {
+        return IntReductions.count(array, 0, array.length, number);
     }
 
     /**
      * Removes just one or all occurrences of a number in an array based
-     * on user choice
+     * on user choice. User is asked only when the number occurs more than
+     * once.
      *
      * @param array  Original array to delete numbers from.
      * @param number Number to be deleted
      * @return New array without deleted elements
      */
     public static int[] remove(int[] array, int number) {
-        boolean firstDeleted = false;
-        boolean deleteAll = false;
+        int[] shortArray = removeFirst(array, number);
+        if (count(shortArray, number) > 0 && confirmRemoveAll()) {
+            return removeAll(shortArray, number);
+        }
+        return shortArray;
+    }
+
+    /**
+     * Asks user whether all occurrences of a number should be deleted.
+     *
+     * @return true if user agreed
+     */
+    private static boolean confirmRemoveAll() {
+        out.println("Do you wish to delete all occurrences? ["
+                + AGREE_ON_MULTIPLE + "/"
+                + NOT_AGREE_ON_MULTIPLE + "]");
+        Scanner in = new Scanner(System.in);
+        return Objects.equals(in.nextLine(), AGREE_ON_MULTIPLE);
+    }
+
+    /**
+     * Removes the first occurrence of a number in an array.
+     *
+     * @param array  Original array to delete number from.
+     * @param number Number to be deleted.
+     * @return New array without the first occurrence of number, the original
+     * array when it does not contain the number.
+     */
+    public static int[] removeFirst(int[] array, int number) {
         for (int i = 0; i < array.length; i++) {
-            while (i < array.length && array[i] == number) {
-                if (!deleteAll && firstDeleted) {
-                    out.println("Do you wish to delete all occurrences? ["
-                            + AGREE_ON_MULTIPLE + "/"
-                            + NOT_AGREE_ON_MULTIPLE + "]");
-                    Scanner in = new Scanner(System.in);
-
-                    if (Objects.equals(in.nextLine(), AGREE_ON_MULTIPLE)) {
-                        deleteAll = true;
-                    } else {
-                        return array;
-                    }
-                }
-
-                int[] shortArray = new int[array.length - 1];
-                System.arraycopy(array, 0,
-                        shortArray, 0, i);
-                System.arraycopy(array, i + 1,
-                        shortArray, i, array.length - i - 1);
-                array = shortArray;
-
-                firstDeleted = true;
+            if (array[i] == number) {
+                return removeRange(array, i, i + 1);
             }
         }
         return array;
     }
 
+    /**
+     * Removes all occurrences of a number in an array.
+     *
+     * @param array  Original array to delete numbers from.
+     * @param number Number to be deleted.
+     * @return New array without deleted elements.
+     */
+    public static int[] removeAll(int[] array, int number) {
+        return removeIf(array, value -> value == number);
+    }
+
+    /**
+     * Removes all occurrences of any of given numbers in an array.
+     *
+     * @param array   Original array to delete numbers from.
+     * @param numbers Numbers to be deleted.
+     * @return New array without deleted elements.
+     */
+    public static int[] removeAll(int[] array, int... numbers) {
+        int[] sorted = sorted(numbers);
+        return removeIf(array,
+                value -> Arrays.binarySearch(sorted, value) >= 0);
+    }
+
+    /**
+     * Keeps only occurrences of given numbers in an array.
+     *
+     * @param array   Original array to delete numbers from.
+     * @param numbers Numbers to be kept.
+     * @return New array of elements equal to some of the numbers.
+     */
+    public static int[] retainAll(int[] array, int... numbers) {
+        int[] sorted = sorted(numbers);
+        return removeIf(array,
+                value -> Arrays.binarySearch(sorted, value) < 0);
+    }
+
+    /**
+     * Returns sorted copy of numbers, so they can be looked up by binary
+     * search.
+     */
+    private static int[] sorted(int[] numbers) {
+        int[] sorted = numbers.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Removes all numbers matching a condition from an array. Array is
+     * gone through only once and kept numbers stay in their order.
+     *
+     * @param array     Original array to delete numbers from.
+     * @param condition Condition of numbers to be deleted.
+     * @return New array without deleted elements.
+     */
+    public static int[] removeIf(int[] array, IntPredicate condition) {
+        int[] kept = new int[array.length];
+        int count = 0;
+        for (int number : array) {
+            if (!condition.test(number)) {
+                kept[count++] = number;
+            }
+        }
+        return count == array.length ? kept : Arrays.copyOf(kept, count);
+    }
+
+    /**
+     * Removes continuous part of an array.
+     *
+     * @param array Original array to delete numbers from.
+     * @param from  Index of the first deleted element.
+     * @param to    Index after the last deleted element.
+     * @return New array without deleted elements.
+     * @throws IndexOutOfBoundsException when the part is out of array
+     */
+    public static int[] removeRange(int[] array, int from, int to) {
+        Objects.checkFromToIndex(from, to, array.length);
+        int[] shortArray = new int[array.length - (to - from)];
+        System.arraycopy(array, 0, shortArray, 0, from);
+        System.arraycopy(array, to, shortArray, from, array.length - to);
+        return shortArray;
+    }
+
     /**
      * Ends the program.
      */
@@ -0,0 +1,98 @@
+package pfko.vopalensky.filesndcollections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import pfko.vopalensky.filesandcollections.CoOccurrence;
+import pfko.vopalensky.filesandcollections.FileApp;
+import pfko.vopalensky.filesandcollections.Game;
+import pfko.vopalensky.filesandcollections.GameQuery;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class CoOccurrenceTest {
+    static FileApp fa;
+
+    @BeforeAll
+    static void load() throws IOException {
+        fa = new FileApp();
+        fa.load("/pfko/vopalensky/filesandcollections/games.csv");
+    }
+
+    @Test
+    void countsEqualNestedLoops() {
+        Map<String, Map<String, Integer>> expected = new HashMap<>();
+        int pairs = 0;
+        for (Game game : fa.getGames()) {
+            for (String developer : game.developers()) {
+                for (String publisher : game.publishers()) {
+                    expected.computeIfAbsent(developer, key -> new HashMap<>())
+                            .merge(publisher, 1, Integer::sum);
+                }
+            }
+        }
+        CoOccurrence matrix = fa.getCoOccurrence(GameQuery.Field.DEVELOPER,
+                GameQuery.Field.PUBLISHER);
+        Assertions.assertEquals(expected.keySet(), Map.copyOf(
+                matrix.topPerRow(0)).keySet());
+        for (Map.Entry<String, Map<String, Integer>> row : expected.entrySet()) {
+            pairs += row.getValue().size();
+            for (Map.Entry<String, Integer> cell : row.getValue().entrySet()) {
+                Assertions.assertEquals(cell.getValue(),
+                        matrix.count(row.getKey(), cell.getKey()));
+            }
+            Assertions.assertEquals(row.getValue(), Map.ofEntries(
+                    matrix.row(row.getKey()).toArray(Map.Entry[]::new)));
+        }
+        Assertions.assertEquals(pairs, matrix.cells());
+        Assertions.assertEquals(0, matrix.count("Nobody", "Ubisoft"));
+        Assertions.assertTrue(matrix.row("Nobody").isEmpty());
+    }
+
+    @Test
+    void topPerRow() {
+        CoOccurrence matrix = fa.getCoOccurrence(GameQuery.Field.PUBLISHER,
+                GameQuery.Field.GENRE);
+        List<Map.Entry<String, Integer>> ubisoft = matrix.top("Ubisoft", 3);
+        Assertions.assertEquals(3, ubisoft.size());
+        Assertions.assertEquals(fa.countBy(new GameQuery().publisher("Ubisoft")
+                .limit(3), GameQuery.Field.GENRE), ubisoft);
+        Assertions.assertEquals(ubisoft, matrix.topPerRow(3).get("Ubisoft"));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> matrix.top("Ubisoft", -1));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> fa.getCoOccurrence(GameQuery.Field.YEAR,
+                        GameQuery.Field.GENRE));
+    }
+
+    @Test
+    void emptyCatalog() {
+        CoOccurrence matrix = new FileApp().getCoOccurrence(
+                GameQuery.Field.DEVELOPER, GameQuery.Field.GENRE);
+        Assertions.assertEquals(0, matrix.cells());
+        Assertions.assertTrue(matrix.rows().isEmpty());
+    }
+
+    @Test
+    void partialsOfRangesAreMerged() throws IOException {
+        FileApp tripled = new FileApp();
+        for (int i = 0; i < 3; i++) {
+            tripled.load("/pfko/vopalensky/filesandcollections/games.csv");
+        }
+        CoOccurrence single = fa.getCoOccurrence(GameQuery.Field.DEVELOPER,
+                GameQuery.Field.GENRE);
+        CoOccurrence matrix = tripled.getCoOccurrence(
+                GameQuery.Field.DEVELOPER, GameQuery.Field.GENRE);
+        Assertions.assertEquals(single.cells(), matrix.cells());
+        Assertions.assertEquals(single.rows(), matrix.rows());
+        for (String row : single.rows()) {
+            Assertions.assertEquals(single.row(row).stream()
+                            .map(cell -> Map.entry(cell.getKey(), cell.getValue() * 3))
+                            .toList(),
+                    matrix.row(row));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package pfko.vopalensky.filesndcollections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pfko.vopalensky.filesandcollections.ExportPipeline;
+import pfko.vopalensky.filesandcollections.FileApp;
+import pfko.vopalensky.filesandcollections.Game;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+class ExportPipelineTest {
+    private static final String GAMES = "/pfko/vopalensky/filesandcollections/games.csv";
+
+    void assertSameContent(Path expected, Path actual) throws IOException {
+        Assertions.assertEquals(Files.readAllLines(expected),
+                Files.readAllLines(actual));
+    }
+
+    @Test
+    void pipelineEqualsSeparateExports(@TempDir Path dir) throws IOException {
+        FileApp fa = new FileApp();
+        fa.load(GAMES);
+        fa.createGenreFile(dir.resolve("genres.txt").toString());
+        fa.createSimulatorFile(dir.resolve("simulators.csv").toString());
+        fa.createPublishersFile(dir.resolve("publishers.csv").toString());
+        fa.export(new ExportPipeline()
+                .genres(dir.resolve("genres2.txt").toString())
+                .simulatorGames(dir.resolve("simulators2.csv").toString())
+                .publisherCounts(dir.resolve("publishers2.csv").toString()));
+        assertSameContent(dir.resolve("genres.txt"), dir.resolve("genres2.txt"));
+        assertSameContent(dir.resolve("simulators.csv"),
+                dir.resolve("simulators2.csv"));
+        assertSameContent(dir.resolve("publishers.csv"),
+                dir.resolve("publishers2.csv"));
+    }
+
+    @Test
+    void streamedPipeline(@TempDir Path dir) throws IOException {
+        FileApp fa = new FileApp();
+        fa.load(GAMES);
+        fa.createPublishersFile(dir.resolve("publishers.csv").toString());
+        try (Stream<Game> games = FileApp.stream(GAMES)) {
+            new ExportPipeline()
+                    .publisherCounts(dir.resolve("publishers2.csv").toString())
+                    .run(games);
+        }
+        assertSameContent(dir.resolve("publishers.csv"),
+                dir.resolve("publishers2.csv"));
+    }
+
+    @Test
+    void everyGenreFiles(@TempDir Path dir) throws IOException {
+        FileApp fa = new FileApp();
+        fa.load(GAMES);
+        fa.createSimulatorFile(dir.resolve("simulators.csv").toString());
+        Path genres = dir.resolve("genres");
+        fa.export(new ExportPipeline().gamesOfEveryGenre(genres));
+        try (Stream<Path> files = Files.list(genres)) {
+            Assertions.assertEquals(fa.getAllGenres().size(), files.count());
+        }
+        assertSameContent(dir.resolve("simulators.csv"),
+                genres.resolve("Simulator.csv"));
+    }
+
+    @Test
+    void collidingGenreFiles(@TempDir Path dir) throws IOException {
+        List<Game> games = List.of(
+                new Game("First", "2001", List.of(), List.of(),
+                        List.of("Action & Adventure")),
+                new Game("Second", "2002", List.of(), List.of(),
+                        List.of("Action-Adventure")),
+                new Game("Third", "2003", List.of(), List.of(),
+                        List.of("action adventure")));
+        new ExportPipeline().gamesOfEveryGenre(dir).run(games);
+        Assertions.assertEquals("released,title\n2001,First\n",
+                Files.readString(dir.resolve("Action_Adventure.csv")));
+        Assertions.assertEquals("released,title\n2002,Second\n",
+                Files.readString(dir.resolve("Action_Adventure_2.csv")));
+        Assertions.assertEquals("released,title\n2003,Third\n",
+                Files.readString(dir.resolve("action_adventure_3.csv")));
+    }
+
+    @Test
+    void failedExport(@TempDir Path dir) throws IOException {
+        FileApp fa = new FileApp();
+        fa.load(GAMES);
+        Assertions.assertThrows(FileNotFoundException.class, () ->
+                fa.export(new ExportPipeline()
+                        .genres(dir.resolve("genres.txt").toString())
+                        .publisherCounts(dir.resolve("missing")
+                                .resolve("publishers.csv").toString())));
+        Assertions.assertTrue(Files.exists(dir.resolve("genres.txt")));
+    }
+}
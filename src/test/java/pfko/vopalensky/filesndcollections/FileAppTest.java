@@ -2,6 +2,7 @@ package pfko.vopalensky.filesndcollections;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import pfko.vopalensky.filesandcollections.Game;
 import pfko.vopalensky.filesandcollections.exceptions.EmptyFileException;
 import pfko.vopalensky.filesandcollections.FileApp;
@@ -9,11 +10,28 @@ import pfko.vopalensky.filesandcollections.exceptions.InvalidFileFormatException
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 class FileAppTest {
 
+    Path resourcePath(String resource) throws URISyntaxException {
+        return Path.of(Objects.requireNonNull(
+                getClass().getResource(resource)).toURI());
+    }
+
     @Test
     void testLength() throws IOException {
         FileApp fa = new FileApp();
@@ -99,4 +117,263 @@ class FileAppTest {
                 "KnightOut",
                 simulators.get(1).title());
     }
+
+    @Test
+    void manyQuotedFields() throws IOException {
+        FileApp fa = new FileApp();
+        fa.load("/pfko/vopalensky/filesandcollections/quotes.csv");
+        Game game = fa.getGames().get(0);
+        Assertions.assertEquals("\"Casino, Inc.\"", game.title());
+        Assertions.assertEquals(List.of("Hothouse Creations", "Team Two"),
+                game.developers());
+        Assertions.assertEquals(List.of("Konami", "Eidos"), game.publishers());
+        Assertions.assertEquals(List.of("Simulator", "Strategy", "Indie",
+                "Puzzle", "Adventure"), game.genres());
+    }
+
+    @Test
+    void parallelLoadKeepsOrder() throws IOException {
+        FileApp sequential = new FileApp();
+        sequential.load("/pfko/vopalensky/filesandcollections/games.csv");
+        FileApp parallel = new FileApp();
+        parallel.load("/pfko/vopalensky/filesandcollections/games.csv", 4);
+        Assertions.assertEquals(sequential.getGames(), parallel.getGames());
+    }
+
+    @Test
+    void parallelInvalidFile() {
+        Assertions.assertThrows(InvalidFileFormatException.class, () -> {
+            FileApp fa = new FileApp();
+            fa.load("/pfko/vopalensky/filesandcollections/invalid.csv", 4);
+        });
+    }
+
+    @Test
+    void parallelEmptyFile() {
+        Assertions.assertThrows(EmptyFileException.class, () -> {
+            FileApp fa = new FileApp();
+            fa.load("/pfko/vopalensky/filesandcollections/empty.csv", 4);
+        });
+    }
+
+    @Test
+    void invalidParallelism() {
+        FileApp fa = new FileApp();
+        Assertions.assertThrows(IllegalArgumentException.class, () ->
+                fa.load("/pfko/vopalensky/filesandcollections/happy.csv", 0));
+    }
+
+    @Test
+    void mappedLoadEqualsResourceLoad() throws IOException, URISyntaxException {
+        FileApp fromResource = new FileApp();
+        fromResource.load("/pfko/vopalensky/filesandcollections/games.csv");
+        FileApp mapped = new FileApp();
+        mapped.load(resourcePath("/pfko/vopalensky/filesandcollections/games.csv"));
+        Assertions.assertEquals(fromResource.getGames(), mapped.getGames());
+
+        FileApp mappedParallel = new FileApp();
+        mappedParallel.load(resourcePath(
+                "/pfko/vopalensky/filesandcollections/games.csv"), 3);
+        Assertions.assertEquals(fromResource.getGames(), mappedParallel.getGames());
+    }
+
+    @Test
+    void mappedQuotedFields() throws IOException, URISyntaxException {
+        FileApp fa = new FileApp();
+        fa.load(resourcePath("/pfko/vopalensky/filesandcollections/quotes.csv"));
+        Game game = fa.getGames().get(0);
+        Assertions.assertEquals(List.of("Hothouse Creations", "Team Two"),
+                game.developers());
+        Assertions.assertEquals(5, game.genres().size());
+    }
+
+    @Test
+    void mappedNonexistentFile() {
+        Assertions.assertThrows(FileNotFoundException.class, () -> {
+            FileApp fa = new FileApp();
+            fa.load(Path.of("nonexistent.csv"));
+        });
+    }
+
+    @Test
+    void mappedEmptyFile() {
+        Assertions.assertThrows(EmptyFileException.class, () -> {
+            FileApp fa = new FileApp();
+            fa.load(resourcePath("/pfko/vopalensky/filesandcollections/empty.csv"));
+        });
+    }
+
+    @Test
+    void repeatedLoadAppends() throws IOException {
+        FileApp fa = new FileApp();
+        fa.load("/pfko/vopalensky/filesandcollections/happy.csv");
+        fa.load("/pfko/vopalensky/filesandcollections/happy.csv");
+        Assertions.assertEquals(6, fa.getGames().size());
+        Assertions.assertEquals(8, fa.getAllGenres().size());
+        Assertions.assertEquals(4, fa.getGameByGenre("Strategy").size());
+        Assertions.assertEquals(fa.getGames().get(0), fa.getGames().get(3));
+    }
+
+    @Test
+    void failedLoadKeepsPreviousGames() throws IOException {
+        FileApp fa = new FileApp();
+        fa.load("/pfko/vopalensky/filesandcollections/publishers.csv");
+        Assertions.assertThrows(InvalidFileFormatException.class, () ->
+                fa.load("/pfko/vopalensky/filesandcollections/invalid.csv"));
+        Assertions.assertEquals(8, fa.getGames().size());
+        Assertions.assertEquals(5, fa.getPublisherCounts().get(0).getValue());
+        Assertions.assertEquals("Bethesda Softworks",
+                fa.getPublisherCounts().get(0).getKey());
+    }
+
+    @Test
+    void gamesAreReadOnly() throws IOException {
+        FileApp fa = new FileApp();
+        fa.load("/pfko/vopalensky/filesandcollections/happy.csv");
+        List<Game> games = fa.getGames();
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> games.remove(0));
+    }
+
+    @Test
+    void gamesWithAllGenres() throws IOException {
+        FileApp fa = new FileApp();
+        fa.load("/pfko/vopalensky/filesandcollections/games.csv");
+        List<Game> expected = fa.getGameByGenre("Strategy").stream()
+                .filter(game -> game.genres().contains("Indie")
+                        && game.genres().contains("Puzzle"))
+                .toList();
+        Assertions.assertFalse(expected.isEmpty());
+        Assertions.assertEquals(expected,
+                fa.getGamesWithAllGenres("Puzzle", "Strategy", "Indie"));
+        Assertions.assertTrue(
+                fa.getGamesWithAllGenres("Strategy", "Nonexistent").isEmpty());
+    }
+
+    @Test
+    void gamesWithAnyGenre() throws IOException {
+        FileApp fa = new FileApp();
+        fa.load("/pfko/vopalensky/filesandcollections/TBA.csv");
+        List<String> titles = fa.getGamesWithAnyGenre("Simulator", "Adventure",
+                "Nonexistent").stream().map(Game::title).toList();
+        Assertions.assertEquals(List.of("Mount & Blade: Warband",
+                "Dark Souls: Prepare to Die Edition", "KnightOut"), titles);
+    }
+
+    @Test
+    void gamesReleasedBetween() throws IOException {
+        FileApp fa = new FileApp();
+        fa.load("/pfko/vopalensky/filesandcollections/TBA.csv");
+        Assertions.assertEquals(List.of("Mount & Blade: Warband",
+                        "Dark Souls: Prepare to Die Edition"),
+                fa.getGamesReleasedBetween(2005, 2012).stream()
+                        .map(Game::title).toList());
+        Assertions.assertEquals(3, fa.getGamesReleasedBetween(
+                Integer.MIN_VALUE, Integer.MAX_VALUE).size());
+        Assertions.assertTrue(fa.getGamesReleasedBetween(2013, 2000).isEmpty());
+    }
+
+    @Test
+    void releaseCounts() throws IOException {
+        FileApp fa = new FileApp();
+        fa.load("/pfko/vopalensky/filesandcollections/games.csv");
+        SortedMap<Integer, Integer> expected = new TreeMap<>();
+        SortedMap<Integer, Integer> expectedAdventures = new TreeMap<>();
+        for (Game game : fa.getGames()) {
+            if (game.released().matches("[0-9]+")) {
+                int year = Integer.parseInt(game.released());
+                expected.merge(year, 1, Integer::sum);
+                if (game.genres().contains("Adventure")) {
+                    expectedAdventures.merge(year, 1, Integer::sum);
+                }
+            }
+        }
+        Assertions.assertEquals(expected, fa.getReleaseCounts());
+        Assertions.assertEquals(expectedAdventures,
+                fa.getReleaseCountsByGenre("Adventure"));
+    }
+
+    @Test
+    void releaseCountsByPublisher() throws IOException {
+        FileApp fa = new FileApp();
+        fa.load("/pfko/vopalensky/filesandcollections/publishers.csv");
+        Assertions.assertEquals(Map.of(2008, 1, 2010, 1, 2015, 1, 2016, 1, 2018, 1),
+                fa.getReleaseCountsByPublisher("Bethesda Softworks"));
+        Assertions.assertTrue(fa.getReleaseCountsByPublisher("Nobody").isEmpty());
+    }
+
+    @Test
+    void topPublishers() throws IOException {
+        FileApp fa = new FileApp();
+        fa.load("/pfko/vopalensky/filesandcollections/games.csv");
+        List<Map.Entry<String, Integer>> counts = fa.getPublisherCounts();
+        Assertions.assertEquals(counts.subList(0, 20), fa.getTopPublishers(20));
+        Assertions.assertEquals(counts, fa.getTopPublishers(counts.size() + 5));
+        Assertions.assertTrue(fa.getTopPublishers(0).isEmpty());
+    }
+
+    @Test
+    void topGenresAndDevelopers() throws IOException {
+        FileApp fa = new FileApp();
+        fa.load("/pfko/vopalensky/filesandcollections/games.csv");
+        List<Map.Entry<String, Integer>> genres = fa.getTopGenres(3);
+        Assertions.assertEquals(3, genres.size());
+        Assertions.assertEquals(fa.getGameByGenre(genres.get(0).getKey()).size(),
+                genres.get(0).getValue());
+        Assertions.assertTrue(genres.get(0).getValue() >= genres.get(1).getValue());
+        Assertions.assertEquals(1, fa.getTopDevelopers(1).size());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> fa.getTopDevelopers(-1));
+    }
+
+    @Test
+    void queriesDuringLoads() throws Exception {
+        FileApp fa = new FileApp();
+        fa.load("/pfko/vopalensky/filesandcollections/happy.csv");
+        AtomicBoolean loading = new AtomicBoolean(true);
+        Callable<Integer> reader = () -> {
+            int queries = 0;
+            do {
+                List<Game> games = fa.getGames();
+                Assertions.assertEquals(0, games.size() % 3);
+                for (Game game : games) {
+                    Assertions.assertNotNull(game.title());
+                }
+                // Every load adds 2 strategies out of 3 games, later version
+                // can only have more games
+                int strategies = fa.getGameByGenre("Strategy").size();
+                Assertions.assertTrue(strategies * 3 <= fa.getGames().size() * 2);
+                Assertions.assertEquals(8, fa.getAllGenres().size());
+                queries++;
+            } while (loading.get());
+            return queries;
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<Integer>> readers = List.of(executor.submit(reader),
+                    executor.submit(reader), executor.submit(reader));
+            for (int i = 0; i < 200; i++) {
+                fa.load("/pfko/vopalensky/filesandcollections/happy.csv");
+            }
+            loading.set(false);
+            for (Future<Integer> queries : readers) {
+                Assertions.assertTrue(queries.get() > 0);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assertions.assertEquals(603, fa.getGames().size());
+    }
+
+    @Test
+    void parallelInvalidLastChunk(@TempDir Path dir)
+            throws IOException, URISyntaxException {
+        Path file = dir.resolve("games.csv");
+        Files.copy(resourcePath("/pfko/vopalensky/filesandcollections/games.csv"), file);
+        Files.writeString(file, "Broken line\n", StandardOpenOption.APPEND);
+        FileApp fa = new FileApp();
+        Assertions.assertThrows(InvalidFileFormatException.class,
+                () -> fa.load(file, 4));
+        Assertions.assertTrue(fa.getGames().isEmpty());
+    }
 }
@@ -0,0 +1,201 @@
+package pfko.vopalensky.filesndcollections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pfko.vopalensky.filesandcollections.FileApp;
+import pfko.vopalensky.filesandcollections.FileWatcher;
+import pfko.vopalensky.filesandcollections.Game;
+import pfko.vopalensky.filesandcollections.GameQuery;
+import pfko.vopalensky.filesandcollections.exceptions.InvalidFileFormatException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+
+class FollowTest {
+    private static final String GAMES = "/pfko/vopalensky/filesandcollections/games.csv";
+    private static final String NEW_GAMES = """
+            Follow Quest,2031,Tail Studio,Tail Publishing,"Adventure,Following"
+            Follow Quest 2,TBA,Tail Studio,Tail Publishing,Adventure
+            """;
+
+    Path copyOfGames(Path dir) throws IOException {
+        Path file = dir.resolve("games.csv");
+        try (InputStream is = Objects.requireNonNull(
+                getClass().getResourceAsStream(GAMES))) {
+            Files.copy(is, file);
+        }
+        return file;
+    }
+
+    void append(Path file, String lines) throws IOException {
+        Files.writeString(file, lines, StandardOpenOption.APPEND);
+    }
+
+    @Test
+    void refreshLoadsAppendedLines(@TempDir Path dir) throws IOException {
+        Path file = copyOfGames(dir);
+        FileApp loaded = new FileApp();
+        loaded.load(GAMES);
+        FileApp followed = new FileApp();
+        followed.follow(file);
+        Assertions.assertEquals(loaded.getGames(), followed.getGames());
+        Assertions.assertEquals(0, followed.refresh());
+
+        append(file, NEW_GAMES);
+        Assertions.assertEquals(2, followed.refresh());
+        List<Game> games = followed.getGames();
+        Assertions.assertEquals(loaded.getGames().size() + 2, games.size());
+        Assertions.assertEquals(new Game("Follow Quest", "2031",
+                List.of("Tail Studio"), List.of("Tail Publishing"),
+                List.of("Adventure", "Following")), games.get(games.size() - 2));
+        Assertions.assertTrue(followed.getAllGenres().contains("Following"));
+        Assertions.assertEquals(2, followed.getPublisherCounts().stream()
+                .filter(entry -> entry.getKey().equals("Tail Publishing"))
+                .findFirst().orElseThrow().getValue());
+        Assertions.assertEquals(1, followed.getGamesReleasedBetween(2031, 2031).size());
+    }
+
+    @Test
+    void unfinishedLineWaits(@TempDir Path dir) throws IOException {
+        Path file = copyOfGames(dir);
+        FileApp fa = new FileApp();
+        fa.follow(file);
+        int size = fa.getGames().size();
+        append(file, "Half Written,20");
+        Assertions.assertEquals(0, fa.refresh());
+        append(file, "20,Studio,Publisher,Action\n");
+        Assertions.assertEquals(1, fa.refresh());
+        Assertions.assertEquals("2020", fa.getGames().get(size).released());
+    }
+
+    @Test
+    void invalidAppendedLine(@TempDir Path dir) throws IOException {
+        Path file = copyOfGames(dir);
+        FileApp fa = new FileApp();
+        fa.follow(file);
+        List<Game> before = fa.getGames();
+        append(file, "Broken line\n");
+        Assertions.assertThrows(InvalidFileFormatException.class, fa::refresh);
+        Assertions.assertEquals(before, fa.getGames());
+
+        // Invalid line is skipped, lines appended after it are loaded
+        append(file, NEW_GAMES);
+        Assertions.assertEquals(2, fa.refresh());
+        append(file, "Broken again\n" + NEW_GAMES);
+        Assertions.assertThrows(InvalidFileFormatException.class, fa::refresh);
+        Assertions.assertEquals(before.size() + 4, fa.getGames().size());
+        Assertions.assertEquals(0, fa.refresh());
+    }
+
+    @Test
+    void replacedFileIsLoadedAgain(@TempDir Path dir) throws IOException {
+        Path file = copyOfGames(dir);
+        FileApp fa = new FileApp();
+        fa.load("/pfko/vopalensky/filesandcollections/happy.csv");
+        fa.follow(file);
+        Files.writeString(file, "title,released,developers,publishers,genres\n"
+                + NEW_GAMES);
+        Assertions.assertEquals(2, fa.refresh());
+        Assertions.assertEquals(5, fa.getGames().size());
+        Assertions.assertEquals("Follow Quest 2", fa.getGames().get(4).title());
+    }
+
+    @Test
+    void refreshWithoutFollowedFile() throws IOException {
+        FileApp fa = new FileApp();
+        Assertions.assertThrows(IllegalStateException.class, fa::refresh);
+        Assertions.assertThrows(IllegalStateException.class, fa::watch);
+    }
+
+    @Test
+    void watcherLoadsAppendedLines(@TempDir Path dir)
+            throws IOException, InterruptedException {
+        Path file = copyOfGames(dir);
+        FileApp fa = new FileApp();
+        fa.follow(file);
+        int size = fa.getGames().size();
+        try (FileWatcher ignored = fa.watch()) {
+            append(file, NEW_GAMES);
+            for (int i = 0; i < 200 && fa.getGames().size() == size; i++) {
+                Thread.sleep(50);
+            }
+        }
+        Assertions.assertEquals(size + 2, fa.getGames().size());
+    }
+
+    @Test
+    void replacedFileKeepsPreviousVersion(@TempDir Path dir) throws IOException {
+        Path file = copyOfGames(dir);
+        FileApp fa = new FileApp();
+        fa.follow(file);
+        List<Game> before = fa.getGames();
+        List<Game> copy = List.copyOf(before);
+        Files.writeString(file, "title,released,developers,publishers,genres\n"
+                + NEW_GAMES);
+        fa.refresh();
+        append(file, NEW_GAMES + NEW_GAMES);
+        fa.refresh();
+        Assertions.assertEquals(6, fa.getGames().size());
+        Assertions.assertEquals(copy, before);
+    }
+
+    /**
+     * Compares answers of indexes of followed app with indexes of app
+     * which loaded the whole file at once.
+     */
+    void assertSameIndexes(FileApp expected, FileApp actual) {
+        Assertions.assertEquals(expected.getGames(), actual.getGames());
+        Assertions.assertEquals(expected.getSimulatorGames(), actual.getSimulatorGames());
+        Assertions.assertEquals(expected.getGameByGenre("Following"),
+                actual.getGameByGenre("Following"));
+        Assertions.assertEquals(expected.getGamesWithAnyGenre("Adventure", "Action"),
+                actual.getGamesWithAnyGenre("Adventure", "Action"));
+        Assertions.assertEquals(expected.getGamesReleasedBetween(1990, 2040),
+                actual.getGamesReleasedBetween(1990, 2040));
+        Assertions.assertEquals(expected.getReleaseCounts(), actual.getReleaseCounts());
+        Assertions.assertEquals(expected.getReleaseCountsByPublisher("Tail Publishing"),
+                actual.getReleaseCountsByPublisher("Tail Publishing"));
+        Assertions.assertEquals(expected.getGamesByTitlePrefix("follow", 100),
+                actual.getGamesByTitlePrefix("follow", 100));
+        Assertions.assertEquals(expected.getGamesByTitleContaining("Quest"),
+                actual.getGamesByTitleContaining("Quest"));
+        Assertions.assertEquals(expected.getGamesWithSimilarTitle("Folow Qest", 10),
+                actual.getGamesWithSimilarTitle("Folow Qest", 10));
+        GameQuery byTitle = new GameQuery().orderBy(GameQuery.Order.TITLE);
+        Assertions.assertEquals(expected.query(byTitle), actual.query(byTitle));
+    }
+
+    @Test
+    void refreshExtendsIndexes(@TempDir Path dir) throws IOException {
+        Path file = copyOfGames(dir);
+        FileApp followed = new FileApp();
+        followed.follow(file);
+        FileApp loaded = new FileApp();
+        loaded.load(file);
+        // Indexes of the first version are built before anything is appended
+        assertSameIndexes(loaded, followed);
+
+        append(file, NEW_GAMES + """
+                follow quest,1995,Tail Studio,Other Publishing,Action
+                Zebra Follow,UNKNOWN,Tail Studio,Tail Publishing,Following
+                """);
+        followed.refresh();
+        loaded = new FileApp();
+        loaded.load(file);
+        assertSameIndexes(loaded, followed);
+
+        append(file, NEW_GAMES);
+        followed.refresh();
+        append(file, "Aardvark Quest,1980,Tail Studio,Tail Publishing,Following\n");
+        followed.refresh();
+        loaded = new FileApp();
+        loaded.load(file);
+        assertSameIndexes(loaded, followed);
+    }
+}
@@ -0,0 +1,123 @@
+package pfko.vopalensky.filesndcollections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pfko.vopalensky.filesandcollections.FileApp;
+import pfko.vopalensky.filesandcollections.Game;
+import pfko.vopalensky.filesandcollections.GameCollectors;
+import pfko.vopalensky.filesandcollections.GameExports;
+import pfko.vopalensky.filesandcollections.SpaceSaving;
+import pfko.vopalensky.filesandcollections.exceptions.EmptyFileException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+class GameCollectorsTest {
+    private static final String GAMES = "/pfko/vopalensky/filesandcollections/games.csv";
+
+    Path resourcePath(String resource) throws URISyntaxException {
+        return Path.of(Objects.requireNonNull(
+                getClass().getResource(resource)).toURI());
+    }
+
+    @Test
+    void streamedQueriesEqualLoaded() throws IOException {
+        FileApp fa = new FileApp();
+        fa.load(GAMES);
+        try (Stream<Game> games = FileApp.stream(GAMES)) {
+            Assertions.assertEquals(fa.getGames(), games.toList());
+        }
+        try (Stream<Game> games = FileApp.stream(GAMES)) {
+            Assertions.assertEquals(fa.getSimulatorGames(),
+                    games.collect(GameCollectors.simulatorGames()));
+        }
+    }
+
+    @Test
+    void parallelMappedStream() throws IOException, URISyntaxException {
+        FileApp fa = new FileApp();
+        fa.load(GAMES);
+        try (Stream<Game> games = FileApp.stream(resourcePath(GAMES))) {
+            Assertions.assertEquals(fa.getAllGenres(),
+                    games.parallel().collect(GameCollectors.genres()));
+        }
+        try (Stream<Game> games = FileApp.stream(resourcePath(GAMES))) {
+            Assertions.assertEquals(fa.getGameByGenre("Adventure"),
+                    games.parallel().collect(GameCollectors.gamesByGenre("Adventure")));
+        }
+    }
+
+    @Test
+    void streamedExport(@TempDir Path dir) throws IOException {
+        FileApp fa = new FileApp();
+        fa.load("/pfko/vopalensky/filesandcollections/publishers.csv");
+        Path loaded = dir.resolve("loaded.csv");
+        Path streamed = dir.resolve("streamed.csv");
+        fa.createPublishersFile(loaded.toString());
+        try (Stream<Game> games = FileApp.stream(
+                "/pfko/vopalensky/filesandcollections/publishers.csv")) {
+            GameExports.writePublisherCounts(
+                    games.collect(GameCollectors.publisherCounts()),
+                    streamed.toString());
+        }
+        Assertions.assertEquals(Files.readAllLines(loaded),
+                Files.readAllLines(streamed));
+    }
+
+    @Test
+    void streamEmptyFile() {
+        Assertions.assertThrows(EmptyFileException.class, () ->
+                FileApp.stream("/pfko/vopalensky/filesandcollections/empty.csv"));
+    }
+
+    @Test
+    void streamInvalidFile() throws IOException {
+        try (Stream<Game> games = FileApp.stream(
+                "/pfko/vopalensky/filesandcollections/invalid.csv")) {
+            Assertions.assertThrows(UncheckedIOException.class, games::toList);
+        }
+    }
+
+    @Test
+    void exactHeavyHitters() throws IOException {
+        FileApp fa = new FileApp();
+        fa.load(GAMES);
+        List<Map.Entry<String, Integer>> top = fa.getTopPublishers(10);
+        try (Stream<Game> games = FileApp.stream(GAMES)) {
+            List<Map.Entry<String, Integer>> heavy = games.parallel().collect(
+                    GameCollectors.publisherHeavyHitters(10, 100_000));
+            Assertions.assertEquals(top.stream().map(Map.Entry::getValue).toList(),
+                    heavy.stream().map(Map.Entry::getValue).toList());
+            Map<String, Integer> exact = Map.ofEntries(
+                    fa.getPublisherCounts().toArray(Map.Entry[]::new));
+            for (Map.Entry<String, Integer> publisher : heavy) {
+                Assertions.assertEquals(exact.get(publisher.getKey()),
+                        publisher.getValue());
+            }
+        }
+    }
+
+    @Test
+    void approximateHeavyHitters() throws IOException {
+        FileApp fa = new FileApp();
+        fa.load(GAMES);
+        Map.Entry<String, Integer> first = fa.getTopPublishers(1).getFirst();
+        SpaceSaving counter = new SpaceSaving(50);
+        for (Game game : fa.getGames()) {
+            game.publishers().forEach(counter::add);
+        }
+        int estimated = counter.count(first.getKey());
+        Assertions.assertTrue(estimated >= first.getValue());
+        Assertions.assertTrue(estimated - counter.error(first.getKey())
+                <= first.getValue());
+        Assertions.assertEquals(first.getKey(), counter.top(1).getFirst().getKey());
+    }
+}
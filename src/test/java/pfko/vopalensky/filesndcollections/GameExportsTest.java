@@ -0,0 +1,111 @@
+package pfko.vopalensky.filesndcollections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pfko.vopalensky.filesandcollections.FileApp;
+import pfko.vopalensky.filesandcollections.Game;
+import pfko.vopalensky.filesandcollections.GameExports;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+class GameExportsTest {
+
+    String gunzip(Path file) throws IOException {
+        try (InputStream is = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void gzipFileHasSameContent(@TempDir Path dir) throws IOException {
+        FileApp fa = new FileApp();
+        fa.load("/pfko/vopalensky/filesandcollections/games.csv");
+        Path plain = dir.resolve("simulators.csv");
+        Path gzip = dir.resolve("simulators.csv.gz");
+        fa.createSimulatorFile(plain.toString());
+        fa.createSimulatorFile(gzip.toString());
+        Assertions.assertEquals(Files.readString(plain), gunzip(gzip));
+        Assertions.assertTrue(Files.size(gzip) < Files.size(plain));
+        Assertions.assertEquals(List.of(gzip, plain),
+                Files.list(dir).sorted().toList().reversed());
+    }
+
+    @Test
+    void largeUnicodeContent(@TempDir Path dir) throws IOException {
+        List<Game> games = new ArrayList<>();
+        StringBuilder expected = new StringBuilder("released,title")
+                .append(System.lineSeparator());
+        for (int i = 0; i < 100_000; i++) {
+            String title = (i % 3 == 0 ? "Příliš žluťoučký kůň " : "Game ")
+                    + i + (i % 7 == 0 ? " 🎮" : "");
+            games.add(new Game(title, "2020", List.of(), List.of(), List.of()));
+            expected.append("2020,").append(title).append(System.lineSeparator());
+        }
+        Path plain = dir.resolve("games.csv");
+        Path gzip = dir.resolve("games.csv.gz");
+        GameExports.writeReleases(games, plain.toString());
+        GameExports.writeReleases(games, gzip.toString());
+        Assertions.assertEquals(expected.toString(), Files.readString(plain));
+        Assertions.assertEquals(expected.toString(), gunzip(gzip));
+    }
+
+    @Test
+    void failedWriteKeepsPreviousFile(@TempDir Path dir) throws IOException {
+        Path file = Files.writeString(dir.resolve("genres.txt"), "previous");
+        GameExports.writeGenres(List.of("Adventure", "Puzzle"), file.toString());
+        Assertions.assertEquals("Adventure,Puzzle", Files.readString(file));
+        Assertions.assertThrows(FileNotFoundException.class,
+                () -> GameExports.writeGenres(List.of("Adventure"),
+                        dir.resolve("missing").resolve("genres.txt").toString()));
+        Assertions.assertEquals(List.of(file), Files.list(dir).toList());
+    }
+
+    @Test
+    void existingTemporaryNameIsKept(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("genres.txt");
+        Path unrelated = Files.writeString(dir.resolve("genres.txt.tmp"), "mine");
+        GameExports.writeGenres(List.of("Adventure", "Puzzle"), file.toString());
+        Assertions.assertEquals("Adventure,Puzzle", Files.readString(file));
+        Assertions.assertEquals("mine", Files.readString(unrelated));
+        Assertions.assertEquals(List.of(file, unrelated),
+                Files.list(dir).sorted().toList());
+    }
+
+    @Test
+    void exportKeepsPermissions(@TempDir Path dir) throws IOException {
+        Assumptions.assumeTrue(Files.getFileAttributeView(dir,
+                PosixFileAttributeView.class) != null);
+        Path file = dir.resolve("genres.txt");
+        Path plain = Files.createFile(dir.resolve("plain.txt"));
+        GameExports.writeGenres(List.of("Adventure"), file.toString());
+        Assertions.assertEquals(Files.getPosixFilePermissions(plain),
+                Files.getPosixFilePermissions(file));
+
+        Set<PosixFilePermission> shared = PosixFilePermissions.fromString("rw-rw-r--");
+        Files.setPosixFilePermissions(file, shared);
+        GameExports.writeGenres(List.of("Puzzle"), file.toString());
+        Assertions.assertEquals("Puzzle", Files.readString(file));
+        Assertions.assertEquals(shared, Files.getPosixFilePermissions(file));
+    }
+
+    @Test
+    void loneSurrogateIsReplaced(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("genres.txt");
+        GameExports.writeGenres(List.of("Action\uD83C", "Rôle"), file.toString());
+        Assertions.assertEquals("Action?,Rôle", Files.readString(file));
+    }
+}
@@ -0,0 +1,101 @@
+package pfko.vopalensky.filesndcollections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import pfko.vopalensky.filesandcollections.FileApp;
+import pfko.vopalensky.filesandcollections.Game;
+import pfko.vopalensky.filesandcollections.GameQuery;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+class GameQueryTest {
+    static FileApp fa;
+
+    @BeforeAll
+    static void load() throws IOException {
+        fa = new FileApp();
+        fa.load("/pfko/vopalensky/filesandcollections/games.csv");
+    }
+
+    static List<Game> scan(Predicate<Game> predicate) {
+        return fa.getGames().stream().filter(predicate).toList();
+    }
+
+    static boolean releasedBetween(Game game, int from, int to) {
+        return game.released().matches("\\d+")
+                && Integer.parseInt(game.released()) >= from
+                && Integer.parseInt(game.released()) <= to;
+    }
+
+    @Test
+    void predicatesMatchScan() {
+        Assertions.assertEquals(fa.getSimulatorGames(), fa.query(new GameQuery()
+                .genre("Simulator").orderBy(GameQuery.Order.RELEASE)));
+        Assertions.assertEquals(scan(game -> game.genres().contains("Shooter")
+                        && game.genres().contains("Adventure")
+                        && releasedBetween(game, 2015, 2018)),
+                fa.query(new GameQuery().genre("Shooter").genre("Adventure")
+                        .releasedBetween(2015, 2018)));
+        Assertions.assertEquals(scan(game -> game.publishers().contains("Ubisoft")
+                        && game.title().contains("Assassin")),
+                fa.query(new GameQuery().publisher("Ubisoft")
+                        .titleContains("Assassin")));
+        Assertions.assertEquals(fa.getGames(), fa.query(new GameQuery()));
+        Assertions.assertTrue(fa.query(new GameQuery().developer("Nobody")).isEmpty());
+        Assertions.assertTrue(fa.query(new GameQuery().releasedBetween(2010, 2000)).isEmpty());
+    }
+
+    @Test
+    void orderAndLimit() {
+        List<Game> byTitle = scan(game -> game.genres().contains("Puzzle"))
+                .stream().sorted(Comparator.comparing(Game::title)).toList();
+        GameQuery query = new GameQuery().genre("Puzzle")
+                .orderBy(GameQuery.Order.TITLE);
+        Assertions.assertEquals(byTitle, fa.query(query));
+        Assertions.assertEquals(byTitle.subList(0, 5), fa.query(query.limit(5)));
+        Assertions.assertEquals(5, fa.count(query));
+        Assertions.assertEquals(fa.getGames().subList(0, 3),
+                fa.query(new GameQuery().limit(3)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new GameQuery().limit(-1));
+    }
+
+    @Test
+    void groupedCounts() {
+        Assertions.assertEquals(fa.getPublisherCounts(),
+                fa.countBy(new GameQuery(), GameQuery.Field.PUBLISHER));
+        List<Map.Entry<String, Integer>> years = fa.countBy(
+                new GameQuery().genre("Simulator"), GameQuery.Field.YEAR);
+        Assertions.assertEquals(fa.getSimulatorGames().size(),
+                years.stream().mapToInt(Map.Entry::getValue).sum());
+        Assertions.assertEquals(fa.getTopGenres(3),
+                fa.countBy(new GameQuery().limit(3), GameQuery.Field.GENRE));
+        Assertions.assertEquals(fa.count(new GameQuery().genre("Indie")),
+                fa.countBy(new GameQuery(), GameQuery.Field.GENRE).stream()
+                        .filter(entry -> entry.getKey().equals("Indie"))
+                        .findFirst().orElseThrow().getValue());
+    }
+
+    @Test
+    void planUsesMostSelectiveIndex() {
+        Assertions.assertEquals("genre index -> filter developer -> sort by title -> limit 10",
+                fa.explain(new GameQuery().genre("Simulator").developer("Valve")
+                        .orderBy(GameQuery.Order.TITLE).limit(10)));
+        Assertions.assertEquals("year index -> filter genre",
+                fa.explain(new GameQuery().genre("Shooter")
+                        .releasedBetween(1990, 1990)
+                        .orderBy(GameQuery.Order.RELEASE)));
+        Assertions.assertEquals("title index -> filter title",
+                fa.explain(new GameQuery().titleContains("Quest")));
+        Assertions.assertEquals("scan in release order -> filter developer",
+                fa.explain(new GameQuery().developer("Valve")
+                        .orderBy(GameQuery.Order.RELEASE)));
+        Assertions.assertEquals("nothing",
+                fa.explain(new GameQuery().genre("Nothing")));
+    }
+}
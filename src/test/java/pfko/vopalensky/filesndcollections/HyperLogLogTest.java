@@ -0,0 +1,90 @@
+package pfko.vopalensky.filesndcollections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pfko.vopalensky.filesandcollections.FileApp;
+import pfko.vopalensky.filesandcollections.Game;
+import pfko.vopalensky.filesandcollections.GameCollectors;
+import pfko.vopalensky.filesandcollections.GameQuery;
+import pfko.vopalensky.filesandcollections.HyperLogLog;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+class HyperLogLogTest {
+    private static final String GAMES = "/pfko/vopalensky/filesandcollections/games.csv";
+
+    static void assertClose(long expected, long estimate, double error) {
+        Assertions.assertTrue(Math.abs(estimate - expected) <= expected * error,
+                "expected " + expected + " but estimated " + estimate);
+    }
+
+    @Test
+    void estimatesLargeAndSmallCounts() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 200_000; i++) {
+            sketch.add("game " + i);
+            sketch.add("game " + i);
+        }
+        assertClose(200_000, sketch.estimate(), 3 * sketch.standardError());
+
+        HyperLogLog small = new HyperLogLog();
+        Assertions.assertEquals(0, small.estimate());
+        for (int i = 0; i < 1000; i++) {
+            small.add("developer " + i);
+        }
+        assertClose(1000, small.estimate(), 0.01);
+    }
+
+    @Test
+    void mergedSketchEqualsSketchOfUnion() {
+        HyperLogLog first = new HyperLogLog(10);
+        HyperLogLog second = new HyperLogLog(10);
+        HyperLogLog union = new HyperLogLog(10);
+        for (int i = 0; i < 50_000; i++) {
+            (i % 2 == 0 ? first : second).add("value " + i);
+            union.add("value " + i);
+        }
+        first.merge(second);
+        Assertions.assertEquals(union.estimate(), first.estimate());
+        assertClose(50_000, first.estimate(), 3 * first.standardError());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> first.merge(new HyperLogLog(11)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new HyperLogLog(3));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new HyperLogLog(19));
+    }
+
+    @Test
+    void distinctCountsOfCatalog() throws IOException {
+        FileApp fa = new FileApp();
+        fa.load(GAMES);
+        Set<String> developers = new HashSet<>();
+        Set<String> simulatorDevelopers = new HashSet<>();
+        for (Game game : fa.getGames()) {
+            developers.addAll(game.developers());
+            if (game.genres().contains("Simulator")) {
+                simulatorDevelopers.addAll(game.developers());
+            }
+        }
+        assertClose(developers.size(),
+                fa.getDistinctCount(GameQuery.Field.DEVELOPER), 0.02);
+        assertClose(fa.getAllGenres().size(),
+                fa.getDistinctCount(GameQuery.Field.GENRE), 0.02);
+        assertClose(simulatorDevelopers.size(), fa.getDistinctSketchesByGenre(
+                GameQuery.Field.DEVELOPER).get("Simulator").estimate(), 0.02);
+        Assertions.assertEquals(fa.getAllGenres(), fa.getDistinctSketchesByGenre(
+                GameQuery.Field.YEAR).keySet().stream().toList());
+
+        try (Stream<Game> games = FileApp.stream(GAMES)) {
+            HyperLogLog streamed = games.parallel().collect(GameCollectors
+                    .distinct(GameQuery.Field.DEVELOPER,
+                            HyperLogLog.DEFAULT_PRECISION));
+            Assertions.assertEquals(fa.getDistinctCount(GameQuery.Field.DEVELOPER),
+                    streamed.estimate());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package pfko.vopalensky.filesndcollections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pfko.vopalensky.filesandcollections.FileApp;
+import pfko.vopalensky.filesandcollections.Game;
+import pfko.vopalensky.filesandcollections.IngestReport;
+import pfko.vopalensky.filesandcollections.exceptions.EmptyFileException;
+import pfko.vopalensky.filesandcollections.exceptions.ErrorBudgetExceededException;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+
+class LenientIngestTest {
+    private static final String GAMES = "/pfko/vopalensky/filesandcollections/games.csv";
+    private static final String HEADER = "title,released,developers,publishers,genres\n";
+
+    @Test
+    void validFileLoadsLikeStrictLoad(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("games.csv");
+        try (InputStream is = Objects.requireNonNull(
+                getClass().getResourceAsStream(GAMES))) {
+            Files.copy(is, file);
+        }
+        Path quarantine = dir.resolve("quarantine.tsv");
+        FileApp strict = new FileApp();
+        strict.load(file);
+        FileApp lenient = new FileApp();
+        IngestReport report = lenient.loadLenient(file, quarantine, 0);
+        Assertions.assertEquals(strict.getGames(), lenient.getGames());
+        Assertions.assertEquals(strict.getGames().size(), report.rows());
+        Assertions.assertEquals(0, report.rejects());
+        Assertions.assertEquals(Files.size(file), report.bytes());
+        Assertions.assertTrue(report.rowsPerSecond() > 0);
+        Assertions.assertTrue(report.bytesPerSecond() > report.rowsPerSecond());
+        Assertions.assertEquals(0, Files.size(quarantine));
+    }
+
+    @Test
+    void invalidLinesAreQuarantined(@TempDir Path dir) throws IOException {
+        Path file = Files.writeString(dir.resolve("games.csv"), HEADER + """
+                First,2020,Studio,Publisher,Action
+                Broken line
+                Second,2021,Studio,Publisher,"Action,Puzzle"
+
+                Too,many,columns,in,this,line
+                Third,TBA,Studio,Publisher,Puzzle
+                """);
+        Path quarantine = dir.resolve("quarantine.tsv");
+        FileApp fa = new FileApp();
+        IngestReport report = fa.loadLenient(file, quarantine, 2);
+        Assertions.assertEquals(3, report.rows());
+        Assertions.assertEquals(2, report.rejects());
+        Assertions.assertEquals(List.of("First", "Second", "Third"),
+                fa.getGames().stream().map(Game::title).toList());
+        Assertions.assertEquals(List.of(
+                        "3\tExpected 5 columns, found 1\tBroken line",
+                        "6\tMore than 5 columns\tToo,many,columns,in,this,line"),
+                Files.readAllLines(quarantine));
+    }
+
+    @Test
+    void exceededBudgetLoadsNothing(@TempDir Path dir) throws IOException {
+        FileApp fa = new FileApp();
+        fa.load("/pfko/vopalensky/filesandcollections/happy.csv");
+        List<Game> before = fa.getGames();
+        Path file = Files.writeString(dir.resolve("games.csv"), HEADER + """
+                First,2020,Studio,Publisher,Action
+                Broken line
+                Another broken line
+                """);
+        Path quarantine = dir.resolve("quarantine.tsv");
+        Assertions.assertThrows(ErrorBudgetExceededException.class,
+                () -> fa.loadLenient(file, quarantine, 1));
+        Assertions.assertEquals(before, fa.getGames());
+        Assertions.assertEquals(2, Files.readAllLines(quarantine).size());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> fa.loadLenient(file, quarantine, -1));
+    }
+
+    @Test
+    void emptyFileIsStillRejected(@TempDir Path dir) throws IOException {
+        Path file = Files.createFile(dir.resolve("games.csv"));
+        FileApp fa = new FileApp();
+        Assertions.assertThrows(EmptyFileException.class,
+                () -> fa.loadLenient(file, dir.resolve("quarantine.tsv"), 10));
+    }
+
+    @Test
+    void missingQuarantineDirectory(@TempDir Path dir) throws IOException {
+        Path file = Files.writeString(dir.resolve("games.csv"),
+                HEADER + "First,2020,Studio,Publisher,Action\n");
+        Path quarantine = dir.resolve("missing").resolve("quarantine.tsv");
+        FileApp fa = new FileApp();
+        FileNotFoundException e = Assertions.assertThrows(
+                FileNotFoundException.class,
+                () -> fa.loadLenient(file, quarantine, 0));
+        Assertions.assertEquals(quarantine.toString(), e.getMessage());
+        Assertions.assertTrue(fa.getGames().isEmpty());
+
+        FileNotFoundException missingInput = Assertions.assertThrows(
+                FileNotFoundException.class,
+                () -> fa.loadLenient(dir.resolve("none.csv"), quarantine, 0));
+        Assertions.assertEquals(dir.resolve("none.csv").toString(),
+                missingInput.getMessage());
+    }
+}
@@ -0,0 +1,81 @@
+package pfko.vopalensky.filesndcollections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pfko.vopalensky.filesandcollections.FileApp;
+import pfko.vopalensky.filesandcollections.GameQuery;
+import pfko.vopalensky.filesandcollections.exceptions.InvalidFileFormatException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+class OffHeapTitlesTest {
+    private static final String GAMES = "/pfko/vopalensky/filesandcollections/games.csv";
+    private static final String HAPPY = "/pfko/vopalensky/filesandcollections/happy.csv";
+    private static final String INVALID = "/pfko/vopalensky/filesandcollections/invalid.csv";
+    static FileApp heap;
+    static FileApp offHeap;
+
+    @BeforeAll
+    static void load() throws IOException {
+        heap = new FileApp();
+        heap.load(GAMES);
+        offHeap = new FileApp(true);
+        offHeap.load(GAMES);
+    }
+
+    @Test
+    void sameGames() {
+        Assertions.assertEquals(heap.getGames(), offHeap.getGames());
+        Assertions.assertEquals(heap.getSimulatorGames(),
+                offHeap.getSimulatorGames());
+    }
+
+    @Test
+    void sameTitleQueries() {
+        Assertions.assertEquals(
+                heap.query(new GameQuery().orderBy(GameQuery.Order.TITLE)),
+                offHeap.query(new GameQuery().orderBy(GameQuery.Order.TITLE)));
+        for (String part : new String[]{"War", "of the", "é", ""}) {
+            Assertions.assertEquals(
+                    heap.query(new GameQuery().titleContains(part)),
+                    offHeap.query(new GameQuery().titleContains(part)));
+        }
+        String title = heap.getGames().get(100).title();
+        Assertions.assertEquals(heap.query(new GameQuery().title(title)),
+                offHeap.query(new GameQuery().title(title)));
+        Assertions.assertEquals(heap.getGamesByTitlePrefix("The ", 20),
+                offHeap.getGamesByTitlePrefix("The ", 20));
+        Assertions.assertEquals(heap.getGamesWithSimilarTitle("Assasins", 5),
+                offHeap.getGamesWithSimilarTitle("Assasins", 5));
+    }
+
+    @Test
+    void failedLoadKeepsTitles() throws IOException {
+        FileApp expected = new FileApp();
+        expected.load(HAPPY);
+        expected.load(HAPPY);
+
+        FileApp app = new FileApp(true);
+        app.load(HAPPY);
+        Assertions.assertThrows(InvalidFileFormatException.class,
+                () -> app.load(INVALID));
+        app.load(HAPPY);
+        Assertions.assertEquals(expected.getGames(), app.getGames());
+    }
+
+    @Test
+    void snapshotBetweenModes(@TempDir Path dir) throws IOException {
+        Path snapshot = dir.resolve("games.snapshot");
+        offHeap.saveSnapshot(snapshot);
+        FileApp restored = new FileApp();
+        restored.loadSnapshot(snapshot);
+        Assertions.assertEquals(heap.getGames(), restored.getGames());
+
+        FileApp restoredOffHeap = new FileApp(true);
+        restoredOffHeap.loadSnapshot(snapshot);
+        Assertions.assertEquals(heap.getGames(), restoredOffHeap.getGames());
+    }
+}
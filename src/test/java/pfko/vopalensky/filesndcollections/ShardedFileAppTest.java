@@ -0,0 +1,118 @@
+package pfko.vopalensky.filesndcollections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pfko.vopalensky.filesandcollections.FileApp;
+import pfko.vopalensky.filesandcollections.GameQuery;
+import pfko.vopalensky.filesandcollections.ShardedFileApp;
+import pfko.vopalensky.filesandcollections.exceptions.InvalidFileFormatException;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+class ShardedFileAppTest {
+    private static final String GAMES = "/pfko/vopalensky/filesandcollections/games.csv";
+
+    @TempDir
+    Path dir;
+    List<Path> shards;
+
+    /**
+     * Splits games file into three shards, the last shard repeats some
+     * games of the first one.
+     */
+    @BeforeEach
+    void splitGames() throws IOException {
+        List<String> lines;
+        try (InputStream is = Objects.requireNonNull(
+                getClass().getResourceAsStream(GAMES))) {
+            lines = new String(is.readAllBytes(), StandardCharsets.UTF_8)
+                    .lines().toList();
+        }
+        String header = lines.getFirst();
+        List<String> body = lines.subList(1, lines.size());
+        int third = body.size() / 3;
+        List<String> last = new ArrayList<>(body.subList(0, 50));
+        last.addAll(body.subList(2 * third, body.size()));
+        shards = List.of(
+                shard("first.csv", header, body.subList(0, third)),
+                shard("second.csv", header, body.subList(third, 2 * third)),
+                shard("third.csv", header, last));
+    }
+
+    Path shard(String name, String header, List<String> lines)
+            throws IOException {
+        List<String> content = new ArrayList<>();
+        content.add(header);
+        content.addAll(lines);
+        return Files.write(dir.resolve(name), content);
+    }
+
+    @Test
+    void shardedQueriesEqualSingleFile() throws IOException {
+        FileApp fa = new FileApp();
+        fa.load(GAMES);
+        ShardedFileApp sharded = new ShardedFileApp();
+        sharded.load(shards, 3);
+        Assertions.assertEquals(3, sharded.getShardCount());
+        Assertions.assertEquals(fa.getGames(), sharded.getGames());
+        Assertions.assertEquals(fa.getAllGenres(), sharded.getAllGenres());
+        Assertions.assertEquals(fa.getSimulatorGames(), sharded.getSimulatorGames());
+        Assertions.assertEquals(fa.getGameByGenre("Adventure"),
+                sharded.getGameByGenre("Adventure"));
+        Assertions.assertEquals(fa.getReleaseCounts(), sharded.getReleaseCounts());
+        Assertions.assertEquals(fa.getPublisherCounts(), sharded.getPublisherCounts());
+        Assertions.assertTrue(sharded.getGameByGenre("Nothing").isEmpty());
+        Assertions.assertEquals(fa.getDistinctCount(GameQuery.Field.PUBLISHER),
+                sharded.getDistinctCount(GameQuery.Field.PUBLISHER));
+    }
+
+    @Test
+    void repeatedShardsAreDeduplicated() throws IOException {
+        ShardedFileApp sharded = new ShardedFileApp();
+        sharded.load(shards);
+        int size = sharded.getGames().size();
+        sharded.load(List.of(shards.getFirst(), shards.get(1)));
+        Assertions.assertEquals(5, sharded.getShardCount());
+        Assertions.assertEquals(size, sharded.getGames().size());
+    }
+
+    @Test
+    void duplicatesWithinFileAreSkipped() throws IOException {
+        Path file = Files.writeString(dir.resolve("repeated.csv"),
+                "title,released,developers,publishers,genres\n"
+                        + "Pong,1972,Atari,Atari,Simulator\n"
+                        + "Pong,1972,Atari,Atari,Simulator\n"
+                        + "Pong,1975,Atari,Atari,Simulator\n");
+        ShardedFileApp sharded = new ShardedFileApp();
+        sharded.load(List.of(file));
+        Assertions.assertEquals(List.of("1972", "1975"), sharded.getGames()
+                .stream().map(game -> game.released()).toList());
+        Assertions.assertEquals(sharded.getGames(),
+                sharded.getSimulatorGames());
+    }
+
+    @Test
+    void failedShardAddsNothing() throws IOException {
+        ShardedFileApp sharded = new ShardedFileApp();
+        sharded.load(List.of(shards.getFirst()));
+        Path invalid = Files.writeString(dir.resolve("invalid.csv"),
+                "title,released,developers,publishers,genres\nBroken\n");
+        Assertions.assertThrows(InvalidFileFormatException.class,
+                () -> sharded.load(List.of(shards.get(1), invalid)));
+        Assertions.assertThrows(FileNotFoundException.class,
+                () -> sharded.load(List.of(dir.resolve("missing.csv"))));
+        Assertions.assertEquals(1, sharded.getShardCount());
+        sharded.load(List.of(shards.get(1)));
+        Assertions.assertEquals(2, sharded.getShardCount());
+    }
+}
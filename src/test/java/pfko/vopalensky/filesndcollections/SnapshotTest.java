@@ -0,0 +1,140 @@
+package pfko.vopalensky.filesndcollections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pfko.vopalensky.filesandcollections.FileApp;
+import pfko.vopalensky.filesandcollections.exceptions.EmptyFileException;
+import pfko.vopalensky.filesandcollections.exceptions.InvalidFileFormatException;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Set;
+
+class SnapshotTest {
+    private static final String GAMES = "/pfko/vopalensky/filesandcollections/games.csv";
+    private static final String HAPPY = "/pfko/vopalensky/filesandcollections/happy.csv";
+
+    @Test
+    void snapshotEqualsLoadedCsv(@TempDir Path dir) throws IOException {
+        FileApp loaded = new FileApp();
+        loaded.load(GAMES);
+        Path snapshot = dir.resolve("games.snapshot");
+        loaded.saveSnapshot(snapshot);
+
+        FileApp restored = new FileApp();
+        restored.loadSnapshot(snapshot);
+        Assertions.assertEquals(loaded.getGames(), restored.getGames());
+        Assertions.assertEquals(loaded.getAllGenres(), restored.getAllGenres());
+        Assertions.assertEquals(loaded.getSimulatorGames(),
+                restored.getSimulatorGames());
+        Assertions.assertEquals(loaded.getGamesWithAllGenres("Action", "Indie"),
+                restored.getGamesWithAllGenres("Action", "Indie"));
+        Assertions.assertEquals(loaded.getGamesReleasedBetween(2000, 2010),
+                restored.getGamesReleasedBetween(2000, 2010));
+        Assertions.assertEquals(loaded.getReleaseCounts(),
+                restored.getReleaseCounts());
+        Assertions.assertEquals(loaded.getPublisherCounts(),
+                restored.getPublisherCounts());
+    }
+
+    @Test
+    void loadAfterSnapshotAppends(@TempDir Path dir) throws IOException {
+        FileApp expected = new FileApp();
+        expected.load(HAPPY);
+        expected.load(GAMES);
+        expected.load(HAPPY);
+
+        FileApp first = new FileApp();
+        first.load(HAPPY);
+        Path snapshot = dir.resolve("happy.snapshot");
+        first.saveSnapshot(snapshot);
+
+        FileApp restored = new FileApp();
+        restored.loadSnapshot(snapshot);
+        restored.load(GAMES);
+        restored.loadSnapshot(snapshot);
+        Assertions.assertEquals(expected.getGames(), restored.getGames());
+        Assertions.assertEquals(expected.getPublisherCounts(),
+                restored.getPublisherCounts());
+        Assertions.assertEquals(expected.getGameByGenre("Strategy"),
+                restored.getGameByGenre("Strategy"));
+    }
+
+    @Test
+    void emptyCatalogSnapshot(@TempDir Path dir) throws IOException {
+        Path snapshot = dir.resolve("empty.snapshot");
+        new FileApp().saveSnapshot(snapshot);
+        FileApp restored = new FileApp();
+        restored.loadSnapshot(snapshot);
+        Assertions.assertTrue(restored.getGames().isEmpty());
+        restored.load(HAPPY);
+        Assertions.assertEquals(3, restored.getGames().size());
+    }
+
+    @Test
+    void damagedSnapshot(@TempDir Path dir) throws IOException {
+        FileApp fa = new FileApp();
+        fa.load(GAMES);
+        Path snapshot = dir.resolve("games.snapshot");
+        fa.saveSnapshot(snapshot);
+        byte[] content = Files.readAllBytes(snapshot);
+        content[content.length / 2] ^= 1;
+        Files.write(snapshot, content);
+        Assertions.assertThrows(InvalidFileFormatException.class,
+                () -> new FileApp().loadSnapshot(snapshot));
+
+        Files.write(snapshot, "title,released".getBytes());
+        Assertions.assertThrows(InvalidFileFormatException.class,
+                () -> new FileApp().loadSnapshot(snapshot));
+    }
+
+    @Test
+    void missingOrEmptySnapshot(@TempDir Path dir) throws IOException {
+        Assertions.assertThrows(FileNotFoundException.class,
+                () -> new FileApp().loadSnapshot(dir.resolve("missing")));
+        Path empty = Files.createFile(dir.resolve("empty"));
+        Assertions.assertThrows(EmptyFileException.class,
+                () -> new FileApp().loadSnapshot(empty));
+    }
+
+    @Test
+    void existingTemporaryNameIsKept(@TempDir Path dir) throws IOException {
+        FileApp fa = new FileApp();
+        fa.load(HAPPY);
+        Path snapshot = dir.resolve("happy.snapshot");
+        Path unrelated = Files.writeString(dir.resolve("happy.snapshot.tmp"), "mine");
+        fa.saveSnapshot(snapshot);
+        Assertions.assertEquals("mine", Files.readString(unrelated));
+        Assertions.assertEquals(List.of(snapshot, unrelated),
+                Files.list(dir).sorted().toList());
+        FileApp restored = new FileApp();
+        restored.loadSnapshot(snapshot);
+        Assertions.assertEquals(fa.getGames(), restored.getGames());
+    }
+
+    @Test
+    void snapshotKeepsPermissions(@TempDir Path dir) throws IOException {
+        Assumptions.assumeTrue(Files.getFileAttributeView(dir,
+                PosixFileAttributeView.class) != null);
+        FileApp fa = new FileApp();
+        fa.load(HAPPY);
+        Path snapshot = dir.resolve("happy.snapshot");
+        Path plain = Files.createFile(dir.resolve("plain.snapshot"));
+        fa.saveSnapshot(snapshot);
+        Assertions.assertEquals(Files.getPosixFilePermissions(plain),
+                Files.getPosixFilePermissions(snapshot));
+
+        Set<PosixFilePermission> shared = PosixFilePermissions.fromString("rw-rw-r--");
+        Files.setPosixFilePermissions(snapshot, shared);
+        fa.saveSnapshot(snapshot);
+        Assertions.assertEquals(shared, Files.getPosixFilePermissions(snapshot));
+    }
+}
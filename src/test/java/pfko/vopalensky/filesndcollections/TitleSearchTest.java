@@ -0,0 +1,85 @@
+package pfko.vopalensky.filesndcollections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import pfko.vopalensky.filesandcollections.FileApp;
+import pfko.vopalensky.filesandcollections.Game;
+import pfko.vopalensky.filesandcollections.GameQuery;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+class TitleSearchTest {
+    static FileApp fa;
+
+    @BeforeAll
+    static void load() throws IOException {
+        fa = new FileApp();
+        fa.load("/pfko/vopalensky/filesandcollections/games.csv");
+    }
+
+    static String lower(Game game) {
+        return game.title().toLowerCase(Locale.ROOT);
+    }
+
+    @Test
+    void prefixSearch() {
+        List<Game> expected = fa.getGames().stream()
+                .filter(game -> lower(game).startsWith("the "))
+                .sorted(Comparator.comparing(Game::title,
+                        String.CASE_INSENSITIVE_ORDER))
+                .toList();
+        Assertions.assertFalse(expected.isEmpty());
+        Assertions.assertEquals(expected, fa.getGamesByTitlePrefix("tHE ", 1000));
+        Assertions.assertEquals(expected.subList(0, 3),
+                fa.getGamesByTitlePrefix("The ", 3));
+        Assertions.assertEquals(10, fa.getGamesByTitlePrefix("", 10).size());
+        Assertions.assertTrue(fa.getGamesByTitlePrefix("zzzzzz", 10).isEmpty());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> fa.getGamesByTitlePrefix("The", -1));
+    }
+
+    @Test
+    void substringSearch() {
+        for (String text : List.of("quest", "WAR", "of the", "x", "Assassin's")) {
+            String lower = text.toLowerCase(Locale.ROOT);
+            Assertions.assertEquals(fa.getGames().stream()
+                            .filter(game -> lower(game).contains(lower)).toList(),
+                    fa.getGamesByTitleContaining(text), text);
+        }
+        Assertions.assertTrue(fa.getGamesByTitleContaining("qqqzzz").isEmpty());
+    }
+
+    @Test
+    void similarTitles() {
+        Game game = fa.getGamesByTitleContaining("Assassins Creed").getFirst();
+        String typo = game.title().replace("Assassins", "Asasins");
+        List<Game> similar = fa.getGamesWithSimilarTitle(typo, 5);
+        Assertions.assertTrue(similar.size() <= 5);
+        Assertions.assertTrue(similar.stream().anyMatch(
+                found -> found.title().startsWith("Assassins Creed")));
+        Assertions.assertEquals(game, fa.getGamesWithSimilarTitle(game.title(), 1)
+                .getFirst());
+    }
+
+    @Test
+    void queriesUseTitleIndex() {
+        Game game = fa.getGames().get(100);
+        GameQuery exact = new GameQuery().title(game.title());
+        Assertions.assertEquals("title index -> filter title", fa.explain(exact));
+        Assertions.assertTrue(fa.query(exact).contains(game));
+        GameQuery part = new GameQuery().titleContains("Quest")
+                .orderBy(GameQuery.Order.RELEASE);
+        Assertions.assertEquals("title index -> filter title -> sort by release order",
+                fa.explain(part));
+        List<Game> byRelease = fa.query(new GameQuery()
+                .orderBy(GameQuery.Order.RELEASE)).stream()
+                .filter(found -> found.title().contains("Quest")).toList();
+        Assertions.assertEquals(byRelease, fa.query(part));
+        Assertions.assertTrue(fa.query(new GameQuery().title(game.title()
+                .toUpperCase(Locale.ROOT) + "?")).isEmpty());
+    }
+}
@@ -0,0 +1,124 @@
+package pfko.vopalensky.objectarray;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class OffHeapPFArrayTest {
+
+    @Test
+    void sameAsPFArray() throws IOException {
+        PFArray heap = new PFArray("1,5,6, 7 , -9, 42, 7");
+        try (OffHeapPFArray offHeap = new OffHeapPFArray("1,5,6, 7 , -9, 42, 7")) {
+            for (int i = 0; i < 100; i++) {
+                heap.add(i % 13 - 6);
+                offHeap.add(i % 13 - 6);
+            }
+            heap.remove(7, true).remove(-6).remove(42, false);
+            offHeap.remove(7, true).remove(-6).remove(42, false);
+            assertArrayEquals(heap.toArray(), offHeap.toArray());
+            assertEquals(heap.size(), offHeap.size());
+            assertEquals(heap.max(), offHeap.max());
+            assertEquals(heap.min(), offHeap.min());
+            assertEquals(heap.sum(), offHeap.sum());
+            assertEquals(heap.at(50), offHeap.at(50));
+        }
+    }
+
+    @Test
+    void removeSameAsPFArray() throws IOException {
+        String numbers = "4,1,4,2,4,4,3,4";
+        PFArray heap = new PFArray(numbers);
+        try (OffHeapPFArray offHeap = new OffHeapPFArray(numbers)) {
+            offHeap.remove(9).remove(9, true);
+            assertEquals(8, offHeap.size());
+            for (int i = 0; i < 3; i++) {
+                heap.remove(4);
+                offHeap.remove(4);
+                assertArrayEquals(heap.toArray(), offHeap.toArray());
+            }
+            heap.remove(4, true).remove(3);
+            offHeap.remove(4, true).remove(3);
+            assertArrayEquals(heap.toArray(), offHeap.toArray());
+            assertArrayEquals(new int[]{1, 2}, offHeap.toArray());
+        }
+    }
+
+    @Test
+    void emptyArray() throws IOException {
+        try (OffHeapPFArray array = new OffHeapPFArray("3")) {
+            array.remove(3);
+            assertTrue(array.isEmpty());
+            assertEquals(0, array.sum());
+            assertThrows(IndexOutOfBoundsException.class, array::max);
+            assertThrows(IndexOutOfBoundsException.class, () -> array.at(0));
+            assertThrows(IndexOutOfBoundsException.class, () -> array.at(-1));
+        }
+    }
+
+    @Test
+    void closedArray() throws IOException {
+        OffHeapPFArray array = new OffHeapPFArray("1,2");
+        array.close();
+        array.close();
+        assertThrows(IllegalStateException.class, () -> array.at(0));
+    }
+
+    @Test
+    void fileBacked(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("numbers.bin");
+        try (OffHeapPFArray array = OffHeapPFArray.open(file)) {
+            for (int i = 0; i < 1000; i++) {
+                array.add(i);
+            }
+            array.remove(500);
+        }
+        assertEquals(Long.BYTES + 999 * Integer.BYTES, Files.size(file));
+
+        try (OffHeapPFArray array = OffHeapPFArray.open(file)) {
+            assertEquals(999, array.size());
+            assertEquals(999, array.max());
+            assertEquals(499500 - 500, array.sum());
+            array.add(-1);
+        }
+        try (OffHeapPFArray array = OffHeapPFArray.open(file)) {
+            assertEquals(-1, array.min());
+        }
+    }
+
+    @Test
+    void unclosedFile(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("numbers.bin");
+        try (OffHeapPFArray array = OffHeapPFArray.open(file)) {
+            for (int i = 0; i < 20; i++) {
+                array.add(i);
+            }
+            // File is extended for following additions, reserved space
+            // must not be read as elements before array is closed
+            assertTrue(Files.size(file) > Long.BYTES + 20 * Integer.BYTES);
+            try (OffHeapPFArray reopened = OffHeapPFArray.open(file)) {
+                assertEquals(20, reopened.size());
+                assertEquals(190, reopened.sum());
+            }
+        }
+    }
+
+    @Test
+    void invalidFile(@TempDir Path dir) throws IOException {
+        Path file = Files.write(dir.resolve("numbers.bin"), new byte[]{1, 2, 3});
+        assertThrows(IOException.class, () -> OffHeapPFArray.open(file));
+
+        Path wrongCount = Files.write(dir.resolve("count.bin"),
+                new byte[]{5, 5, 5, 5, 5, 5, 5, 5, 1, 2, 3, 4});
+        assertThrows(IOException.class, () -> OffHeapPFArray.open(wrongCount));
+    }
+}
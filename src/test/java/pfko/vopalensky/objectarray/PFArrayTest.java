@@ -3,11 +3,16 @@ package pfko.vopalensky.objectarray;
 import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.IntSummaryStatistics;
 import java.util.Objects;
+import java.util.PrimitiveIterator;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -61,6 +66,49 @@ class PFArrayTest {
         assertArrayEquals(new int[]{5, 6, 42}, pfa.toArray());
     }
 
+    @Test
+    void bulkRemoval() {
+        PFArray pfa = new PFArray("1,5,6,5,7,-9,5,42,6");
+        pfa.removeAll(5);
+        assertArrayEquals(new int[]{1, 6, 7, -9, 42, 6}, pfa.toArray());
+        pfa.removeAll(6, 42, 100);
+        assertArrayEquals(new int[]{1, 7, -9}, pfa.toArray());
+        assertEquals(7, pfa.max());
+        pfa.add(3).add(8).add(3).retainAll(3, 7, 8);
+        assertArrayEquals(new int[]{7, 3, 8, 3}, pfa.toArray());
+        pfa.removeIf(number -> number > 5);
+        assertArrayEquals(new int[]{3, 3}, pfa.toArray());
+        assertEquals(6, pfa.sum());
+        assertEquals(3, pfa.max());
+    }
+
+    @Test
+    void removeIfThrowing() {
+        PFArray pfa = new PFArray("1,5,2,5,3,5");
+        assertThrows(IllegalStateException.class, () -> pfa.removeIf(number -> {
+            if (number == 3) {
+                throw new IllegalStateException();
+            }
+            return number == 5;
+        }));
+        assertArrayEquals(new int[]{1, 2, 3, 5}, pfa.toArray());
+        assertEquals(11, pfa.sum());
+        assertEquals(5, pfa.max());
+        assertEquals(1, pfa.min());
+    }
+
+    @Test
+    void removeRange() {
+        PFArray pfa = new PFArray("1,2,3,4,5,6");
+        assertEquals(6, pfa.max());
+        pfa.removeRange(3, 6).removeRange(0, 1).removeRange(1, 1);
+        assertArrayEquals(new int[]{2, 3}, pfa.toArray());
+        assertEquals(5, pfa.sum());
+        assertEquals(3, pfa.max());
+        assertEquals(2, pfa.min());
+        assertThrows(IndexOutOfBoundsException.class, () -> pfa.removeRange(1, 3));
+    }
+
     @Test
     void removeFromDeleted() {
         PFArray pfa = new PFArray();
@@ -135,6 +183,44 @@ class PFArrayTest {
         assertEquals(8, pfa.sum());
     }
 
+    @Test
+    void sumDoesNotOverflow() {
+        PFArray pfa = new PFArray("2147483647, 2147483647, 2147483647");
+        assertEquals(3L * Integer.MAX_VALUE, pfa.sum());
+    }
+
+    @Test
+    void summaryAndCount() {
+        PFArray pfa = new PFArray("1,6,7,-9,3,6");
+        IntSummaryStatistics summary = pfa.summary();
+        assertEquals(6, summary.getCount());
+        assertEquals(-9, summary.getMin());
+        assertEquals(7, summary.getMax());
+        assertEquals(14, summary.getSum());
+        assertEquals(2, pfa.count(6));
+        assertEquals(0, pfa.count(5));
+    }
+
+    @Test
+    void aggregatesFollowChanges() {
+        PFArray pfa = new PFArray("1,6,7,-9,3");
+        assertEquals(7, pfa.max());
+        pfa.add(10).add(-20);
+        assertEquals(10, pfa.max());
+        assertEquals(-20, pfa.min());
+        assertEquals(-2, pfa.sum());
+        pfa.remove(10).remove(-20).remove(7);
+        assertEquals(6, pfa.max());
+        assertEquals(-9, pfa.min());
+        assertEquals(1, pfa.sum());
+        pfa.regenerate();
+        IntSummaryStatistics expected = Arrays.stream(pfa.toArray())
+                .summaryStatistics();
+        assertEquals(expected.getSum(), pfa.sum());
+        assertEquals(expected.getMax(), pfa.max());
+        assertEquals(expected.getMin(), pfa.min());
+    }
+
     @Test
     void sumOnEmpty() {
         PFArray pfa = new PFArray("3");
@@ -142,6 +228,49 @@ class PFArrayTest {
         assertEquals(0, pfa.sum());
     }
 
+    @Test
+    void streams() {
+        PFArray pfa = new PFArray("1,6,7,-9,3");
+        assertArrayEquals(pfa.toArray(), pfa.stream().toArray());
+        assertEquals(8, pfa.stream().sum());
+        assertEquals(5, pfa.spliterator().getExactSizeIfKnown());
+
+        PFArray large = new PFArray("0");
+        for (int i = 1; i < 100_000; i++) {
+            large.add(i);
+        }
+        assertTrue(large.parallelStream().isParallel());
+        assertEquals(large.sum(), large.parallelStream().asLongStream().sum());
+        assertArrayEquals(large.toArray(), large.parallelStream().toArray());
+    }
+
+    @Test
+    void iterateAndForEach() {
+        PFArray pfa = new PFArray("1,6,7");
+        PrimitiveIterator.OfInt iterator = pfa.iterator();
+        assertEquals(1, iterator.nextInt());
+        assertEquals(6, iterator.nextInt());
+        assertEquals(7, iterator.nextInt());
+        assertFalse(iterator.hasNext());
+
+        int[] sum = {0};
+        pfa.forEach(number -> sum[0] += number);
+        assertEquals(14, sum[0]);
+    }
+
+    @Test
+    void failFast() {
+        PFArray pfa = new PFArray("1,6,7");
+        assertThrows(ConcurrentModificationException.class,
+                () -> pfa.forEach(pfa::add));
+        PrimitiveIterator.OfInt iterator = pfa.iterator();
+        iterator.nextInt();
+        pfa.remove(7);
+        assertThrows(ConcurrentModificationException.class, iterator::nextInt);
+        assertThrows(ConcurrentModificationException.class,
+                () -> pfa.stream().forEach(number -> pfa.removeAll(number)));
+    }
+
     @Test
     void clearArray() {
         PFArray pfa = new PFArray("3,90,-9");
@@ -0,0 +1,122 @@
+package pfko.vopalensky.simd;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+import java.util.IntSummaryStatistics;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+
+class IntReductionsTest {
+
+    @Test
+    void scalarEqualsReference() {
+        Random random = new Random(11);
+        for (int length = 0; length < 100; length += 9) {
+            int[] array = random.ints(length, -50, 50).toArray();
+            for (int from = 0; from <= Math.min(length, 3); from++) {
+                int max = Integer.MIN_VALUE;
+                int min = Integer.MAX_VALUE;
+                long sum = 0;
+                int zeros = 0;
+                for (int i = from; i < length; i++) {
+                    max = Math.max(max, array[i]);
+                    min = Math.min(min, array[i]);
+                    sum += array[i];
+                    zeros += array[i] == 0 ? 1 : 0;
+                }
+                assertEquals(max, ScalarKernels.max(array, from, length));
+                assertEquals(min, ScalarKernels.min(array, from, length));
+                assertEquals(sum, ScalarKernels.sum(array, from, length));
+                assertEquals(zeros, ScalarKernels.count(array, from, length, 0));
+                IntSummaryStatistics summary =
+                        ScalarKernels.summary(array, from, length);
+                assertEquals(length - from, summary.getCount());
+                assertEquals(sum, summary.getSum());
+                if (length > from) {
+                    assertEquals(min, summary.getMin());
+                    assertEquals(max, summary.getMax());
+                }
+            }
+        }
+    }
+
+    @Test
+    void vectorEqualsScalar() {
+        assumeTrue(IntReductions.isVectorized());
+        Random random = new Random(42);
+        for (int length = 0; length < 300; length += 7) {
+            int[] array = random.ints(length).toArray();
+            for (int from = 0; from <= Math.min(length, 5); from++) {
+                assertEquals(ScalarKernels.max(array, from, length),
+                        VectorKernels.max(array, from, length));
+                assertEquals(ScalarKernels.min(array, from, length),
+                        VectorKernels.min(array, from, length));
+                assertEquals(ScalarKernels.sum(array, from, length),
+                        VectorKernels.sum(array, from, length));
+                assertEquals(ScalarKernels.summary(array, from, length).toString(),
+                        VectorKernels.summary(array, from, length).toString());
+            }
+        }
+    }
+
+    @Test
+    void segmentEqualsArray() {
+        assumeTrue(IntReductions.isVectorized());
+        int[] array = new Random(3).ints(1001).toArray();
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment segment = arena.allocate(
+                    (long) array.length * Integer.BYTES, Integer.BYTES);
+            MemorySegment.copy(array, 0, segment, ValueLayout.JAVA_INT, 0,
+                    array.length);
+            for (int from = 0; from < 10; from++) {
+                assertEquals(ScalarKernels.max(array, from, 1001),
+                        VectorKernels.max(segment, from, 1001));
+                assertEquals(ScalarKernels.min(array, from, 999),
+                        VectorKernels.min(segment, from, 999));
+                assertEquals(ScalarKernels.sum(array, from, 1001),
+                        VectorKernels.sum(segment, from, 1001));
+                assertEquals(ScalarKernels.sum(array, from, 1001),
+                        ScalarKernels.sum(segment, from, 1001));
+            }
+            assertThrows(IndexOutOfBoundsException.class,
+                    () -> IntReductions.sum(segment, 0, 1002));
+        }
+    }
+
+    @Test
+    void countValue() {
+        assumeTrue(IntReductions.isVectorized());
+        int[] array = new Random(7).ints(1000, -3, 4).toArray();
+        for (int value = -4; value <= 4; value++) {
+            assertEquals(ScalarKernels.count(array, 0, array.length, value),
+                    VectorKernels.count(array, 0, array.length, value));
+        }
+    }
+
+    @Test
+    void sumDoesNotOverflow() {
+        int[] array = new int[100];
+        Arrays.fill(array, Integer.MAX_VALUE);
+        assertEquals(100L * Integer.MAX_VALUE, IntReductions.sum(array, 0, 100));
+        IntSummaryStatistics summary = IntReductions.summary(array, 0, 100);
+        assertEquals(100L * Integer.MAX_VALUE, summary.getSum());
+        assertEquals(Integer.MAX_VALUE, summary.getMin());
+        assertEquals(100, summary.getCount());
+    }
+
+    @Test
+    void invalidRange() {
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> IntReductions.max(new int[3], 1, 4));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> IntReductions.sum(new int[3], 2, 1));
+    }
+}
@@ -33,6 +33,14 @@ class StaticArrayTest {
         assertArrayEquals(new int[]{1, -2, 3, 6, 22}, array);
     }
 
+    @Test
+    void sumAndCount() {
+        int[] array = StaticArray.createDefinedArray("2147483647, -2, 2147483647, -2");
+        assertEquals(2L * Integer.MAX_VALUE - 4, StaticArray.sum(array));
+        assertEquals(2, StaticArray.count(array, -2));
+        assertEquals(-2, StaticArray.summary(array).getMin());
+    }
+
     @Test
     void getMax() {
         int[] array = StaticArray.createDefinedArray("1, -2, 27,  3, 6 ");
@@ -78,6 +86,20 @@ class StaticArrayTest {
         assertThrows(IndexOutOfBoundsException.class, () -> StaticArray.min(array));
     }
 
+    @Test
+    void bulkRemoval() {
+        int[] array = StaticArray.createDefinedArray("1,2,2,4,2,5,1");
+        assertArrayEquals(new int[]{1, 4, 5, 1}, StaticArray.removeAll(array, 2));
+        assertArrayEquals(new int[]{4, 5}, StaticArray.removeAll(array, 1, 2));
+        assertArrayEquals(new int[]{1, 5, 1}, StaticArray.retainAll(array, 1, 5));
+        assertArrayEquals(new int[]{1, 2, 2, 2, 1}, StaticArray.removeIf(array, n -> n > 3));
+        assertArrayEquals(new int[]{1, 2, 4, 2, 5, 1}, StaticArray.removeFirst(array, 2));
+        assertArrayEquals(new int[]{1, 5, 1}, StaticArray.removeRange(array, 1, 5));
+        assertArrayEquals(new int[]{1, 2, 2, 4, 2, 5, 1}, array);
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> StaticArray.removeRange(array, 5, 8));
+    }
+
     @Test
     void removeNonExisting() {
         int[] array = StaticArray.createDefinedArray("1,2,4");